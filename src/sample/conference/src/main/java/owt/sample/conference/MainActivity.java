@@ -827,14 +827,14 @@ public class MainActivity extends AppCompatActivity
         List<String> videoCodecList = new ArrayList<>();
         List<String> ridList = new ArrayList<>();
         SubscriptionCapabilities.VideoSubscriptionCapabilities videoSubscriptionCapabilities
-                = remoteStream.extraSubscriptionCapability.videoSubscriptionCapabilities;
+                = remoteStream.extraSubscriptionCapability().videoSubscriptionCapabilities;
         for (VideoCodecParameters videoCodec : videoSubscriptionCapabilities.videoCodecs) {
             videoCodecList.add(videoCodec.name.name());
             videoCodecMap.put(remoteStream.id(), videoCodecList);
         }
 
         for (PublicationSettings.VideoPublicationSettings videoPublicationSetting :
-                remoteStream.publicationSettings.videoPublicationSettings) {
+                remoteStream.publicationSettings().videoPublicationSettings) {
             if (videoCodecMap.containsKey(remoteStream.id())){
                 videoCodecMap.get(remoteStream.id()).add(videoPublicationSetting.codec.name.name());
             }else{
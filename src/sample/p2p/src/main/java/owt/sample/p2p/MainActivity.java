@@ -20,6 +20,7 @@ import android.support.v4.app.ActivityCompat;
 import android.support.v4.app.Fragment;
 import android.support.v4.content.ContextCompat;
 import android.support.v7.app.AppCompatActivity;
+import android.util.Log;
 import android.view.MenuItem;
 import android.view.Window;
 import android.view.WindowManager;
@@ -30,6 +31,7 @@ import org.webrtc.EglBase;
 import org.webrtc.RTCStatsReport;
 import org.webrtc.SurfaceViewRenderer;
 
+import java.nio.ByteBuffer;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ExecutorService;
@@ -229,6 +231,16 @@ public class MainActivity extends AppCompatActivity implements LoginFragment.Log
         chatFragment.onMessage(peerId, message);
     }
 
+    @Override
+    public void onDataReceived(String peerId, ByteBuffer message) {
+        Log.d(TAG, "Binary message of " + message.remaining() + " bytes from " + peerId);
+    }
+
+    @Override
+    public void onDataReceived(String peerId, String label, ByteBuffer message) {
+        Log.d(TAG, "Message of " + message.remaining() + " bytes on " + label + " from " + peerId);
+    }
+
     @Override
     public void onConnectRequest(final String server, final String myId) {
         executor.execute(() -> {
@@ -0,0 +1,199 @@
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import owt.base.Sdp;
+import owt.base.SdpCodecRewriter;
+
+import org.junit.Test;
+import org.webrtc.SessionDescription;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+
+@RunWith(AndroidJUnit4.class)
+public class SdpCodecRewriterTest {
+    private static final String TAG = SdpCodecRewriterTest.class.getSimpleName();
+    private static final int BENCHMARK_ROUNDS = 2000;
+
+    private static LinkedHashSet<String> videoCodecs(String... codecs) {
+        LinkedHashSet<String> preferred = new LinkedHashSet<>(Arrays.asList(codecs));
+        preferred.add("red");
+        preferred.add("ulpfec");
+        return preferred;
+    }
+
+    private static LinkedHashSet<String> audioCodecs(String... codecs) {
+        LinkedHashSet<String> preferred = new LinkedHashSet<>(Arrays.asList(codecs));
+        preferred.add("CN");
+        preferred.add("telephone-event");
+        return preferred;
+    }
+
+    private static Sdp parse(String sdp) {
+        return Sdp.parse(new SessionDescription(SessionDescription.Type.OFFER, sdp));
+    }
+
+    private static Sdp prefer(String sdp, LinkedHashSet<String> preferred, boolean video) {
+        Sdp parsed = parse(sdp);
+        for (Sdp.MediaSection section : parsed.mediaSections()) {
+            if (section.kind().equals(video ? "video" : "audio")) {
+                SdpCodecRewriter.preferCodecs(section, preferred);
+            }
+        }
+        return parsed;
+    }
+
+    // The legacy implementation rewrites the whole description at once, so it is run on every
+    // section alone to get what that section is expected to become.
+    private static void assertSameAsLegacy(String sdp, LinkedHashSet<String> preferred,
+            boolean video) {
+        Sdp original = parse(sdp);
+        Sdp actual = prefer(sdp, preferred, video);
+        assertEquals(original.sessionLines(), actual.sessionLines());
+        assertEquals(original.mediaSections().size(), actual.mediaSections().size());
+        for (int i = 0; i < original.mediaSections().size(); i++) {
+            Sdp.MediaSection expected = original.mediaSections().get(i);
+            if (expected.kind().equals(video ? "video" : "audio")) {
+                StringBuilder alone = new StringBuilder();
+                for (String line : original.sessionLines()) {
+                    alone.append(line).append("\r\n");
+                }
+                alone.append(expected.mLine()).append("\r\n");
+                for (String line : expected.lines()) {
+                    alone.append(line).append("\r\n");
+                }
+                expected = parse(LegacyCodecPreference.preferCodec(alone.toString(), preferred,
+                        video)).mediaSections().get(0);
+            }
+            assertEquals(expected.mLine(), actual.mediaSections().get(i).mLine());
+            assertEquals(expected.lines(), actual.mediaSections().get(i).lines());
+        }
+    }
+
+    @Test
+    public void testVideoOutputSameAsLegacy() {
+        for (String fixture : SdpFixtures.ALL) {
+            String sdp = SdpFixtures.load(fixture);
+            assertSameAsLegacy(sdp, videoCodecs("VP8"), true);
+            assertSameAsLegacy(sdp, videoCodecs("H264", "VP8"), true);
+            assertSameAsLegacy(sdp, videoCodecs("VP9", "H264"), true);
+            assertSameAsLegacy(sdp, videoCodecs("H265"), true);
+        }
+    }
+
+    @Test
+    public void testAudioOutputSameAsLegacy() {
+        for (String fixture : SdpFixtures.ALL) {
+            String sdp = SdpFixtures.load(fixture);
+            assertSameAsLegacy(sdp, audioCodecs("opus"), false);
+            assertSameAsLegacy(sdp, audioCodecs("PCMU", "opus"), false);
+            assertSameAsLegacy(sdp, audioCodecs("ISAC"), false);
+        }
+    }
+
+    @Test
+    public void testLineEndingsSameAsLegacy() {
+        String sdp = SdpFixtures.load(SdpFixtures.PUBLISH_CAMERA);
+        assertSameAsLegacy(sdp.replace("\r\n", "\n"), videoCodecs("H264"), true);
+        assertSameAsLegacy(sdp + "\r\n\r\n", videoCodecs("H264"), true);
+        assertSameAsLegacy(sdp.replace("a=rtcp-mux\r\n", "a=rtcp-mux\r\n\r\n"), audioCodecs("opus"),
+                false);
+        // Nothing to rewrite, the description is kept as is.
+        assertEquals("", prefer("", videoCodecs("VP8"), true).toString());
+    }
+
+    @Test
+    public void testVideoMLineReordered() {
+        String sdp = prefer(SdpFixtures.load(SdpFixtures.PUBLISH_CAMERA), videoCodecs("H264"),
+                true).toString();
+        assertTrue(sdp.contains("m=video 9 UDP/TLS/RTP/SAVPF 100 102 104 106 101 103 105\r\n"));
+        assertTrue(!sdp.contains("VP8/90000"));
+        assertTrue(!sdp.contains("a=rtcp-fb:96 "));
+    }
+
+    @Test
+    public void testMultiStreamOutputSameAsLegacy() {
+        for (String fixture : SdpFixtures.MULTI_STREAM) {
+            String sdp = SdpFixtures.load(fixture);
+            assertSameAsLegacy(sdp, videoCodecs("H264", "VP8"), true);
+            assertSameAsLegacy(sdp, videoCodecs("VP9"), true);
+            assertSameAsLegacy(sdp, audioCodecs("opus"), false);
+            assertSameAsLegacy(sdp, audioCodecs("PCMU", "opus"), false);
+        }
+    }
+
+    @Test
+    public void testEveryVideoMLineReordered() {
+        String expected = "m=video 9 UDP/TLS/RTP/SAVPF 100 102 104 106 101 103 105";
+        Sdp camera = prefer(SdpFixtures.load(SdpFixtures.P2P_CAMERA_SCREEN), videoCodecs("H264"),
+                true);
+        assertEquals(expected, camera.mediaSections().get(1).mLine());
+        assertEquals(expected, camera.mediaSections().get(3).mLine());
+
+        Sdp republish = prefer(SdpFixtures.load(SdpFixtures.P2P_REPUBLISH), videoCodecs("H264"),
+                true);
+        assertEquals(expected, republish.mediaSections().get(1).mLine());
+        assertEquals(expected, republish.mediaSections().get(3).mLine());
+        assertEquals(expected, republish.mediaSections().get(5).mLine());
+    }
+
+    @Test
+    public void testCodecPreferencePerSection() {
+        Sdp sdp = parse(SdpFixtures.load(SdpFixtures.P2P_CAMERA_SCREEN));
+        Sdp.MediaSection camera = sdp.mediaSections().get(1);
+        Sdp.MediaSection screen = sdp.mediaSections().get(3);
+        assertEquals("stream2v0", screen.trackId());
+        SdpCodecRewriter.preferCodecs(camera, videoCodecs("H264"));
+        SdpCodecRewriter.preferCodecs(screen, videoCodecs("VP9"));
+        assertEquals("m=video 9 UDP/TLS/RTP/SAVPF 100 102 104 106 101 103 105", camera.mLine());
+        assertEquals("m=video 9 UDP/TLS/RTP/SAVPF 98 104 106 99 105", screen.mLine());
+        assertEquals("VP9", screen.codecName(98));
+        assertEquals(null, screen.codecName(100));
+        assertEquals("H264", camera.codecName(100));
+    }
+
+    @Test
+    public void testAudioPreferenceKeepsVideoSections() {
+        String sdp = SdpFixtures.load(SdpFixtures.P2P_CAMERA_SCREEN);
+        Sdp original = parse(sdp);
+        Sdp result = prefer(sdp, audioCodecs("opus"), false);
+        for (int i : new int[]{1, 3}) {
+            assertEquals(original.mediaSections().get(i).mLine(),
+                    result.mediaSections().get(i).mLine());
+            assertEquals(original.mediaSections().get(i).lines(),
+                    result.mediaSections().get(i).lines());
+        }
+    }
+
+    @Test
+    public void testBenchmark() {
+        String sdp = SdpFixtures.load(SdpFixtures.PUBLISH_CAMERA);
+        LinkedHashSet<String> preferred = videoCodecs("H264", "VP8");
+        // Warm up both implementations before measuring.
+        for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+            LegacyCodecPreference.preferCodec(sdp, preferred, true);
+            prefer(sdp, preferred, true);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+            LegacyCodecPreference.preferCodec(sdp, preferred, true);
+        }
+        long legacyNs = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_ROUNDS; i++) {
+            prefer(sdp, preferred, true);
+        }
+        long rewriterNs = System.nanoTime() - start;
+
+        // Timings depend on the device, GC and JIT, so they are only logged.
+        Log.i(TAG, "legacy: " + legacyNs / BENCHMARK_ROUNDS + "ns/op, rewriter: "
+                + rewriterNs / BENCHMARK_ROUNDS + "ns/op");
+        assertSameAsLegacy(sdp, preferred, true);
+    }
+}
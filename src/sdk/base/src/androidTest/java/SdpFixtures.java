@@ -0,0 +1,32 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+final class SdpFixtures {
+    static final String PUBLISH_CAMERA = "publish_camera.sdp";
+    static final String SUBSCRIBE = "subscribe.sdp";
+    static final String AUDIO_RED = "audio_red.sdp";
+    // Captured from a p2p session publishing a camera stream and a screen sharing stream.
+    static final String P2P_CAMERA_SCREEN = "p2p_camera_screen.sdp";
+    // Captured from a p2p session after a stream has been unpublished and another published.
+    static final String P2P_REPUBLISH = "p2p_republish.sdp";
+    // Fixtures with a single audio section and a single video section.
+    static final String[] ALL = {PUBLISH_CAMERA, SUBSCRIBE, AUDIO_RED};
+    static final String[] MULTI_STREAM = {P2P_CAMERA_SCREEN, P2P_REPUBLISH};
+
+    static String load(String name) {
+        try (InputStream in = SdpFixtures.class.getClassLoader().getResourceAsStream(
+                "sdp/" + name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), Charset.forName("UTF-8"));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import owt.base.Sdp;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.webrtc.SessionDescription;
+
+import java.util.Arrays;
+
+@RunWith(AndroidJUnit4.class)
+public class SdpTest {
+
+    private static Sdp parse(String sdp) {
+        return Sdp.parse(new SessionDescription(SessionDescription.Type.OFFER, sdp));
+    }
+
+    @Test
+    public void testUnmodifiedKeepsDescription() {
+        String sdp = SdpFixtures.load(SdpFixtures.PUBLISH_CAMERA).replace("\r\n", "\n");
+        assertSame(sdp, parse(sdp).toString());
+    }
+
+    @Test
+    public void testMediaSections() {
+        Sdp sdp = parse(SdpFixtures.load(SdpFixtures.PUBLISH_CAMERA));
+        assertEquals(2, sdp.mediaSections().size());
+        Sdp.MediaSection audio = sdp.mediaSections().get(0);
+        Sdp.MediaSection video = sdp.mediaSections().get(1);
+        assertEquals("audio", audio.kind());
+        assertEquals("0", audio.mid());
+        assertEquals("video", video.kind());
+        assertEquals("1", video.mid());
+        assertEquals(Arrays.asList(96, 97, 98, 99, 100, 101, 102, 103, 104, 105, 106),
+                video.payloadTypes());
+        assertEquals("VP8", video.codecName(96));
+        assertEquals("apt=96", video.fmtp(97));
+        assertEquals("minptime=10;useinbandfec=1", audio.fmtp(111));
+        assertEquals(Arrays.asList("goog-remb", "transport-cc", "ccm fir", "nack", "nack pli"),
+                video.rtcpFeedback(96));
+        assertEquals(Arrays.asList(96), video.payloadTypesOf("vp8"));
+        assertNull(audio.codecName(96));
+    }
+
+    @Test
+    public void testMunging() {
+        Sdp sdp = parse(SdpFixtures.load(SdpFixtures.SUBSCRIBE));
+        assertTrue(sdp.removeLine("a=ice-options:google-ice"));
+        Sdp.MediaSection audio = sdp.mediaSections().get(0);
+        audio.setFmtpParameter(111, "stereo", "1");
+        audio.setBandwidth("AS", 64);
+        String result = sdp.toSessionDescription().description;
+        assertTrue(!result.contains("google-ice"));
+        assertTrue(result.contains("a=fmtp:111 minptime=10;useinbandfec=1;stereo=1\r\n"));
+        assertTrue(result.contains("\r\nb=AS:64\r\n"));
+        assertEquals("minptime=10;useinbandfec=1;stereo=1", parse(result).mediaSections().get(0)
+                .fmtp(111));
+    }
+}
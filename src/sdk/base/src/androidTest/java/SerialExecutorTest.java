@@ -0,0 +1,157 @@
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import owt.base.SerialExecutor;
+import owt.base.WorkerPool;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(AndroidJUnit4.class)
+public class SerialExecutorTest {
+    private static final int EXECUTORS = 32;
+    private static final int TASKS = 1000;
+    private static final int TIMEOUT_SECONDS = 10;
+
+    @Test
+    public void testTasksRunInOrder() throws InterruptedException {
+        List<List<Integer>> results = new ArrayList<>();
+        List<SerialExecutor> executors = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(EXECUTORS);
+        for (int i = 0; i < EXECUTORS; i++) {
+            results.add(Collections.synchronizedList(new ArrayList<>()));
+            executors.add(WorkerPool.newSerialExecutor());
+        }
+        for (int task = 0; task < TASKS; task++) {
+            for (int i = 0; i < EXECUTORS; i++) {
+                final List<Integer> result = results.get(i);
+                final int value = task;
+                executors.get(i).execute(() -> result.add(value));
+            }
+        }
+        for (SerialExecutor executor : executors) {
+            executor.execute(done::countDown);
+        }
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        for (List<Integer> result : results) {
+            assertEquals(TASKS, result.size());
+            for (int task = 0; task < TASKS; task++) {
+                assertEquals(task, result.get(task).intValue());
+            }
+        }
+        assertTrue(WorkerPool.getMetrics().largestThreads <= WorkerPool.getMetrics().maxThreads);
+        for (SerialExecutor executor : executors) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testShutdown() throws InterruptedException {
+        int serialQueues = WorkerPool.getMetrics().serialQueues;
+        SerialExecutor executor = WorkerPool.newSerialExecutor();
+        assertEquals(serialQueues + 1, WorkerPool.getMetrics().serialQueues);
+
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch ran = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> {
+            count.incrementAndGet();
+            ran.countDown();
+        });
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, executor.pendingTasks());
+        executor.shutdown();
+        executor.execute(count::incrementAndGet);
+        assertEquals(1, executor.pendingTasks());
+        assertEquals(serialQueues, WorkerPool.getMetrics().serialQueues);
+
+        // The task queued before shutdown still runs, the one after it is dropped.
+        blocked.countDown();
+        assertTrue(ran.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, count.get());
+        assertEquals(0, executor.pendingTasks());
+    }
+
+    @Test
+    public void testInjectedExecutor() {
+        // A direct executor runs everything on the calling thread, deterministically.
+        List<Integer> result = new ArrayList<>();
+        SerialExecutor executor = WorkerPool.newSerialExecutor(Runnable::run);
+        executor.execute(() -> {
+            result.add(1);
+            // Nested tasks are queued and run after the current one, in order.
+            executor.execute(() -> result.add(3));
+            result.add(2);
+        });
+        assertEquals(3, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(i + 1, result.get(i).intValue());
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSchedule() throws InterruptedException {
+        SerialExecutor executor = WorkerPool.newSerialExecutor();
+        CountDownLatch done = new CountDownLatch(1);
+        long start = System.nanoTime();
+        WorkerPool.schedule(executor, done::countDown, 50);
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        executor.shutdown();
+    }
+
+    @Test
+    public void testTaskThrowing() throws InterruptedException {
+        // Would end the process on Android.
+        Thread.UncaughtExceptionHandler defaultHandler =
+                Thread.getDefaultUncaughtExceptionHandler();
+        List<Throwable> uncaught = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch reported = new CountDownLatch(1);
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            uncaught.add(e);
+            reported.countDown();
+        });
+        try {
+            SerialExecutor executor = WorkerPool.newSerialExecutor();
+            CountDownLatch done = new CountDownLatch(1);
+            List<Integer> result = Collections.synchronizedList(new ArrayList<>());
+            IllegalStateException thrown = new IllegalStateException("expected by the test");
+            executor.execute(() -> result.add(1));
+            executor.execute(() -> {
+                throw thrown;
+            });
+            executor.execute(() -> result.add(2));
+            executor.execute(done::countDown);
+            // The exception is reported, the later tasks run in order.
+            assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertTrue(reported.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(1, 2), result);
+            assertEquals(0, executor.pendingTasks());
+            assertEquals(Collections.singletonList(thrown), uncaught);
+            executor.shutdown();
+        } finally {
+            Thread.setDefaultUncaughtExceptionHandler(defaultHandler);
+        }
+    }
+}
@@ -39,4 +39,24 @@ public final class AudioCodecParameters {
         this.channelNum = channelNum;
         this.sampleRate = sampleRate;
     }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof AudioCodecParameters)) {
+            return false;
+        }
+        AudioCodecParameters parameters = (AudioCodecParameters) other;
+        return name == parameters.name && channelNum == parameters.channelNum
+                && sampleRate == parameters.sampleRate;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name == null ? 0 : name.hashCode();
+        result = 31 * result + channelNum;
+        return 31 * result + sampleRate;
+    }
 }
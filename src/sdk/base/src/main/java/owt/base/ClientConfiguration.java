@@ -9,14 +9,37 @@ import static org.webrtc.PeerConnection.SdpSemantics.UNIFIED_PLAN;
 import org.webrtc.PeerConnection;
 import org.webrtc.PeerConnection.RTCConfiguration;
 
+import owt.base.MediaCodecs.AudioCodec;
+import owt.base.MediaCodecs.VideoCodec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 ///@cond
 public abstract class ClientConfiguration {
     // default RTCConfiguration will contain an empty IceServer list.
     public final RTCConfiguration rtcConfiguration;
+    public final SdpTransformerChain sdpTransformerChain;
+    // <mid or track id, codec names in preferred order>
+    public final Map<String, List<String>> sectionCodecs;
+    // Executors supplied by the application, null to use the shared WorkerPool.
+    public final Executor signalingExecutor;
+    public final Executor peerConnectionExecutor;
+    public final Executor callbackExecutor;
+    // Watermarks of the bytes waiting to be sent on a data channel, queued or buffered.
+    public static final long DEFAULT_DATA_CHANNEL_HIGH_WATERMARK = 1024 * 1024;
+    public static final long DEFAULT_DATA_CHANNEL_LOW_WATERMARK = 256 * 1024;
+    protected long dataChannelHighWatermark = DEFAULT_DATA_CHANNEL_HIGH_WATERMARK;
+    protected long dataChannelLowWatermark = DEFAULT_DATA_CHANNEL_LOW_WATERMARK;
 
-    protected ClientConfiguration(RTCConfiguration rtcConf) {
+    protected ClientConfiguration(RTCConfiguration rtcConf, List<SdpTransformer> sdpTransformers,
+            Map<String, List<String>> sectionCodecs, Executor signalingExecutor,
+            Executor peerConnectionExecutor, Executor callbackExecutor) {
         if (rtcConf == null) {
             rtcConf = new RTCConfiguration(new LinkedList<>());
             rtcConf.enableDtlsSrtp = true;
@@ -24,6 +47,47 @@ public abstract class ClientConfiguration {
         }
         rtcConf.sdpSemantics = UNIFIED_PLAN;
         this.rtcConfiguration = rtcConf;
+        this.sdpTransformerChain = new SdpTransformerChain(sdpTransformers);
+        // Copied, so that Builders modified or reused after build() do not change it.
+        Map<String, List<String>> codecs = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : sectionCodecs.entrySet()) {
+            codecs.put(entry.getKey(),
+                    Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+        }
+        this.sectionCodecs = Collections.unmodifiableMap(codecs);
+        this.signalingExecutor = signalingExecutor;
+        this.peerConnectionExecutor = peerConnectionExecutor;
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    // The executors supplied by the application may run tasks concurrently, so each user of
+    // them gets its own SerialExecutor to keep its tasks in order.
+    public SerialExecutor newSignalingExecutor() {
+        return WorkerPool.newSerialExecutor(signalingExecutor);
+    }
+
+    public SerialExecutor newPeerConnectionExecutor() {
+        return WorkerPool.newSerialExecutor(peerConnectionExecutor);
+    }
+
+    public SerialExecutor newCallbackExecutor() {
+        return WorkerPool.newSerialExecutor(callbackExecutor);
+    }
+
+    protected static List<String> codecNames(VideoCodec... codecs) {
+        List<String> names = new ArrayList<>();
+        for (VideoCodec codec : codecs) {
+            names.add(codec.name);
+        }
+        return names;
+    }
+
+    protected static List<String> codecNames(AudioCodec... codecs) {
+        List<String> names = new ArrayList<>();
+        for (AudioCodec codec : codecs) {
+            names.add(codec.name);
+        }
+        return names;
     }
 }
 ///@endcond
@@ -14,7 +14,10 @@ public class Const {
             "'sdk':{'type':'Android','version':" + CLIENT_VERSION + "}," +
             "'capabilities':{'continualIceGathering': true," +
                             "'unifiedPlan': true," +
-                            "'streamRemovable': true}" +
+                            "'streamRemovable': true," +
+                            "'dataChannelFragmentation': true," +
+                            "'dataChannelAck': true," +
+                            "'dataChannelBatching': true}" +
             "}";
     public static final String PROTOCOL_VERSION = "1.1";
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+
+/**
+ * Configuration of a data channel opened in addition to the default one, identified by its label.
+ * Messages of a channel are delivered with its label, and do not wait for those of the others.
+ */
+public final class DataChannelConfiguration {
+    /**
+     * Label of the default data channel, which cannot be used by other data channels.
+     */
+    public static final String DEFAULT_LABEL = "message";
+
+    /**
+     * Priority of a data channel, the default data channel having Priority.LOW.
+     */
+    public enum Priority {
+        VERY_LOW,
+        LOW,
+        MEDIUM,
+        HIGH
+    }
+
+    /**
+     * Label of the data channel.
+     */
+    public final String label;
+    /**
+     * Whether messages are delivered in the order they are sent.
+     */
+    public final boolean ordered;
+    /**
+     * Maximum number of retransmissions of a message, -1 for unlimited.
+     */
+    public final int maxRetransmits;
+    /**
+     * Maximum time in milliseconds a message is retransmitted for, -1 for unlimited.
+     */
+    public final int maxPacketLifeTime;
+    /**
+     * Priority of the data channel. While a data channel of higher priority has messages waiting
+     * to be sent, the messages of this one wait as well.
+     */
+    public final Priority priority;
+
+    private DataChannelConfiguration(String label, boolean ordered, int maxRetransmits,
+            int maxPacketLifeTime, Priority priority) {
+        this.label = label;
+        this.ordered = ordered;
+        this.maxRetransmits = maxRetransmits;
+        this.maxPacketLifeTime = maxPacketLifeTime;
+        this.priority = priority;
+    }
+
+    /**
+     * Get a Builder for creating a DataChannelConfiguration.
+     *
+     * @param label label of the data channel, other than DEFAULT_LABEL.
+     * @return Builder
+     */
+    public static Builder builder(String label) {
+        RCHECK(label);
+        RCHECK(!label.equals(DEFAULT_LABEL));
+        return new Builder(label);
+    }
+
+    /**
+     * Builder for building up a DataChannelConfiguration. By default, the data channel is ordered
+     * and reliable, with Priority.LOW.
+     */
+    public static class Builder {
+        private final String label;
+        private boolean ordered = true;
+        private int maxRetransmits = -1;
+        private int maxPacketLifeTime = -1;
+        private Priority priority = Priority.LOW;
+
+        Builder(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Set whether messages are delivered in the order they are sent.
+         *
+         * @param ordered false to deliver each message as soon as it is received.
+         * @return Builder
+         */
+        public Builder setOrdered(boolean ordered) {
+            this.ordered = ordered;
+            return this;
+        }
+
+        /**
+         * Limit the retransmissions of a message, which cannot be combined with
+         * setMaxPacketLifeTime.
+         *
+         * @param maxRetransmits maximum number of retransmissions, 0 for none.
+         * @return Builder
+         */
+        public Builder setMaxRetransmits(int maxRetransmits) {
+            RCHECK(maxRetransmits >= 0);
+            this.maxRetransmits = maxRetransmits;
+            return this;
+        }
+
+        /**
+         * Limit the time a message is retransmitted for, which cannot be combined with
+         * setMaxRetransmits.
+         *
+         * @param maxPacketLifeTime maximum time in milliseconds.
+         * @return Builder
+         */
+        public Builder setMaxPacketLifeTime(int maxPacketLifeTime) {
+            RCHECK(maxPacketLifeTime >= 0);
+            this.maxPacketLifeTime = maxPacketLifeTime;
+            return this;
+        }
+
+        /**
+         * Set the priority of the data channel.
+         *
+         * @param priority Priority of the data channel.
+         * @return Builder
+         */
+        public Builder setPriority(Priority priority) {
+            RCHECK(priority);
+            this.priority = priority;
+            return this;
+        }
+
+        /**
+         * Build up the DataChannelConfiguration.
+         *
+         * @return DataChannelConfiguration.
+         */
+        public DataChannelConfiguration build() {
+            RCHECK(maxRetransmits == -1 || maxPacketLifeTime == -1);
+            return new DataChannelConfiguration(label, ordered, maxRetransmits, maxPacketLifeTime,
+                    priority);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+/**
+ * Snapshot of the data waiting to be sent on a data channel: the messages queued by the SDK,
+ * which are handed to the data channel while its buffered amount is below the high watermark,
+ * and the bytes buffered by the data channel itself.
+ */
+public final class DataChannelQueueMetrics {
+    /**
+     * Label of the data channel.
+     */
+    public final String label;
+    /**
+     * Number of messages queued by the SDK.
+     */
+    public final int pendingMessages;
+    /**
+     * Number of bytes of the messages queued by the SDK.
+     */
+    public final long pendingBytes;
+    /**
+     * Maximum number of bytes that have been queued by the SDK at a time.
+     */
+    public final long maxPendingBytes;
+    /**
+     * Number of bytes buffered by the data channel, i.e. DataChannel.bufferedAmount().
+     */
+    public final long bufferedAmount;
+    /**
+     * Whether more data should be sent: false once the pending bytes, queued or buffered, have
+     * reached the high watermark, until they drop to the low watermark.
+     */
+    public final boolean writable;
+    /**
+     * Percentiles of the latency of the recent messages, from being sent to the SDK until they
+     * have left the buffer of the data channel, in milliseconds. 0 if no message has left it.
+     */
+    public final double latencyP50Ms, latencyP90Ms, latencyP99Ms;
+
+    DataChannelQueueMetrics(String label, int pendingMessages, long pendingBytes,
+            long maxPendingBytes, long bufferedAmount, boolean writable, double latencyP50Ms,
+            double latencyP90Ms, double latencyP99Ms) {
+        this.label = label;
+        this.pendingMessages = pendingMessages;
+        this.pendingBytes = pendingBytes;
+        this.maxPendingBytes = maxPendingBytes;
+        this.bufferedAmount = bufferedAmount;
+        this.writable = writable;
+        this.latencyP50Ms = latencyP50Ms;
+        this.latencyP90Ms = latencyP90Ms;
+        this.latencyP99Ms = latencyP99Ms;
+    }
+
+    @Override
+    public String toString() {
+        return "label=" + label + ", pendingMessages=" + pendingMessages + ", pendingBytes=" + pendingBytes
+                + ", maxPendingBytes=" + maxPendingBytes + ", bufferedAmount=" + bufferedAmount
+                + ", writable=" + writable + ", latencyP50Ms=" + latencyP50Ms
+                + ", latencyP90Ms=" + latencyP90Ms + ", latencyP99Ms=" + latencyP99Ms;
+    }
+}
@@ -18,6 +18,7 @@ import org.webrtc.IceCandidate;
 import org.webrtc.MediaConstraints;
 import org.webrtc.MediaConstraints.KeyValuePair;
 import org.webrtc.MediaStream;
+import org.webrtc.MediaStreamTrack;
 import org.webrtc.PeerConnection;
 import org.webrtc.RTCStatsReport;
 import org.webrtc.RtpParameters;
@@ -31,17 +32,17 @@ import org.webrtc.VideoTrack;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import owt.base.MediaCodecs.AudioCodec;
 import owt.base.MediaCodecs.VideoCodec;
@@ -53,10 +54,16 @@ public abstract class PeerConnectionChannel
     //For P2P, key is peer id, for conference, key is Publication/Subscription id.
     public final String key;
     protected final PeerConnectionChannelObserver observer;
-    protected final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
-    private final ExecutorService pcExecutor = Executors.newSingleThreadExecutor();
-    private final List<IceCandidate> queuedRemoteCandidates;
+    // Both run on the executors of the ClientConfiguration, or on the shared WorkerPool, and are
+    // shut down once the PeerConnection is disposed.
+    protected final SerialExecutor callbackExecutor;
+    private final SerialExecutor pcExecutor;
+    // Remote candidates received before the remote description is set, swapped out as a whole
+    // by drainRemoteCandidates().
+    private List<IceCandidate> queuedRemoteCandidates;
     private final Object remoteIceLock = new Object();
+    // Number of remote candidates dropped because the channel has been disposed.
+    private final AtomicInteger droppedRemoteCandidates = new AtomicInteger();
     private final Object disposeLock = new Object();
     protected PeerConnection peerConnection;
     protected PeerConnection.SignalingState signalingState;
@@ -65,21 +72,48 @@ public abstract class PeerConnectionChannel
     protected List<VideoCodec> videoCodecs;
     protected List<AudioCodec> audioCodecs;
     protected Integer videoMaxBitrate = null, audioMaxBitrate = null;
-    protected ArrayList<String> queuedMessage;
+    // Messages waiting for their data channel to open or its buffer to drain, queued for the
+    // default data channel and for each one created with a DataChannelConfiguration. All the
+    // queues are guarded by |dataChannelLock|, a queue yielding to those of higher priority.
+    private final Object dataChannelLock = new Object();
+    private final DataChannelQueue defaultQueue;
+    // <Label, DataChannelQueue>
+    private final Map<String, DataChannelQueue> namedQueues = new HashMap<>();
+    // All the queues, from the highest priority to the lowest.
+    private final List<DataChannelQueue> queues = new ArrayList<>();
+    // Set once the queued messages have failed upon dispose(), messages are not queued anymore.
+    private boolean dataChannelsClosed = false;
+    private final long dataChannelHighWatermark;
+    private final long dataChannelLowWatermark;
     private MediaConstraints sdpConstraints;
+    private final SdpTransformerChain sdpTransformerChain;
+    private final Map<String, List<String>> sectionCodecs;
+    // Ids of the local tracks whose codec preference has been set on their transceivers, only
+    // accessed on pcExecutor. Transceivers are not kept since PeerConnection.getTransceivers()
+    // disposes the ones it returned before.
+    private final Set<String> codecPreferredTracks = new HashSet<>();
     private SessionDescription localSdp;
     private boolean disposed = false;
     protected boolean onError = false;
 
-    protected PeerConnectionChannel(String key, PeerConnection.RTCConfiguration configuration,
+    protected PeerConnectionChannel(String key, ClientConfiguration configuration,
             boolean receiveVideo, boolean receiveAudio, PeerConnectionChannelObserver observer) {
+        RCHECK(configuration);
         this.key = key;
         this.observer = observer;
-
-        queuedRemoteCandidates = new LinkedList<>();
-        queuedMessage = new ArrayList<>();
+        this.sdpTransformerChain = configuration.sdpTransformerChain;
+        this.sectionCodecs = configuration.sectionCodecs;
+        this.dataChannelHighWatermark = configuration.dataChannelHighWatermark;
+        this.dataChannelLowWatermark = configuration.dataChannelLowWatermark;
+        defaultQueue = new DataChannelQueue(DataChannelConfiguration.DEFAULT_LABEL,
+                DataChannelConfiguration.Priority.LOW);
+        queues.add(defaultQueue);
+        callbackExecutor = configuration.newCallbackExecutor();
+        pcExecutor = configuration.newPeerConnectionExecutor();
+
+        queuedRemoteCandidates = new ArrayList<>();
         sdpConstraints = new MediaConstraints();
-        peerConnection = PCFactoryProxy.instance().createPeerConnection(configuration, this);
+        peerConnection = PCFactoryProxy.instance().createPeerConnection(configuration.rtcConfiguration, this);
         RCHECK(peerConnection);
         signalingState = peerConnection.signalingState();
     }
@@ -95,6 +129,14 @@ public abstract class PeerConnectionChannel
         }
     }
 
+    /**
+     * Number of remote ICE candidates dropped because they arrived or were queued when the
+     * channel had been disposed.
+     */
+    public int droppedRemoteCandidates() {
+        return droppedRemoteCandidates.get();
+    }
+
     protected void createOffer() {
         DCHECK(pcExecutor);
         pcExecutor.execute(() -> {
@@ -142,12 +184,14 @@ public abstract class PeerConnectionChannel
 
     private void addOrQueueCandidate(final IceCandidate iceCandidate) {
         if (disposed()) {
+            droppedRemoteCandidates.incrementAndGet();
             return;
         }
         DCHECK(pcExecutor);
         DCHECK(iceCandidate);
         pcExecutor.execute(() -> {
             if (disposed()) {
+                droppedRemoteCandidates.incrementAndGet();
                 return;
             }
             if (peerConnection.signalingState() == PeerConnection.SignalingState.STABLE) {
@@ -164,19 +208,24 @@ public abstract class PeerConnectionChannel
 
     protected void drainRemoteCandidates() {
         DCHECK(pcExecutor);
-        DCHECK(queuedRemoteCandidates);
+        final List<IceCandidate> candidates;
         synchronized (remoteIceLock) {
-            for (final IceCandidate candidate : queuedRemoteCandidates) {
-                pcExecutor.execute(() -> {
-                    if (disposed()) {
-                        return;
-                    }
-                    Log.d(LOG_TAG, "add ice candidate");
-                    peerConnection.addIceCandidate(candidate);
-                    queuedRemoteCandidates.remove(candidate);
-                });
+            if (queuedRemoteCandidates.isEmpty()) {
+                return;
             }
+            candidates = queuedRemoteCandidates;
+            queuedRemoteCandidates = new ArrayList<>();
         }
+        pcExecutor.execute(() -> {
+            if (disposed()) {
+                droppedRemoteCandidates.addAndGet(candidates.size());
+                return;
+            }
+            Log.d(LOG_TAG, "add " + candidates.size() + " queued ice candidates");
+            for (IceCandidate candidate : candidates) {
+                peerConnection.addIceCandidate(candidate);
+            }
+        });
     }
 
     private void setRemoteDescription(final SessionDescription remoteDescription) {
@@ -199,13 +248,54 @@ public abstract class PeerConnectionChannel
             streamIds.add(mediaStream.getId());
             for (AudioTrack audioTrack : mediaStream.audioTracks) {
                 RtpTransceiver transceiver = peerConnection.addTransceiver(audioTrack, new RtpTransceiver.RtpTransceiverInit(RtpTransceiver.RtpTransceiverDirection.SEND_ONLY, streamIds, new ArrayList<RtpParameters.Encoding>()));
+                if (TransceiverCodecPreferences.apply(transceiver,
+                        preferredCodecNames(audioTrack.id(), false), false)) {
+                    codecPreferredTracks.add(audioTrack.id());
+                }
             }
             for (VideoTrack videoTrack : mediaStream.videoTracks) {
                 RtpTransceiver transceiver = peerConnection.addTransceiver(videoTrack, new RtpTransceiver.RtpTransceiverInit(RtpTransceiver.RtpTransceiverDirection.SEND_ONLY, streamIds, new ArrayList<RtpParameters.Encoding>()));
+                if (TransceiverCodecPreferences.apply(transceiver,
+                        preferredCodecNames(videoTrack.id(), true), true)) {
+                    codecPreferredTracks.add(videoTrack.id());
+                }
             }
         });
     }
 
+    private List<String> preferredCodecNames(String trackId, boolean video) {
+        if (sectionCodecs.containsKey(trackId)) {
+            return sectionCodecs.get(trackId);
+        }
+        List<String> names = new ArrayList<>();
+        if (video && videoCodecs != null) {
+            for (VideoCodec codec : videoCodecs) {
+                names.add(codec.name);
+            }
+        } else if (!video && audioCodecs != null) {
+            for (AudioCodec codec : audioCodecs) {
+                names.add(codec.name);
+            }
+        }
+        return names;
+    }
+
+    // Mids of the transceivers whose codec preference has been set by addStream.
+    private Set<String> codecPreferredMids() {
+        Set<String> mids = new HashSet<>();
+        if (codecPreferredTracks.isEmpty()) {
+            return mids;
+        }
+        for (RtpTransceiver transceiver : peerConnection.getTransceivers()) {
+            MediaStreamTrack track = transceiver.getSender().track();
+            if (transceiver.getMid() != null && track != null
+                    && codecPreferredTracks.contains(track.id())) {
+                mids.add(transceiver.getMid());
+            }
+        }
+        return mids;
+    }
+
     protected void removeStream(String mediaStreamId) {
         DCHECK(pcExecutor);
         pcExecutor.execute(() -> {
@@ -235,151 +325,251 @@ public abstract class PeerConnectionChannel
                 return;
             }
             DataChannel.Init init = new DataChannel.Init();
-            localDataChannel = peerConnection.createDataChannel("message", init);
-            localDataChannel.registerObserver(PeerConnectionChannel.this);
+            DataChannel dataChannel = peerConnection.createDataChannel(
+                    DataChannelConfiguration.DEFAULT_LABEL, init);
+            dataChannel.registerObserver(PeerConnectionChannel.this);
+            synchronized (dataChannelLock) {
+                localDataChannel = dataChannel;
+                defaultQueue.dataChannel = dataChannel;
+            }
         });
     }
 
-    public void getConnectionStats(final ActionCallback<RTCStatsReport> callback) {
+    /**
+     * Create a data channel with |configuration|, whose messages are queued until it opens.
+     *
+     * @return false if there is a data channel with the same label already.
+     */
+    protected boolean createDataChannel(final DataChannelConfiguration configuration) {
         DCHECK(pcExecutor);
+        final DataChannelQueue queue;
+        synchronized (dataChannelLock) {
+            if (namedQueues.containsKey(configuration.label)) {
+                return false;
+            }
+            queue = addQueue(configuration.label, configuration.priority);
+        }
         pcExecutor.execute(() -> {
             if (disposed()) {
-                callback.onFailure(new OwtError("Invalid stats."));
                 return;
             }
-            peerConnection.getStats(callback::onSuccess);
+            DataChannel.Init init = new DataChannel.Init();
+            init.ordered = configuration.ordered;
+            init.maxRetransmits = configuration.maxRetransmits;
+            init.maxRetransmitTimeMs = configuration.maxPacketLifeTime;
+            DataChannel dataChannel = peerConnection.createDataChannel(configuration.label, init);
+            dataChannel.registerObserver(queue);
+            synchronized (dataChannelLock) {
+                queue.dataChannel = dataChannel;
+            }
         });
+        return true;
     }
 
-    private SessionDescription preferCodecs(SessionDescription sdp, boolean video) {
-        LinkedHashSet<String> preferredCodecs = new LinkedHashSet<>();
-        if (video) {
-            for (VideoCodec codec : this.videoCodecs) {
-                preferredCodecs.add(codec.name);
-            }
-            preferredCodecs.add("red");
-            preferredCodecs.add("ulpfec");
-        } else {
-            for (AudioCodec codec : audioCodecs) {
-                preferredCodecs.add(codec.name);
-            }
-            preferredCodecs.add("CN");
-            preferredCodecs.add("telephone-event");
-        }
-
-        return preferCodec(sdp, preferredCodecs, video);
-    }
-
-    private SessionDescription preferCodec(SessionDescription originalSdp,
-            LinkedHashSet<String> preferredCodecs, boolean video) {
-        String[] lines = originalSdp.description.split("(\r\n|\n)");
-        ArrayList<String> newLines = new ArrayList<>();
-
-        int audioMLineIndex = -1;
-        int videoMLineIndex = -1;
-        //<codecName, payloadType>
-        HashMap<String, ArrayList<String>> preferredPayloadTypes = new HashMap<>();
-        //skipped all video payload types when dealing with audio codecs, and vice versa.
-        HashSet<String> misMatchedPayloadTypes = new HashSet<>();
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            if (line.startsWith("a=rtpmap:")) {
-                String payloadType = line.split(" ")[0].split(":")[1];
-                String codecName = line.split(" ")[1].split("/")[0];
-                boolean typeMismatched = video ? VideoCodec.get(codecName) == VideoCodec.INVALID
-                        : AudioCodec.get(codecName) == AudioCodec.INVALID;
-                boolean codecPreferred = preferredCodecs.contains(codecName);
-                boolean rtxPreferred = codecName.equals("rtx")
-                        && containsValue(preferredPayloadTypes, lines[i + 1].split("apt=")[1]);
-                if (codecPreferred || rtxPreferred) {
-                    putEntry(preferredPayloadTypes, codecName, payloadType);
-                } else if (typeMismatched && !codecName.equals("rtx")) {
-                    misMatchedPayloadTypes.add(payloadType);
-                } else {
-                    continue;
-                }
-            } else if (line.startsWith("a=rtcp-fb:") || line.startsWith("a=fmtp:")) {
-                String payloadType = line.split(" ")[0].split(":")[1];
-                if (!misMatchedPayloadTypes.contains(payloadType)
-                        && !containsValue(preferredPayloadTypes, payloadType)) {
-                    continue;
-                }
-            } else if (line.startsWith("m=audio")) {
-                audioMLineIndex = newLines.size();
-            } else if (line.startsWith("m=video")) {
-                videoMLineIndex = newLines.size();
+    // Called with |dataChannelLock| held.
+    private DataChannelQueue addQueue(String label, DataChannelConfiguration.Priority priority) {
+        DataChannelQueue queue = new DataChannelQueue(label, priority);
+        namedQueues.put(label, queue);
+        int index = 0;
+        while (index < queues.size() && queues.get(index).priority.compareTo(priority) >= 0) {
+            index++;
+        }
+        queues.add(index, queue);
+        return queue;
+    }
+
+    /**
+     * Send |buffer| on the data channel, which is created if there is none. Messages are handed
+     * to the data channel in order while its buffered amount is below the high watermark, the
+     * others are queued until it opens or its buffer drains. The data of |buffer| is passed to
+     * DataChannel.send() as is, so it must not be modified until |callback| is called.
+     *
+     * @param callback called on |callbackExecutor| once |buffer| has been handed to the data
+     * channel, may be null. It fails right away if the channel has been disposed.
+     */
+    protected void sendDataChannelMessage(DataChannel.Buffer buffer,
+            ActionCallback<Void> callback) {
+        sendDataChannelMessage(new SingleBufferSource(buffer), callback);
+    }
+
+    /**
+     * Send the buffers produced by |source| on the data channel, queued like a single message:
+     * they are produced while the buffered amount is below the high watermark, and the buffers of
+     * other messages are not sent in between.
+     *
+     * @param callback called on |callbackExecutor| once the last buffer of |source| has been
+     * handed to the data channel, may be null.
+     */
+    protected void sendDataChannelMessage(DataChannelMessageSource source,
+            ActionCallback<Void> callback) {
+        boolean queued;
+        synchronized (dataChannelLock) {
+            queued = !dataChannelsClosed;
+            if (queued) {
+                defaultQueue.add(source, callback);
             }
-            newLines.add(line);
         }
+        if (!queued) {
+            failDisposed(callback);
+            return;
+        }
+        flushDataChannelQueues();
+        if (localDataChannel == null) {
+            createDataChannel();
+        }
+    }
+
+    /**
+     * Send |buffer| on the data channel labeled |label|, queued like the messages of the default
+     * data channel. It fails if there is no such data channel, which is not created here.
+     */
+    protected void sendDataChannelMessage(String label, DataChannel.Buffer buffer,
+            ActionCallback<Void> callback) {
+        sendDataChannelMessage(label, new SingleBufferSource(buffer), callback);
+    }
 
-        if (!video && audioMLineIndex != -1) {
-            newLines.set(audioMLineIndex, changeMLine(newLines.get(audioMLineIndex),
-                    preferredCodecs,
-                    preferredPayloadTypes));
+    protected void sendDataChannelMessage(String label, DataChannelMessageSource source,
+            ActionCallback<Void> callback) {
+        boolean queued;
+        synchronized (dataChannelLock) {
+            DataChannelQueue queue = namedQueues.get(label);
+            if (queue == null) {
+                complete(callback, new OwtError("No data channel " + label + "."));
+                return;
+            }
+            queued = !dataChannelsClosed;
+            if (queued) {
+                queue.add(source, callback);
+            }
         }
-        if (video && videoMLineIndex != -1) {
-            newLines.set(videoMLineIndex, changeMLine(newLines.get(videoMLineIndex),
-                    preferredCodecs,
-                    preferredPayloadTypes));
+        if (!queued) {
+            failDisposed(callback);
+            return;
         }
-        String newSdp = joinString(newLines, "\r\n", true);
+        flushDataChannelQueues();
+    }
 
-        return new SessionDescription(originalSdp.type, newSdp);
+    /**
+     * Send |buffer| on the default data channel right away, ahead of the queued messages, which
+     * is meant for small control messages whose order does not matter.
+     *
+     * @return false if the data channel is not open or |buffer| could not be sent.
+     */
+    protected boolean sendDataChannelControlMessage(DataChannel.Buffer buffer) {
+        synchronized (dataChannelLock) {
+            return defaultQueue.isOpen() && defaultQueue.send(buffer);
+        }
     }
 
-    private boolean containsValue(HashMap<String, ArrayList<String>> payloadTypes, String value) {
-        for (ArrayList<String> v : payloadTypes.values()) {
-            for (String s : v) {
-                if (s.equals(value)) {
-                    return true;
+    /**
+     * Cancel the message of |source| unless it has been handed to its data channel as a whole,
+     * its callback then fails.
+     *
+     * @return whether the message has been cancelled.
+     */
+    protected boolean cancelDataChannelMessage(DataChannelMessageSource source) {
+        ActionCallback<Void> callback = null;
+        boolean cancelled = false;
+        synchronized (dataChannelLock) {
+            for (DataChannelQueue queue : queues) {
+                QueuedMessage message = queue.remove(source);
+                if (message != null) {
+                    callback = message.callback;
+                    cancelled = true;
+                    break;
                 }
             }
         }
-        return false;
+        if (!cancelled) {
+            return false;
+        }
+        complete(callback, new OwtError("Cancelled."));
+        flushDataChannelQueues();
+        return true;
     }
 
-    private void putEntry(HashMap<String, ArrayList<String>> payloadTypes, String key,
-            String value) {
-        if (payloadTypes.containsKey(key)) {
-            payloadTypes.get(key).add(value);
-        } else {
-            ArrayList<String> valueList = new ArrayList<>();
-            valueList.add(value);
-            payloadTypes.put(key, valueList);
+    // Drains the queues from the highest priority to the lowest.
+    private void flushDataChannelQueues() {
+        boolean writabilityChanged = false;
+        boolean writable;
+        synchronized (dataChannelLock) {
+            if (dataChannelsClosed) {
+                return;
+            }
+            for (DataChannelQueue queue : queues) {
+                boolean changed = queue.drain();
+                if (queue == defaultQueue) {
+                    writabilityChanged = changed;
+                }
+            }
+            writable = defaultQueue.writable;
+        }
+        if (writabilityChanged) {
+            observer.onDataChannelWritable(key, writable);
         }
     }
 
-    private String changeMLine(String mLine, LinkedHashSet<String> preferredCodecs,
-            HashMap<String, ArrayList<String>> preferredPayloadTypes) {
-        List<String> oldMLineParts = Arrays.asList(mLine.split(" "));
-        List<String> mLineHeader = oldMLineParts.subList(0, 3);
+    // @param error null for success.
+    private void complete(final ActionCallback<Void> callback, final OwtError error) {
+        if (callback == null) {
+            return;
+        }
+        callbackExecutor.execute(() -> {
+            if (error == null) {
+                callback.onSuccess(null);
+            } else {
+                callback.onFailure(error);
+            }
+        });
+    }
 
-        ArrayList<String> newMLineParts = new ArrayList<>(mLineHeader);
-        for (String preferredCodec : preferredCodecs) {
-            if (preferredPayloadTypes.containsKey(preferredCodec)) {
-                newMLineParts.addAll(preferredPayloadTypes.get(preferredCodec));
+    // Fails the messages waiting in the data channel queues, and those sent afterwards.
+    private void closeDataChannelQueues() {
+        List<ActionCallback<Void>> callbacks = new ArrayList<>();
+        synchronized (dataChannelLock) {
+            dataChannelsClosed = true;
+            for (DataChannelQueue queue : queues) {
+                queue.clear(callbacks);
             }
         }
-        if (preferredPayloadTypes.containsKey("rtx")) {
-            newMLineParts.addAll(preferredPayloadTypes.get("rtx"));
+        for (ActionCallback<Void> callback : callbacks) {
+            complete(callback, new OwtError("Channel disposed."));
         }
-        return joinString(newMLineParts, " ", false);
     }
 
-    private String joinString(
-            ArrayList<String> strings, String delimiter, boolean delimiterAtEnd) {
-        Iterator<String> iter = strings.iterator();
-        if (!iter.hasNext()) {
-            return "";
+    // Called once |callbackExecutor| may have been shut down, so |callback| is called right away.
+    private void failDisposed(ActionCallback<Void> callback) {
+        if (callback != null) {
+            callback.onFailure(new OwtError("Channel disposed."));
         }
-        StringBuilder buffer = new StringBuilder(iter.next());
-        while (iter.hasNext()) {
-            buffer.append(delimiter).append(iter.next());
+    }
+
+    public DataChannelQueueMetrics getDataChannelQueueMetrics() {
+        synchronized (dataChannelLock) {
+            return defaultQueue.metrics();
         }
-        if (delimiterAtEnd) {
-            buffer.append(delimiter);
+    }
+
+    /**
+     * @return DataChannelQueueMetrics of the data channel labeled |label|, null if there is none.
+     */
+    public DataChannelQueueMetrics getDataChannelQueueMetrics(String label) {
+        synchronized (dataChannelLock) {
+            DataChannelQueue queue = label.equals(DataChannelConfiguration.DEFAULT_LABEL)
+                    ? defaultQueue : namedQueues.get(label);
+            return queue == null ? null : queue.metrics();
         }
-        return buffer.toString();
+    }
+
+    public void getConnectionStats(final ActionCallback<RTCStatsReport> callback) {
+        DCHECK(pcExecutor);
+        pcExecutor.execute(() -> {
+            if (disposed()) {
+                callback.onFailure(new OwtError("Invalid stats."));
+                return;
+            }
+            peerConnection.getStats(callback::onSuccess);
+        });
     }
 
     private void setMaxBitrate(RtpSender sender, Integer bitrate) {
@@ -424,33 +614,39 @@ public abstract class PeerConnectionChannel
                 }
                 peerConnection = null;
             }
+            synchronized (remoteIceLock) {
+                droppedRemoteCandidates.addAndGet(queuedRemoteCandidates.size());
+                queuedRemoteCandidates.clear();
+            }
+            // Queued messages fail before the callbacks can no longer be posted.
+            closeDataChannelQueues();
+            // PeerConnection.dispose() has delivered its last callbacks, tasks already queued
+            // still run and find the channel disposed.
+            callbackExecutor.shutdown();
+            pcExecutor.shutdown();
         });
     }
 
     //SdpObserver
     @Override
     public void onCreateSuccess(final SessionDescription sessionDescription) {
-        localSdp = sessionDescription;
-
-        if (audioCodecs != null) {
-            localSdp = preferCodecs(localSdp, false);
-        }
-
-        if (videoCodecs != null) {
-            localSdp = preferCodecs(localSdp, true);
-        }
-
-        callbackExecutor.execute(() -> {
-            if (disposed) {
-                return;
-            }
-            observer.onLocalDescription(key, localSdp);
-        });
-
+        // Transform the description on the pc thread rather than the WebRTC signaling thread.
         pcExecutor.execute(() -> {
-            if (disposed) {
+            if (disposed()) {
                 return;
             }
+            Sdp sdp = Sdp.parse(sessionDescription);
+            sdpTransformerChain.transform(sdp, new SdpTransformer.Context(key, videoCodecs,
+                    audioCodecs, codecPreferredMids(), sectionCodecs));
+            localSdp = sdp.toSessionDescription();
+
+            callbackExecutor.execute(() -> {
+                if (disposed) {
+                    return;
+                }
+                observer.onLocalDescription(key, localSdp);
+            });
+
             peerConnection.setLocalDescription(PeerConnectionChannel.this, localSdp);
         });
     }
@@ -510,8 +706,23 @@ public abstract class PeerConnectionChannel
             return;
         }
         callbackExecutor.execute(() -> {
-            localDataChannel = dataChannel;
-            localDataChannel.registerObserver(PeerConnectionChannel.this);
+            String label = dataChannel.label();
+            synchronized (dataChannelLock) {
+                if (label.equals(DataChannelConfiguration.DEFAULT_LABEL)) {
+                    localDataChannel = dataChannel;
+                    defaultQueue.dataChannel = dataChannel;
+                    dataChannel.registerObserver(PeerConnectionChannel.this);
+                    return;
+                }
+                // A data channel the remote endpoint created with a label in use here only
+                // receives, messages being sent on the local one.
+                DataChannelQueue queue = namedQueues.containsKey(label)
+                        ? new DataChannelQueue(label, DataChannelConfiguration.Priority.LOW)
+                        : addQueue(label, DataChannelConfiguration.Priority.LOW);
+                queue.dataChannel = dataChannel;
+                dataChannel.registerObserver(queue);
+            }
+            flushDataChannelQueues();
         });
     }
 
@@ -528,39 +739,304 @@ public abstract class PeerConnectionChannel
         
     //DataChannel.Observer interface
     @Override
-    public void onBufferedAmountChange(long l) {
+    public void onBufferedAmountChange(long previousAmount) {
+        defaultQueue.onBufferedAmountChange(previousAmount);
     }
 
     @Override
     public void onStateChange() {
+        defaultQueue.onStateChange();
+    }
+
+    @Override
+    public void onMessage(final DataChannel.Buffer buffer) {
         if (disposed) {
             return;
         }
-        callbackExecutor.execute(() -> {
-            if (localDataChannel.state() == DataChannel.State.OPEN) {
-                for (int i = 0; i < queuedMessage.size(); i++) {
-                    ByteBuffer byteBuffer = ByteBuffer.wrap(
-                            queuedMessage.get(i).getBytes(Charset.forName("UTF-8")));
-                    DataChannel.Buffer buffer = new DataChannel.Buffer(byteBuffer, false);
-                    localDataChannel.send(buffer);
+        // |buffer| refers to native memory which is only valid during this call, so it is read
+        // here: binary messages are copied once into a direct buffer, text messages are decoded
+        // right from it.
+        if (buffer.binary) {
+            ByteBuffer data = ByteBuffer.allocateDirect(buffer.data.remaining());
+            data.put(buffer.data);
+            data.flip();
+            final ByteBuffer message = data.asReadOnlyBuffer();
+            callbackExecutor.execute(() -> observer.onDataChannelMessage(key, message));
+        } else {
+            final String message = Charset.forName("UTF-8").decode(buffer.data).toString();
+            callbackExecutor.execute(() -> observer.onDataChannelMessage(key, message));
+        }
+    }
+
+    private static final class QueuedMessage {
+        final DataChannelMessageSource source;
+        final ActionCallback<Void> callback;
+        final long queuedAtNs = System.nanoTime();
+        // Whether some buffers of |source| have been sent.
+        boolean started = false;
+
+        QueuedMessage(DataChannelMessageSource source, ActionCallback<Void> callback) {
+            this.source = source;
+            this.callback = callback;
+        }
+    }
+
+    // A message handed to its data channel, until it leaves the buffer of the data channel.
+    private static final class SentMessage {
+        // Number of bytes handed to the data channel up to the end of the message.
+        final long end;
+        final long queuedAtNs;
+
+        SentMessage(long end, long queuedAtNs) {
+            this.end = end;
+            this.queuedAtNs = queuedAtNs;
+        }
+    }
+
+    // Messages of a data channel, guarded by |dataChannelLock|. Also observes the data channel
+    // unless it is the default one, which PeerConnectionChannel observes.
+    private final class DataChannelQueue implements DataChannel.Observer {
+        // Number of recent latencies the percentiles are computed from.
+        private static final int LATENCY_SAMPLES = 256;
+        final String label;
+        final DataChannelConfiguration.Priority priority;
+        DataChannel dataChannel;
+        boolean writable = true;
+        private final ArrayDeque<QueuedMessage> messages = new ArrayDeque<>();
+        private long queuedBytes = 0;
+        private long maxQueuedBytes = 0;
+        private final ArrayDeque<SentMessage> sentMessages = new ArrayDeque<>();
+        // Number of bytes handed to the data channel.
+        private long sentBytes = 0;
+        // Ring of the recent latencies in nanoseconds, |latencyCount| being the total number.
+        private final long[] latencies = new long[LATENCY_SAMPLES];
+        private long latencyCount = 0;
+
+        DataChannelQueue(String label, DataChannelConfiguration.Priority priority) {
+            this.label = label;
+            this.priority = priority;
+        }
+
+        void add(DataChannelMessageSource source, ActionCallback<Void> callback) {
+            messages.add(new QueuedMessage(source, callback));
+            queuedBytes += source.remaining();
+            maxQueuedBytes = Math.max(maxQueuedBytes, queuedBytes);
+        }
+
+        // Removes all the messages, adding their callbacks to |callbacks|.
+        void clear(List<ActionCallback<Void>> callbacks) {
+            for (QueuedMessage message : messages) {
+                callbacks.add(message.callback);
+            }
+            messages.clear();
+            queuedBytes = 0;
+        }
+
+        // @return the message of |source| removed, null if it is not queued.
+        QueuedMessage remove(DataChannelMessageSource source) {
+            for (Iterator<QueuedMessage> iterator = messages.iterator(); iterator.hasNext(); ) {
+                QueuedMessage message = iterator.next();
+                if (message.source == source) {
+                    iterator.remove();
+                    queuedBytes -= source.remaining();
+                    DataChannel.Buffer buffer;
+                    if (message.started && (buffer = source.cancel()) != null) {
+                        send(buffer);
+                    }
+                    return message;
                 }
-                queuedMessage.clear();
             }
-        });
+            return null;
+        }
+
+        boolean isOpen() {
+            return dataChannel != null && dataChannel.state() == DataChannel.State.OPEN;
+        }
+
+        boolean send(DataChannel.Buffer buffer) {
+            int size = buffer.data.remaining();
+            if (!dataChannel.send(buffer)) {
+                return false;
+            }
+            sentBytes += size;
+            return true;
+        }
+
+        // Whether an open data channel of higher priority has messages waiting.
+        private boolean yields() {
+            for (DataChannelQueue queue : queues) {
+                if (queue.priority.compareTo(priority) <= 0) {
+                    return false;
+                }
+                if (!queue.messages.isEmpty() && queue.isOpen()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Hands messages to the data channel in order.
+        // @return whether |writable| has changed.
+        boolean drain() {
+            if (isOpen()) {
+                while (!messages.isEmpty()
+                        && dataChannel.bufferedAmount() < dataChannelHighWatermark && !yields()) {
+                    QueuedMessage message = messages.peek();
+                    long remaining = message.source.remaining();
+                    DataChannel.Buffer buffer = message.source.next();
+                    boolean sent = buffer != null && send(buffer);
+                    queuedBytes -= remaining - message.source.remaining();
+                    if (sent && message.source.remaining() > 0) {
+                        message.started = true;
+                        continue;
+                    }
+                    messages.poll();
+                    if (sent) {
+                        sentMessages.add(new SentMessage(sentBytes, message.queuedAtNs));
+                    } else {
+                        queuedBytes -= message.source.remaining();
+                        if (message.started && (buffer = message.source.cancel()) != null) {
+                            send(buffer);
+                        }
+                    }
+                    complete(message.callback,
+                            sent ? null : new OwtError("Failed to send the message."));
+                }
+                recordLatencies();
+            }
+            long pending = queuedBytes + (dataChannel == null ? 0 : dataChannel.bufferedAmount());
+            if (writable && pending >= dataChannelHighWatermark) {
+                writable = false;
+                return true;
+            }
+            if (!writable && pending <= dataChannelLowWatermark) {
+                writable = true;
+                return true;
+            }
+            return false;
+        }
+
+        // Records the latencies of the messages which have left the buffer of the data channel.
+        private void recordLatencies() {
+            long drained = sentBytes - dataChannel.bufferedAmount();
+            long now = System.nanoTime();
+            while (!sentMessages.isEmpty() && sentMessages.peek().end <= drained) {
+                latencies[(int) (latencyCount++ % LATENCY_SAMPLES)] =
+                        now - sentMessages.poll().queuedAtNs;
+            }
+        }
+
+        // @return |percentile| of the recent latencies in milliseconds, 0 if there is none.
+        private double latency(double[] sortedLatencies, double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)];
+        }
+
+        DataChannelQueueMetrics metrics() {
+            double[] sortedLatencies =
+                    new double[(int) Math.min(latencyCount, LATENCY_SAMPLES)];
+            for (int i = 0; i < sortedLatencies.length; i++) {
+                sortedLatencies[i] = latencies[i] / 1e6;
+            }
+            Arrays.sort(sortedLatencies);
+            return new DataChannelQueueMetrics(label, messages.size(), queuedBytes,
+                    maxQueuedBytes, dataChannel == null ? 0 : dataChannel.bufferedAmount(),
+                    writable, latency(sortedLatencies, 0.5), latency(sortedLatencies, 0.9),
+                    latency(sortedLatencies, 0.99));
+        }
+
+        @Override
+        public void onBufferedAmountChange(long previousAmount) {
+            if (disposed) {
+                return;
+            }
+            // Called upon every change, so the queues are only drained when the buffered amount
+            // has changed with messages waiting to be sent or to leave the buffer, or the channel
+            // not writable.
+            synchronized (dataChannelLock) {
+                if (messages.isEmpty() && sentMessages.isEmpty() && writable) {
+                    return;
+                }
+            }
+            callbackExecutor.execute(PeerConnectionChannel.this::flushDataChannelQueues);
+        }
+
+        @Override
+        public void onStateChange() {
+            if (disposed) {
+                return;
+            }
+            callbackExecutor.execute(PeerConnectionChannel.this::flushDataChannelQueues);
+        }
+
+        // Only called for the data channels other than the default one. Text messages are
+        // delivered as their UTF-8 bytes.
+        @Override
+        public void onMessage(DataChannel.Buffer buffer) {
+            if (disposed) {
+                return;
+            }
+            ByteBuffer data = ByteBuffer.allocateDirect(buffer.data.remaining());
+            data.put(buffer.data);
+            data.flip();
+            final ByteBuffer message = data.asReadOnlyBuffer();
+            callbackExecutor.execute(() -> observer.onDataChannelMessage(key, label, message));
+        }
     }
 
-    @Override
-    public void onMessage(final DataChannel.Buffer buffer) {
-        if (disposed) {
-            return;
+    /**
+     * Source of a message sent as a single buffer.
+     */
+    public static final class SingleBufferSource implements DataChannelMessageSource {
+        private DataChannel.Buffer buffer;
+
+        public SingleBufferSource(DataChannel.Buffer buffer) {
+            this.buffer = buffer;
         }
-        callbackExecutor.execute(() -> {
-            ByteBuffer data = buffer.data;
-            final byte[] bytes = new byte[data.capacity()];
-            data.get(bytes);
-            String message = new String(bytes);
-            observer.onDataChannelMessage(key, message);
-        });
+
+        @Override
+        public long remaining() {
+            return buffer == null ? 0 : buffer.data.remaining();
+        }
+
+        @Override
+        public DataChannel.Buffer next() {
+            DataChannel.Buffer result = buffer;
+            buffer = null;
+            return result;
+        }
+
+        @Override
+        public DataChannel.Buffer cancel() {
+            return null;
+        }
+    }
+
+    /**
+     * Produces the buffers of a data channel message as the data channel drains. Each buffer is
+     * sent before next() is called again, and DataChannel.send() copies it, so a source may reuse
+     * one buffer for all of them.
+     */
+    public interface DataChannelMessageSource {
+        /**
+         * @return number of bytes not produced yet, 0 once the last buffer has been produced.
+         */
+        long remaining();
+
+        /**
+         * @return next buffer of the message, null if the message cannot be sent.
+         */
+        DataChannel.Buffer next();
+
+        /**
+         * Called if the message is dropped after some of its buffers have been sent.
+         *
+         * @return buffer telling the remote endpoint to drop what it has received, null for none.
+         */
+        DataChannel.Buffer cancel();
     }
 
     public interface PeerConnectionChannelObserver {
@@ -568,6 +1044,11 @@ public abstract class PeerConnectionChannel
 
         void onIceCandidatesRemoved(String key, IceCandidate[] candidates);
 
+        /**
+         * Called after the last onIceCandidate of a gathering session.
+         */
+        void onIceGatheringComplete(String key);
+
         void onLocalDescription(String key, SessionDescription localSdp);
 
         /**
@@ -582,6 +1063,23 @@ public abstract class PeerConnectionChannel
 
         void onDataChannelMessage(String key, String message);
 
+        /**
+         * Called with a message of a data channel created with a DataChannelConfiguration,
+         * |message| is a read-only direct buffer.
+         */
+        void onDataChannelMessage(String key, String label, ByteBuffer message);
+
+        /**
+         * Called with a binary message, |message| is a read-only direct buffer.
+         */
+        void onDataChannelMessage(String key, ByteBuffer message);
+
+        /**
+         * Called when the data waiting to be sent on the data channel reaches the high watermark
+         * (|writable| is false), then drops to the low watermark (|writable| is true).
+         */
+        void onDataChannelWritable(String key, boolean writable);
+
         void onRenegotiationRequest(String key);
     }
 
@@ -0,0 +1,536 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+
+import org.webrtc.SessionDescription;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+///@cond
+/**
+ * Parsed form of a SessionDescription.
+ *
+ * The description is split once into session level lines and media sections, all SDP munging
+ * works on this model, and it is serialized once by toSessionDescription(). A model that has not
+ * been modified serializes to the original description unchanged. Otherwise, lines are always
+ * terminated with CRLF and empty lines at the end of the description are dropped.
+ */
+public final class Sdp {
+    private static final String CRLF = "\r\n";
+    static final int PAYLOAD_TYPE_COUNT = 128;
+
+    public final SessionDescription.Type type;
+    private final String description;
+    // Lines before the first m-line.
+    final List<String> sessionLines = new ArrayList<>();
+    final List<MediaSection> mediaSections = new ArrayList<>();
+    private boolean modified = false;
+
+    private Sdp(SessionDescription.Type type, String description) {
+        this.type = type;
+        this.description = description;
+        parse();
+    }
+
+    public static Sdp parse(SessionDescription sessionDescription) {
+        RCHECK(sessionDescription);
+        return new Sdp(sessionDescription.type, sessionDescription.description);
+    }
+
+    private void parse() {
+        int length = description.length();
+        // Number of lines up to the last non-empty one, the empty lines after it are dropped.
+        int contentLineCount = 0;
+        List<String> lines = new ArrayList<>();
+        int lineStart = 0;
+        do {
+            int newline = description.indexOf('\n', lineStart);
+            int lineEnd = newline == -1 ? length : newline;
+            int nextLine = newline == -1 ? length + 1 : newline + 1;
+            if (newline != -1 && lineEnd > lineStart && description.charAt(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            lines.add(description.substring(lineStart, lineEnd));
+            if (lineEnd > lineStart || nextLine > length) {
+                contentLineCount = lines.size();
+            }
+            lineStart = nextLine;
+        } while (lineStart < length);
+
+        List<String> current = sessionLines;
+        for (int i = 0; i < contentLineCount; i++) {
+            String line = lines.get(i);
+            if (line.startsWith("m=")) {
+                MediaSection section = new MediaSection(this, line);
+                mediaSections.add(section);
+                current = section.lines;
+            } else {
+                current.add(line);
+            }
+        }
+    }
+
+    /**
+     * Session level lines, i.e. the lines before the first m-line.
+     */
+    public List<String> sessionLines() {
+        return Collections.unmodifiableList(sessionLines);
+    }
+
+    public List<MediaSection> mediaSections() {
+        return Collections.unmodifiableList(mediaSections);
+    }
+
+    /**
+     * Remove every session level or media level line equal to |line|.
+     *
+     * @return true if any line has been removed.
+     */
+    public boolean removeLine(String line) {
+        boolean removed = sessionLines.removeAll(Collections.singleton(line));
+        for (MediaSection section : mediaSections) {
+            removed |= section.removeLine(line);
+        }
+        if (removed) {
+            modified = true;
+        }
+        return removed;
+    }
+
+    public SessionDescription toSessionDescription() {
+        return new SessionDescription(type, toString());
+    }
+
+    @Override
+    public String toString() {
+        if (!modified) {
+            return description;
+        }
+        StringBuilder builder = new StringBuilder(description.length() + 64);
+        for (String line : sessionLines) {
+            builder.append(line).append(CRLF);
+        }
+        for (MediaSection section : mediaSections) {
+            builder.append(section.mLine).append(CRLF);
+            for (String line : section.lines) {
+                builder.append(line).append(CRLF);
+            }
+        }
+        return builder.toString();
+    }
+
+    // Returns the payload type in [start, end) of |line|, or -1 if it is not a decimal number in
+    // the range of RTP payload types.
+    static int parsePayloadType(String line, int start, int end) {
+        int length = end - start;
+        if (length <= 0 || length > 3 || (length > 1 && line.charAt(start) == '0')) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value < PAYLOAD_TYPE_COUNT ? value : -1;
+    }
+
+    // Returns the payload type of an a=rtpmap, a=fmtp or a=rtcp-fb line, or -1.
+    static int attributePayloadType(String line) {
+        int colon = line.indexOf(':');
+        int space = line.indexOf(' ');
+        if (colon == -1 || (space != -1 && space < colon)) {
+            return -1;
+        }
+        return parsePayloadType(line, colon + 1, space == -1 ? line.length() : space);
+    }
+
+    /**
+     * A media section: its m-line and the lines following it up to the next m-line.
+     *
+     * a=rtpmap, a=fmtp and a=rtcp-fb lines are indexed by payload type. The index is built when
+     * first used and rebuilt after the lines have been changed.
+     */
+    public static final class MediaSection {
+        private final Sdp sdp;
+        private final String kind;
+        String mLine;
+        final List<String> lines = new ArrayList<>();
+        private boolean indexed = false;
+        private final int[] rtpmapLines = new int[PAYLOAD_TYPE_COUNT];
+        private final int[] fmtpLines = new int[PAYLOAD_TYPE_COUNT];
+        private final int[][] rtcpFbLines = new int[PAYLOAD_TYPE_COUNT][];
+
+        MediaSection(Sdp sdp, String mLine) {
+            this.sdp = sdp;
+            this.mLine = mLine;
+            int space = mLine.indexOf(' ');
+            kind = mLine.substring(2, space == -1 ? mLine.length() : space);
+        }
+
+        /**
+         * Media type of this section, e.g. "audio", "video" or "application".
+         */
+        public String kind() {
+            return kind;
+        }
+
+        public String mLine() {
+            return mLine;
+        }
+
+        public void setMLine(String mLine) {
+            RCHECK(mLine.startsWith("m=" + kind));
+            this.mLine = mLine;
+            sdp.modified = true;
+        }
+
+        /**
+         * Lines of this section following the m-line.
+         */
+        public List<String> lines() {
+            return Collections.unmodifiableList(lines);
+        }
+
+        public void addLine(String line) {
+            lines.add(line);
+            onLinesChanged();
+        }
+
+        public void addLine(int index, String line) {
+            lines.add(index, line);
+            onLinesChanged();
+        }
+
+        public void setLine(int index, String line) {
+            lines.set(index, line);
+            onLinesChanged();
+        }
+
+        public void removeLine(int index) {
+            lines.remove(index);
+            onLinesChanged();
+        }
+
+        boolean removeLine(String line) {
+            if (lines.removeAll(Collections.singleton(line))) {
+                onLinesChanged();
+                return true;
+            }
+            return false;
+        }
+
+        void onLinesChanged() {
+            indexed = false;
+            sdp.modified = true;
+        }
+
+        /**
+         * Value of the first a=|name| attribute of this section.
+         *
+         * @return the value after the colon, an empty string for a flag attribute, or null if
+         * the attribute is not present.
+         */
+        public String attribute(String name) {
+            String prefix = "a=" + name;
+            for (String line : lines) {
+                if (line.startsWith(prefix)) {
+                    if (line.length() == prefix.length()) {
+                        return "";
+                    }
+                    if (line.charAt(prefix.length()) == ':') {
+                        return line.substring(prefix.length() + 1);
+                    }
+                }
+            }
+            return null;
+        }
+
+        public String mid() {
+            return attribute("mid");
+        }
+
+        /**
+         * Id of the track sent in this section, from its a=msid line.
+         *
+         * @return null if this section has no a=msid line with a track id.
+         */
+        public String trackId() {
+            String msid = attribute("msid");
+            if (msid == null) {
+                return null;
+            }
+            int space = msid.indexOf(' ');
+            return space == -1 ? null : msid.substring(space + 1);
+        }
+
+        /**
+         * Payload types listed in the m-line, in order.
+         */
+        public List<Integer> payloadTypes() {
+            List<Integer> payloadTypes = new ArrayList<>();
+            String[] fields = mLine.split(" ");
+            for (int i = 3; i < fields.length; i++) {
+                int payloadType = parsePayloadType(fields[i], 0, fields[i].length());
+                if (payloadType != -1) {
+                    payloadTypes.add(payloadType);
+                }
+            }
+            return payloadTypes;
+        }
+
+        /**
+         * Replace the payload types listed in the m-line.
+         */
+        public void setPayloadTypes(List<Integer> payloadTypes) {
+            StringBuilder builder = new StringBuilder(mLinePrefix());
+            for (int payloadType : payloadTypes) {
+                builder.append(' ').append(payloadType);
+            }
+            mLine = builder.toString();
+            sdp.modified = true;
+        }
+
+        // The first three fields of the m-line: media, port and proto.
+        String mLinePrefix() {
+            int end = 0;
+            for (int spaces = 0; end < mLine.length(); end++) {
+                if (mLine.charAt(end) == ' ' && ++spaces == 3) {
+                    break;
+                }
+            }
+            return mLine.substring(0, end);
+        }
+
+        /**
+         * Encoding of |payloadType| from its a=rtpmap line, e.g. "VP8/90000".
+         *
+         * @return null if there is no a=rtpmap line for |payloadType|.
+         */
+        public String rtpmap(int payloadType) {
+            int index = rtpmapLine(payloadType);
+            if (index == -1) {
+                return null;
+            }
+            String line = lines.get(index);
+            int space = line.indexOf(' ');
+            return space == -1 ? "" : line.substring(space + 1);
+        }
+
+        /**
+         * Codec name of |payloadType|, e.g. "VP8".
+         *
+         * @return null if there is no a=rtpmap line for |payloadType|.
+         */
+        public String codecName(int payloadType) {
+            String rtpmap = rtpmap(payloadType);
+            if (rtpmap == null) {
+                return null;
+            }
+            int slash = rtpmap.indexOf('/');
+            return slash == -1 ? rtpmap : rtpmap.substring(0, slash);
+        }
+
+        /**
+         * Payload types whose codec name equals |codecName|, ignoring case.
+         */
+        public List<Integer> payloadTypesOf(String codecName) {
+            ensureIndex();
+            List<Integer> payloadTypes = new ArrayList<>();
+            for (int payloadType = 0; payloadType < PAYLOAD_TYPE_COUNT; payloadType++) {
+                if (rtpmapLines[payloadType] != -1
+                        && codecName.equalsIgnoreCase(codecName(payloadType))) {
+                    payloadTypes.add(payloadType);
+                }
+            }
+            return payloadTypes;
+        }
+
+        /**
+         * Format parameters of |payloadType| from its a=fmtp line.
+         *
+         * @return null if there is no a=fmtp line for |payloadType|.
+         */
+        public String fmtp(int payloadType) {
+            ensureIndex();
+            int index = fmtpLines[payloadType];
+            if (index == -1) {
+                return null;
+            }
+            String line = lines.get(index);
+            int space = line.indexOf(' ');
+            return space == -1 ? "" : line.substring(space + 1);
+        }
+
+        /**
+         * Set the format parameters of |payloadType|. A new a=fmtp line is added after the
+         * a=rtpmap line of |payloadType| if there is none yet.
+         */
+        public void setFmtp(int payloadType, String parameters) {
+            ensureIndex();
+            String line = "a=fmtp:" + payloadType + " " + parameters;
+            if (fmtpLines[payloadType] != -1) {
+                setLine(fmtpLines[payloadType], line);
+                return;
+            }
+            int rtpmap = rtpmapLine(payloadType);
+            RCHECK(rtpmap != -1);
+            int index = rtpmap + 1;
+            if (rtcpFbLines[payloadType] != null) {
+                int[] feedback = rtcpFbLines[payloadType];
+                index = Math.max(index, feedback[feedback.length - 1] + 1);
+            }
+            addLine(index, line);
+        }
+
+        /**
+         * Set a single format parameter of |payloadType|, keeping the other ones.
+         */
+        public void setFmtpParameter(int payloadType, String key, String value) {
+            String parameters = fmtp(payloadType);
+            StringBuilder builder = new StringBuilder();
+            boolean replaced = false;
+            if (parameters != null && !parameters.isEmpty()) {
+                for (String parameter : parameters.split(";")) {
+                    int equals = parameter.indexOf('=');
+                    String name = (equals == -1 ? parameter : parameter.substring(0, equals));
+                    if (builder.length() > 0) {
+                        builder.append(';');
+                    }
+                    if (name.trim().equals(key)) {
+                        builder.append(key).append('=').append(value);
+                        replaced = true;
+                    } else {
+                        builder.append(parameter);
+                    }
+                }
+            }
+            if (!replaced) {
+                if (builder.length() > 0) {
+                    builder.append(';');
+                }
+                builder.append(key).append('=').append(value);
+            }
+            setFmtp(payloadType, builder.toString());
+        }
+
+        /**
+         * Feedback types of |payloadType| from its a=rtcp-fb lines, e.g. "nack pli".
+         */
+        public List<String> rtcpFeedback(int payloadType) {
+            ensureIndex();
+            List<String> feedback = new ArrayList<>();
+            if (rtcpFbLines[payloadType] != null) {
+                for (int index : rtcpFbLines[payloadType]) {
+                    String line = lines.get(index);
+                    int space = line.indexOf(' ');
+                    feedback.add(space == -1 ? "" : line.substring(space + 1));
+                }
+            }
+            return feedback;
+        }
+
+        /**
+         * Remove |payloadType| from the m-line together with its a=rtpmap, a=fmtp and a=rtcp-fb
+         * lines.
+         */
+        public void removePayloadType(int payloadType) {
+            List<Integer> payloadTypes = payloadTypes();
+            if (payloadTypes.remove(Integer.valueOf(payloadType))) {
+                setPayloadTypes(payloadTypes);
+            }
+            boolean removed = false;
+            for (int i = lines.size() - 1; i >= 0; i--) {
+                String line = lines.get(i);
+                if ((line.startsWith("a=rtpmap:") || line.startsWith("a=fmtp:")
+                        || line.startsWith("a=rtcp-fb:"))
+                        && attributePayloadType(line) == payloadType) {
+                    lines.remove(i);
+                    removed = true;
+                }
+            }
+            if (removed) {
+                onLinesChanged();
+            }
+        }
+
+        /**
+         * Set a b= line of this section, replacing the existing one with the same |modifier|.
+         *
+         * @param modifier bandwidth modifier, e.g. "AS" or "TIAS".
+         * @param value bandwidth value, in kbps for AS and bps for TIAS.
+         */
+        public void setBandwidth(String modifier, long value) {
+            String prefix = "b=" + modifier + ":";
+            String line = prefix + value;
+            // b= lines go after i= and c= lines, and before k= and a= lines.
+            int index = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                String current = lines.get(i);
+                if (current.startsWith(prefix)) {
+                    setLine(i, line);
+                    return;
+                }
+                if (current.startsWith("i=") || current.startsWith("c=")
+                        || current.startsWith("b=")) {
+                    index = i + 1;
+                }
+            }
+            addLine(index, line);
+        }
+
+        private int rtpmapLine(int payloadType) {
+            ensureIndex();
+            return rtpmapLines[payloadType];
+        }
+
+        private void ensureIndex() {
+            if (indexed) {
+                return;
+            }
+            for (int i = 0; i < PAYLOAD_TYPE_COUNT; i++) {
+                rtpmapLines[i] = -1;
+                fmtpLines[i] = -1;
+                rtcpFbLines[i] = null;
+            }
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (!line.startsWith("a=")) {
+                    continue;
+                }
+                if (line.startsWith("a=rtpmap:")) {
+                    int payloadType = attributePayloadType(line);
+                    if (payloadType != -1 && rtpmapLines[payloadType] == -1) {
+                        rtpmapLines[payloadType] = i;
+                    }
+                } else if (line.startsWith("a=fmtp:")) {
+                    int payloadType = attributePayloadType(line);
+                    if (payloadType != -1 && fmtpLines[payloadType] == -1) {
+                        fmtpLines[payloadType] = i;
+                    }
+                } else if (line.startsWith("a=rtcp-fb:")) {
+                    int payloadType = attributePayloadType(line);
+                    if (payloadType != -1) {
+                        int[] feedback = rtcpFbLines[payloadType];
+                        int[] grown = new int[feedback == null ? 1 : feedback.length + 1];
+                        if (feedback != null) {
+                            System.arraycopy(feedback, 0, grown, 0, feedback.length);
+                        }
+                        grown[grown.length - 1] = i;
+                        rtcpFbLines[payloadType] = grown;
+                    }
+                }
+            }
+            indexed = true;
+        }
+    }
+}
+///@endcond
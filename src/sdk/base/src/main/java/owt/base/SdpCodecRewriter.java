@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.Sdp.PAYLOAD_TYPE_COUNT;
+import static owt.base.Sdp.parsePayloadType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import owt.base.MediaCodecs.AudioCodec;
+import owt.base.MediaCodecs.VideoCodec;
+
+///@cond
+/**
+ * Rewrites the codec preference of a media section in a single forward pass over its lines.
+ *
+ * Payload types are tracked in tables indexed by their numeric value, so no line gets split or
+ * copied. a=rtpmap, a=rtcp-fb and a=fmtp lines of the codecs not preferred are removed from the
+ * section, and the payload list of its m-line is reordered. Sections are rewritten independently,
+ * so every audio or video section of a description gets its own codec preference.
+ */
+public final class SdpCodecRewriter {
+    private static final String RTPMAP = "a=rtpmap:";
+    private static final String RTCP_FB = "a=rtcp-fb:";
+    private static final String FMTP = "a=fmtp:";
+    private static final String RTX = "rtx";
+    private static final String APT = "apt=";
+    private static final String[] VIDEO_CODEC_NAMES = videoCodecNames();
+    private static final String[] AUDIO_CODEC_NAMES = audioCodecNames();
+
+    private SdpCodecRewriter() {
+    }
+
+    /**
+     * Reorder the codecs of an audio or video |section|. Sections of other kinds are left
+     * untouched.
+     *
+     * @param section media section to be rewritten.
+     * @param preferredCodecs codec names in preferred order, as they appear in a=rtpmap lines.
+     */
+    public static void preferCodecs(Sdp.MediaSection section, Collection<String> preferredCodecs) {
+        boolean video = section.kind().equals("video");
+        if (!video && !section.kind().equals("audio")) {
+            return;
+        }
+        new Pass(preferredCodecs, video).run(section);
+    }
+
+    private static final class Pass {
+        private final List<String> preferred;
+        private final int rtxSlot;
+        private final String[] knownCodecs;
+        private final boolean[] preferredTypes = new boolean[PAYLOAD_TYPE_COUNT];
+        private final boolean[] misMatchedTypes = new boolean[PAYLOAD_TYPE_COUNT];
+        // Preferred payload types in the order they are found, with the slot of their codec.
+        private final List<String> entryTypes = new ArrayList<>();
+        private int[] entrySlots = new int[16];
+
+        Pass(Collection<String> preferredCodecs, boolean video) {
+            preferred = new ArrayList<>(preferredCodecs.size());
+            for (String codec : preferredCodecs) {
+                if (!preferred.contains(codec)) {
+                    preferred.add(codec);
+                }
+            }
+            int rtx = preferred.indexOf(RTX);
+            rtxSlot = rtx == -1 ? preferred.size() : rtx;
+            knownCodecs = video ? VIDEO_CODEC_NAMES : AUDIO_CODEC_NAMES;
+        }
+
+        void run(Sdp.MediaSection section) {
+            List<String> lines = section.lines;
+            int kept = 0;
+            int size = lines.size();
+            for (int i = 0; i < size; i++) {
+                String line = lines.get(i);
+                if (keep(line, i + 1 < size ? lines.get(i + 1) : null)) {
+                    lines.set(kept++, line);
+                }
+            }
+            if (kept != size) {
+                lines.subList(kept, size).clear();
+                section.onLinesChanged();
+            }
+            section.setMLine(changeMLine(section.mLinePrefix()));
+        }
+
+        private boolean keep(String line, String nextLine) {
+            if (line.startsWith(RTPMAP)) {
+                int length = line.length();
+                int tokenEnd = indexOf(line, ' ', 0, length);
+                int ptStart = RTPMAP.length();
+                int ptEnd = indexOf(line, ':', ptStart, tokenEnd);
+                int payloadType = parsePayloadType(line, ptStart, ptEnd);
+                int nameStart = Math.min(tokenEnd + 1, length);
+                int nameEnd = indexOf(line, '/', nameStart, indexOf(line, ' ', nameStart, length));
+
+                int slot = indexOfCodec(line, nameStart, nameEnd);
+                boolean isRtx = regionEquals(line, nameStart, nameEnd, RTX);
+                if (slot == -1 && isRtx && nextLine != null && isPreferredApt(nextLine)) {
+                    slot = rtxSlot;
+                }
+                if (slot != -1) {
+                    addEntry(slot, line.substring(ptStart, ptEnd));
+                    if (payloadType != -1) {
+                        preferredTypes[payloadType] = true;
+                    }
+                    return true;
+                }
+                if (!isRtx && !isKnownCodec(line, nameStart, nameEnd)) {
+                    if (payloadType != -1) {
+                        misMatchedTypes[payloadType] = true;
+                    }
+                    return true;
+                }
+                return false;
+            }
+            if (line.startsWith(RTCP_FB) || line.startsWith(FMTP)) {
+                int tokenEnd = indexOf(line, ' ', 0, line.length());
+                int ptStart = indexOf(line, ':', 0, tokenEnd) + 1;
+                int payloadType = parsePayloadType(line, ptStart,
+                        indexOf(line, ':', ptStart, tokenEnd));
+                return payloadType != -1
+                        && (misMatchedTypes[payloadType] || preferredTypes[payloadType]);
+            }
+            return true;
+        }
+
+        private void addEntry(int slot, String payloadType) {
+            int count = entryTypes.size();
+            if (count == entrySlots.length) {
+                int[] grown = new int[count * 2];
+                System.arraycopy(entrySlots, 0, grown, 0, count);
+                entrySlots = grown;
+            }
+            entrySlots[count] = slot;
+            entryTypes.add(payloadType);
+        }
+
+        private String changeMLine(String header) {
+            StringBuilder mLine = new StringBuilder(header);
+            for (int slot = 0; slot < preferred.size(); slot++) {
+                appendPayloadTypes(mLine, slot);
+            }
+            appendPayloadTypes(mLine, rtxSlot);
+            return mLine.toString();
+        }
+
+        private void appendPayloadTypes(StringBuilder mLine, int slot) {
+            for (int i = 0; i < entryTypes.size(); i++) {
+                if (entrySlots[i] == slot) {
+                    mLine.append(' ').append(entryTypes.get(i));
+                }
+            }
+        }
+
+        private boolean isPreferredApt(String line) {
+            int aptStart = line.indexOf(APT);
+            if (aptStart == -1) {
+                return false;
+            }
+            aptStart += APT.length();
+            int aptEnd = line.indexOf(APT, aptStart);
+            int payloadType = parsePayloadType(line, aptStart,
+                    aptEnd == -1 ? line.length() : aptEnd);
+            return payloadType != -1 && preferredTypes[payloadType];
+        }
+
+        private int indexOfCodec(String line, int start, int end) {
+            for (int i = 0; i < preferred.size(); i++) {
+                if (regionEquals(line, start, end, preferred.get(i))) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        // Codec names are compared case insensitively, the same as VideoCodec.get/AudioCodec.get.
+        private boolean isKnownCodec(String line, int start, int end) {
+            for (String codec : knownCodecs) {
+                if (codec.length() == end - start
+                        && line.regionMatches(true, start, codec, 0, codec.length())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static boolean regionEquals(String line, int start, int end, String value) {
+        return end - start == value.length() && line.startsWith(value, start);
+    }
+
+    // Returns the index of |c| in [start, end) of |line|, or |end| if not found.
+    private static int indexOf(String line, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (line.charAt(i) == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static String[] videoCodecNames() {
+        List<String> names = new ArrayList<>();
+        for (VideoCodec codec : VideoCodec.values()) {
+            if (codec != VideoCodec.INVALID) {
+                names.add(codec.name);
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+
+    private static String[] audioCodecNames() {
+        List<String> names = new ArrayList<>();
+        for (AudioCodec codec : AudioCodec.values()) {
+            if (codec != AudioCodec.INVALID) {
+                names.add(codec.name);
+            }
+        }
+        return names.toArray(new String[0]);
+    }
+}
+///@endcond
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import owt.base.MediaCodecs.AudioCodec;
+import owt.base.MediaCodecs.VideoCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interface for modifying a local session description before it is set to the PeerConnection and
+ * sent to the remote side. SdpTransformers are added to the client configuration and run in the
+ * order they are added, on the thread of the PeerConnection they belong to.
+ */
+public interface SdpTransformer {
+
+    /**
+     * Modify |sdp| in place.
+     *
+     * @param sdp parsed local session description.
+     * @param context information about the PeerConnection |sdp| has been created for.
+     */
+    void transform(Sdp sdp, Context context);
+
+    /**
+     * Information about the PeerConnection a session description has been created for.
+     */
+    final class Context {
+        /**
+         * Id of the PeerConnection, i.e. the session id in a conference or the remote user id in
+         * a p2p chat.
+         */
+        public final String key;
+        /**
+         * Video codecs in preferred order, null if no preference has been set.
+         */
+        public final List<VideoCodec> videoCodecs;
+        /**
+         * Audio codecs in preferred order, null if no preference has been set.
+         */
+        public final List<AudioCodec> audioCodecs;
+        /**
+         * Mids of the media sections whose codec preference has already been set on their
+         * RtpTransceivers, they do not need SDP rewriting.
+         */
+        public final Set<String> codecPreferredMids;
+        /**
+         * Codec names in preferred order for media sections, keyed by mid or track id. They take
+         * precedence over videoCodecs and audioCodecs.
+         */
+        public final Map<String, List<String>> sectionCodecs;
+
+        Context(String key, List<VideoCodec> videoCodecs, List<AudioCodec> audioCodecs,
+                Set<String> codecPreferredMids, Map<String, List<String>> sectionCodecs) {
+            this.key = key;
+            this.videoCodecs = videoCodecs;
+            this.audioCodecs = audioCodecs;
+            this.codecPreferredMids = codecPreferredMids;
+            this.sectionCodecs = sectionCodecs;
+        }
+
+        /**
+         * Get the codec names preferred for |section|: the ones set for its mid, or else for its
+         * track id in sectionCodecs, or else videoCodecs or audioCodecs as per its kind.
+         *
+         * @return null if no preference has been set for |section|.
+         */
+        public List<String> preferredCodecs(Sdp.MediaSection section) {
+            String mid = section.mid();
+            if (mid != null && sectionCodecs.containsKey(mid)) {
+                return sectionCodecs.get(mid);
+            }
+            String trackId = section.trackId();
+            if (trackId != null && sectionCodecs.containsKey(trackId)) {
+                return sectionCodecs.get(trackId);
+            }
+            List<String> names = null;
+            if (section.kind().equals("video") && videoCodecs != null) {
+                names = new ArrayList<>();
+                for (VideoCodec codec : videoCodecs) {
+                    names.add(codec.name);
+                }
+            } else if (section.kind().equals("audio") && audioCodecs != null) {
+                names = new ArrayList<>();
+                for (AudioCodec codec : audioCodecs) {
+                    names.add(codec.name);
+                }
+            }
+            return names;
+        }
+    }
+}
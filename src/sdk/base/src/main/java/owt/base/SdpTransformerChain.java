@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ordered SdpTransformers of a client configuration, with timing counters for each of them.
+ * The counters are shared by all PeerConnections created with the same configuration.
+ */
+public final class SdpTransformerChain {
+    private final List<Stage> stages;
+
+    ///@cond
+    public SdpTransformerChain(List<SdpTransformer> transformers) {
+        RCHECK(transformers);
+        List<Stage> stages = new ArrayList<>(transformers.size());
+        for (SdpTransformer transformer : transformers) {
+            RCHECK(transformer);
+            stages.add(new Stage(transformer));
+        }
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    void transform(Sdp sdp, SdpTransformer.Context context) {
+        for (Stage stage : stages) {
+            long start = System.nanoTime();
+            stage.transformer.transform(sdp, context);
+            stage.record(System.nanoTime() - start);
+        }
+    }
+    ///@endcond
+
+    /**
+     * Get the timing counters of the SdpTransformers, in the order they run.
+     *
+     * @return List of SdpTransformerChain.Stats.
+     */
+    public List<Stats> getStats() {
+        List<Stats> stats = new ArrayList<>(stages.size());
+        for (Stage stage : stages) {
+            stats.add(new Stats(stage.transformer, stage.count.get(), stage.totalNanos.get(),
+                    stage.maxNanos.get()));
+        }
+        return stats;
+    }
+
+    /**
+     * Timing counters of a SdpTransformer.
+     */
+    public static final class Stats {
+        public final SdpTransformer transformer;
+        /**
+         * Number of session descriptions transformed.
+         */
+        public final long count;
+        /**
+         * Total time spent in transforming, in nanoseconds.
+         */
+        public final long totalNanos;
+        /**
+         * Longest time spent in transforming a single session description, in nanoseconds.
+         */
+        public final long maxNanos;
+
+        Stats(SdpTransformer transformer, long count, long totalNanos, long maxNanos) {
+            this.transformer = transformer;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return transformer + ": count=" + count + ", totalNanos=" + totalNanos
+                    + ", maxNanos=" + maxNanos;
+        }
+    }
+
+    private static final class Stage {
+        final SdpTransformer transformer;
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        Stage(SdpTransformer transformer) {
+            this.transformer = transformer;
+        }
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max;
+            do {
+                max = maxNanos.get();
+            } while (nanos > max && !maxNanos.compareAndSet(max, nanos));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Built-in SdpTransformers.
+ */
+public final class SdpTransformers {
+
+    private SdpTransformers() {
+    }
+
+    /**
+     * Get a SdpTransformer that reorders the codecs of each audio and video section as
+     * SdpTransformer.Context.preferredCodecs(), and removes the codecs not in them. Sections in
+     * SdpTransformer.Context.codecPreferredMids are left untouched. It is added to every client
+     * configuration by default.
+     *
+     * @return SdpTransformer
+     */
+    public static SdpTransformer codecPreference() {
+        return CodecPreference.INSTANCE;
+    }
+
+    /**
+     * Get a SdpTransformer that removes the "a=ice-options:google-ice" lines. It is added to
+     * ConferenceClientConfiguration by default.
+     *
+     * @return SdpTransformer
+     */
+    public static SdpTransformer removeGoogleIceOptions() {
+        return removeLine("a=ice-options:google-ice");
+    }
+
+    /**
+     * Get a SdpTransformer that removes every line equal to |line|.
+     *
+     * @param line the line to be removed, without line terminator.
+     * @return SdpTransformer
+     */
+    public static SdpTransformer removeLine(final String line) {
+        RCHECK(line);
+        return new RemoveLine(line);
+    }
+
+    private static final class CodecPreference implements SdpTransformer {
+        static final CodecPreference INSTANCE = new CodecPreference();
+
+        @Override
+        public void transform(Sdp sdp, Context context) {
+            for (Sdp.MediaSection section : sdp.mediaSections()) {
+                boolean video = section.kind().equals("video");
+                if ((!video && !section.kind().equals("audio"))
+                        || context.codecPreferredMids.contains(section.mid())) {
+                    continue;
+                }
+                List<String> codecs = context.preferredCodecs(section);
+                if (codecs == null) {
+                    continue;
+                }
+                LinkedHashSet<String> preferredCodecs = new LinkedHashSet<>(codecs);
+                if (video) {
+                    preferredCodecs.add("red");
+                    preferredCodecs.add("ulpfec");
+                } else {
+                    preferredCodecs.add("CN");
+                    preferredCodecs.add("telephone-event");
+                }
+                SdpCodecRewriter.preferCodecs(section, preferredCodecs);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "CodecPreference";
+        }
+    }
+
+    private static final class RemoveLine implements SdpTransformer {
+        private final String line;
+
+        RemoveLine(String line) {
+            this.line = line;
+        }
+
+        @Override
+        public void transform(Sdp sdp, Context context) {
+            sdp.removeLine(line);
+        }
+
+        @Override
+        public String toString() {
+            return "RemoveLine(" + line + ")";
+        }
+    }
+}
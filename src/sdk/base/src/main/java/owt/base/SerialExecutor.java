@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+import static owt.base.Const.LOG_TAG;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+///@cond
+/**
+ * Executor running its tasks one at a time, in the order they are submitted, on a backing
+ * executor that may be shared by many SerialExecutors. It replaces a dedicated single thread
+ * executor without the cost of a thread.
+ *
+ * shutdown() lets the tasks already submitted run, tasks submitted after it are dropped. A
+ * RuntimeException thrown by a task is passed to the default uncaught exception handler, which
+ * ends the process on Android as it would on a dedicated thread, and the next tasks still run
+ * without taking a thread of the backing executor down.
+ */
+public final class SerialExecutor implements Executor {
+    private final Executor executor;
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private final Runnable drain = this::drain;
+    // Whether |drain| has been submitted to |executor| and has not finished yet.
+    private boolean running = false;
+    private boolean shutdown = false;
+
+    SerialExecutor(Executor executor) {
+        RCHECK(executor);
+        this.executor = executor;
+        WorkerPool.serialExecutors.incrementAndGet();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        RCHECK(task);
+        synchronized (tasks) {
+            if (shutdown) {
+                Log.d(LOG_TAG, "Task dropped by a SerialExecutor that has been shut down.");
+                return;
+            }
+            tasks.add(task);
+            WorkerPool.pendingTasks.incrementAndGet();
+            if (running) {
+                return;
+            }
+            running = true;
+        }
+        executor.execute(drain);
+    }
+
+    /**
+     * Stop accepting new tasks. Tasks already submitted still run.
+     */
+    public void shutdown() {
+        synchronized (tasks) {
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+        }
+        WorkerPool.serialExecutors.decrementAndGet();
+    }
+
+    public boolean isShutdown() {
+        synchronized (tasks) {
+            return shutdown;
+        }
+    }
+
+    /**
+     * Number of tasks submitted and not started yet.
+     */
+    public int pendingTasks() {
+        synchronized (tasks) {
+            return tasks.size();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+            synchronized (tasks) {
+                task = tasks.poll();
+                if (task == null) {
+                    running = false;
+                    return;
+                }
+            }
+            WorkerPool.pendingTasks.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                onTaskThrew(e);
+                return;
+            }
+        }
+    }
+
+    // The remaining tasks run on a new |drain|, then |e| is reported on the current thread
+    // rather than thrown onto the backing executor.
+    private void onTaskThrew(RuntimeException e) {
+        boolean remaining;
+        synchronized (tasks) {
+            remaining = !tasks.isEmpty();
+            running = remaining;
+        }
+        if (remaining) {
+            executor.execute(drain);
+        }
+        Thread.UncaughtExceptionHandler handler = Thread.getDefaultUncaughtExceptionHandler();
+        if (handler == null) {
+            Log.e(LOG_TAG, "Task of a SerialExecutor threw.", e);
+            return;
+        }
+        handler.uncaughtException(Thread.currentThread(), e);
+    }
+}
+///@endcond
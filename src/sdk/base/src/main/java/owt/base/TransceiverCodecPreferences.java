@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.Const.LOG_TAG;
+
+import android.util.Log;
+
+import org.webrtc.MediaStreamTrack;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.RtpTransceiver;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sets codec preference on RtpTransceivers through RtpTransceiver.setCodecPreferences, so that
+ * no SDP rewriting is needed for them.
+ *
+ * The capabilities API is not present in every libwebrtc build this SDK links against, so it is
+ * looked up by reflection once. When it is missing or fails, callers fall back to rewriting the
+ * SDP with SdpTransformers.codecPreference().
+ */
+final class TransceiverCodecPreferences {
+    // Codecs kept after the preferred ones, the same as the SDP path.
+    private static final List<String> VIDEO_EXTRA_CODECS = Arrays.asList("red", "ulpfec", "rtx");
+    private static final List<String> AUDIO_EXTRA_CODECS = Arrays.asList("CN", "telephone-event");
+
+    private static Method setCodecPreferences;
+    private static Method getRtpSenderCapabilities;
+    private static Field capabilitiesCodecs;
+    private static Field codecName;
+    private static boolean supported;
+    private static boolean initialized = false;
+    // Sender capabilities of the PeerConnectionFactory, they do not change once it is created.
+    private static List<?> videoCapabilities;
+    private static List<?> audioCapabilities;
+
+    private TransceiverCodecPreferences() {
+    }
+
+    private static synchronized boolean isSupported() {
+        if (!initialized) {
+            initialized = true;
+            try {
+                Class<?> capabilities = Class.forName("org.webrtc.RtpCapabilities");
+                Class<?> codecCapability =
+                        Class.forName("org.webrtc.RtpCapabilities$CodecCapability");
+                setCodecPreferences =
+                        RtpTransceiver.class.getMethod("setCodecPreferences", List.class);
+                getRtpSenderCapabilities = PeerConnectionFactory.class.getMethod(
+                        "getRtpSenderCapabilities", MediaStreamTrack.MediaType.class);
+                capabilitiesCodecs = capabilities.getField("codecs");
+                codecName = codecCapability.getField("name");
+                supported = true;
+            } catch (ClassNotFoundException | NoSuchMethodException | NoSuchFieldException e) {
+                Log.d(LOG_TAG, "RtpTransceiver.setCodecPreferences is not available.");
+                supported = false;
+            }
+        }
+        return supported;
+    }
+
+    /**
+     * Set |preferredCodecs| as the codec preference of |transceiver|.
+     *
+     * @return true if the codec preference has been set, false if the SDP needs rewriting.
+     */
+    static boolean apply(RtpTransceiver transceiver, List<String> preferredCodecs,
+            boolean video) {
+        if (preferredCodecs == null || preferredCodecs.isEmpty() || !isSupported()) {
+            return false;
+        }
+        try {
+            List<?> capabilities = senderCapabilities(video);
+            List<Object> codecs = new ArrayList<>();
+            for (String preferredCodec : preferredCodecs) {
+                addCodecs(codecs, capabilities, preferredCodec);
+            }
+            if (codecs.isEmpty()) {
+                return false;
+            }
+            for (String extraCodec : video ? VIDEO_EXTRA_CODECS : AUDIO_EXTRA_CODECS) {
+                addCodecs(codecs, capabilities, extraCodec);
+            }
+            setCodecPreferences.invoke(transceiver, codecs);
+            return true;
+        } catch (Exception e) {
+            // setCodecPreferences throws if the codecs are refused.
+            Log.w(LOG_TAG, "Failed to set codec preferences: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static synchronized List<?> senderCapabilities(boolean video) throws Exception {
+        List<?> capabilities = video ? videoCapabilities : audioCapabilities;
+        if (capabilities == null) {
+            Object rtpCapabilities = getRtpSenderCapabilities.invoke(PCFactoryProxy.instance(),
+                    video ? MediaStreamTrack.MediaType.MEDIA_TYPE_VIDEO
+                            : MediaStreamTrack.MediaType.MEDIA_TYPE_AUDIO);
+            capabilities = (List<?>) capabilitiesCodecs.get(rtpCapabilities);
+            if (video) {
+                videoCapabilities = capabilities;
+            } else {
+                audioCapabilities = capabilities;
+            }
+        }
+        return capabilities;
+    }
+
+    private static void addCodecs(List<Object> codecs, List<?> capabilities, String name)
+            throws IllegalAccessException {
+        for (Object capability : capabilities) {
+            if (name.equalsIgnoreCase((String) codecName.get(capability))
+                    && !codecs.contains(capability)) {
+                codecs.add(capability);
+            }
+        }
+    }
+}
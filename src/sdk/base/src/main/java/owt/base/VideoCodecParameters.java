@@ -33,4 +33,22 @@ public final class VideoCodecParameters {
         this.name = codecName;
         this.profile = profile;
     }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof VideoCodecParameters)) {
+            return false;
+        }
+        VideoCodecParameters parameters = (VideoCodecParameters) other;
+        return name == parameters.name && profile == parameters.profile;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name == null ? 0 : name.hashCode();
+        return 31 * result + (profile == null ? 0 : profile.hashCode());
+    }
 }
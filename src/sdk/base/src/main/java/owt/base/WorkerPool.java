@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of worker threads shared by all the clients and PeerConnections of the SDK.
+ * Work that needs to be ordered runs on SerialExecutors backed by this pool, so the number of
+ * threads does not grow with the number of PeerConnections. Idle threads are released after
+ * KEEP_ALIVE_SECONDS.
+ */
+public final class WorkerPool {
+    private static final int MAX_THREADS =
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static final ThreadPoolExecutor pool = createPool();
+    // Only fires delayed tasks, which then run on the executor they have been scheduled for.
+    private static final ScheduledThreadPoolExecutor timer = createTimer();
+    // Number of SerialExecutors not shut down yet.
+    static final AtomicInteger serialExecutors = new AtomicInteger();
+    // Number of tasks queued on SerialExecutors and not started yet.
+    static final AtomicInteger pendingTasks = new AtomicInteger();
+
+    private WorkerPool() {
+    }
+
+    private static ThreadPoolExecutor createPool() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "owt-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "owt-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        timer.allowCoreThreadTimeOut(true);
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    ///@cond
+    /**
+     * Create a SerialExecutor running its tasks one at a time, in order, on the shared pool.
+     */
+    public static SerialExecutor newSerialExecutor() {
+        return new SerialExecutor(pool);
+    }
+
+    /**
+     * Create a SerialExecutor running its tasks one at a time, in order, on |executor|, or on
+     * the shared pool if |executor| is null.
+     */
+    public static SerialExecutor newSerialExecutor(Executor executor) {
+        return new SerialExecutor(executor == null ? pool : executor);
+    }
+
+    /**
+     * Run |task| on |executor| after |delayMs| milliseconds, without holding a thread meanwhile.
+     */
+    public static ScheduledFuture<?> schedule(final Executor executor, final Runnable task,
+            long delayMs) {
+        return timer.schedule(() -> executor.execute(task), delayMs, TimeUnit.MILLISECONDS);
+    }
+    ///@endcond
+
+    /**
+     * Get the current metrics of the shared pool.
+     *
+     * @return WorkerPool.Metrics
+     */
+    public static Metrics getMetrics() {
+        return new Metrics(pool.getPoolSize(), pool.getActiveCount(), pool.getLargestPoolSize(),
+                MAX_THREADS, serialExecutors.get(), pendingTasks.get(),
+                pool.getCompletedTaskCount());
+    }
+
+    /**
+     * Snapshot of the thread and queue metrics of the shared pool.
+     */
+    public static final class Metrics {
+        /**
+         * Number of threads currently in the pool.
+         */
+        public final int threads;
+        /**
+         * Number of threads running a task.
+         */
+        public final int activeThreads;
+        /**
+         * Largest number of threads that have ever been in the pool at the same time.
+         */
+        public final int largestThreads;
+        /**
+         * Maximum number of threads of the pool.
+         */
+        public final int maxThreads;
+        /**
+         * Number of serial queues in use, i.e. not shut down yet.
+         */
+        public final int serialQueues;
+        /**
+         * Number of tasks waiting in serial queues.
+         */
+        public final int pendingTasks;
+        /**
+         * Approximate number of pool tasks that have completed. A pool task may run several
+         * tasks of a serial queue.
+         */
+        public final long completedTasks;
+
+        Metrics(int threads, int activeThreads, int largestThreads, int maxThreads,
+                int serialQueues, int pendingTasks, long completedTasks) {
+            this.threads = threads;
+            this.activeThreads = activeThreads;
+            this.largestThreads = largestThreads;
+            this.maxThreads = maxThreads;
+            this.serialQueues = serialQueues;
+            this.pendingTasks = pendingTasks;
+            this.completedTasks = completedTasks;
+        }
+
+        @Override
+        public String toString() {
+            return "threads=" + threads + ", activeThreads=" + activeThreads
+                    + ", largestThreads=" + largestThreads + ", maxThreads=" + maxThreads
+                    + ", serialQueues=" + serialQueues + ", pendingTasks=" + pendingTasks
+                    + ", completedTasks=" + completedTasks;
+        }
+    }
+}
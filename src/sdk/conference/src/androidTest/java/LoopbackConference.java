@@ -0,0 +1,210 @@
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import android.util.Base64;
+
+import owt.base.ActionCallback;
+import owt.base.OwtError;
+import owt.conference.ConferenceClient;
+import owt.conference.ConferenceClientConfiguration;
+import owt.conference.ConferenceInfo;
+import owt.conference.LoopbackSignalingTransport;
+import owt.conference.Participant;
+import owt.conference.RemoteStream;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.socket.client.Ack;
+
+/**
+ * Room served to ConferenceClients through LoopbackSignalingTransports, for the tests of the
+ * signaling path. Its participant "self" logs in to a room of |streams|. Requests other than
+ * login are acked by onRequest(), and reconnection is not supported.
+ */
+class LoopbackConference implements LoopbackSignalingTransport.Server {
+    // Token of a loopback server, for ConferenceClient.join().
+    static final String TOKEN = Base64.encodeToString(
+            "{\"host\":\"loopback\",\"secure\":false}".getBytes(), Base64.NO_WRAP);
+
+    /**
+     * ConferenceClientObserver ignoring all the events.
+     */
+    static class Observer implements ConferenceClient.ConferenceClientObserver {
+        @Override
+        public void onStreamAdded(RemoteStream remoteStream) {
+        }
+
+        @Override
+        public void onParticipantJoined(Participant participant) {
+        }
+
+        @Override
+        public void onMessageReceived(String message, String from, String to) {
+        }
+
+        @Override
+        public void onServerDisconnected() {
+        }
+    }
+
+    final CountDownLatch disconnected = new CountDownLatch(1);
+    private final JSONArray streams;
+    private volatile LoopbackSignalingTransport transport;
+
+    LoopbackConference() {
+        this(new JSONArray());
+    }
+
+    LoopbackConference(JSONArray streams) {
+        this.streams = streams;
+    }
+
+    /**
+     * @return the info of a forward stream of |owner|, with the optional formats and parameters
+     * of a camera stream.
+     */
+    static JSONObject streamInfo(String id, String owner) throws JSONException {
+        JSONObject audio = new JSONObject();
+        audio.put("status", "active");
+        audio.put("source", "mic");
+        audio.put("format", new JSONObject().put("codec", "opus").put("sampleRate", 48000)
+                .put("channelNum", 2));
+        audio.put("optional", new JSONObject().put("format", new JSONArray()
+                .put(new JSONObject().put("codec", "pcmu"))
+                .put(new JSONObject().put("codec", "pcma"))));
+        JSONObject parameters = new JSONObject();
+        parameters.put("resolution", new JSONObject().put("width", 1280).put("height", 720));
+        parameters.put("framerate", 30);
+        parameters.put("bitrate", 2000);
+        parameters.put("keyFrameInterval", 100);
+        JSONObject optionalParameters = new JSONObject();
+        optionalParameters.put("resolution", new JSONArray()
+                .put(new JSONObject().put("width", 640).put("height", 360))
+                .put(new JSONObject().put("width", 320).put("height", 180)));
+        optionalParameters.put("framerate", new JSONArray().put(6).put(12).put(15).put(24));
+        optionalParameters.put("bitrate", new JSONArray().put("x0.8").put("x0.6").put("x0.4"));
+        optionalParameters.put("keyFrameInterval", new JSONArray().put(30).put(5).put(2));
+        JSONObject video = new JSONObject();
+        video.put("status", "active");
+        video.put("source", "camera");
+        video.put("original", new JSONArray().put(new JSONObject()
+                .put("format", new JSONObject().put("codec", "vp8"))
+                .put("parameters", parameters)));
+        video.put("optional", new JSONObject().put("format", new JSONArray()
+                .put(new JSONObject().put("codec", "vp9"))
+                .put(new JSONObject().put("codec", "h264").put("profile", "CB")))
+                .put("parameters", optionalParameters));
+        JSONObject stream = new JSONObject();
+        stream.put("id", id);
+        stream.put("type", "forward");
+        stream.put("media", new JSONObject().put("audio", audio).put("video", video));
+        stream.put("info", new JSONObject().put("owner", owner).put("type", "webrtc")
+                .put("attributes", new JSONObject().put("label", id)));
+        return stream;
+    }
+
+    /**
+     * Join the room of |client|, failing if it does not succeed within |timeoutSeconds|.
+     */
+    static ConferenceInfo join(ConferenceClient client, int timeoutSeconds)
+            throws InterruptedException {
+        CountDownLatch joined = new CountDownLatch(1);
+        ConferenceInfo[] result = new ConferenceInfo[1];
+        client.join(TOKEN, new ActionCallback<ConferenceInfo>() {
+            @Override
+            public void onSuccess(ConferenceInfo info) {
+                result[0] = info;
+                joined.countDown();
+            }
+
+            @Override
+            public void onFailure(OwtError error) {
+                fail(error.errorMessage);
+            }
+        });
+        assertTrue(joined.await(timeoutSeconds, TimeUnit.SECONDS));
+        return result[0];
+    }
+
+    /**
+     * @return a builder of the configuration of ConferenceClients connecting to this room, with
+     * a LoopbackSignalingTransport per connection.
+     */
+    ConferenceClientConfiguration.Builder configuration() {
+        return ConferenceClientConfiguration.builder()
+                .setSignalingTransportFactory(configuration -> new LoopbackSignalingTransport(this));
+    }
+
+    /**
+     * @return the transport of the last ConferenceClient connected, to push events with.
+     */
+    LoopbackSignalingTransport transport() {
+        return transport;
+    }
+
+    /**
+     * @return the result of a login, by default the room with "self" and |streams|.
+     */
+    Object loginResult() throws JSONException {
+        JSONObject self = new JSONObject();
+        self.put("id", "self");
+        self.put("role", "presenter");
+        self.put("user", "user");
+        JSONObject room = new JSONObject();
+        room.put("id", "room");
+        room.put("participants", new JSONArray().put(self));
+        room.put("streams", streams);
+        JSONObject info = new JSONObject();
+        info.put("id", "self");
+        info.put("room", room);
+        info.put("reconnectionTicket", "ticket");
+        return info;
+    }
+
+    /**
+     * Handle a request other than login and refreshReconnectionTicket. Acks "ok" by default.
+     *
+     * @param ack null if no response is expected.
+     */
+    void onRequest(LoopbackSignalingTransport transport, String event, Object message, Ack ack)
+            throws JSONException {
+        if (ack != null) {
+            ack.call("ok");
+        }
+    }
+
+    @Override
+    public void onConnected(LoopbackSignalingTransport transport) {
+        this.transport = transport;
+    }
+
+    @Override
+    public void onEvent(LoopbackSignalingTransport transport, String event, Object message,
+            Ack ack) {
+        try {
+            switch (event) {
+                case "login":
+                    ack.call("ok", loginResult());
+                    break;
+                case "refreshReconnectionTicket":
+                    ack.call("error", "Reconnection is not supported.");
+                    break;
+                default:
+                    onRequest(transport, event, message, ack);
+                    break;
+            }
+        } catch (JSONException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Override
+    public void onDisconnected(LoopbackSignalingTransport transport) {
+        disconnected.countDown();
+    }
+}
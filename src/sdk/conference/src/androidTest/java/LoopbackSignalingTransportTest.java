@@ -0,0 +1,283 @@
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import owt.base.WorkerPool;
+import owt.conference.ConferenceClient;
+import owt.conference.ConferenceClientConfiguration;
+import owt.conference.ConferenceInfo;
+import owt.conference.ConferenceSignalingTransport;
+import owt.conference.LoopbackSignalingTransport;
+import owt.conference.RemoteMixedStream;
+import owt.conference.RemoteStream;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import io.socket.client.Ack;
+
+@RunWith(AndroidJUnit4.class)
+public class LoopbackSignalingTransportTest {
+    private static final int TIMEOUT_SECONDS = 10;
+
+    // Echoes the text messages.
+    private static class Room extends LoopbackConference {
+        Room() {
+        }
+
+        Room(JSONArray streams) {
+            super(streams);
+        }
+
+        @Override
+        void onRequest(LoopbackSignalingTransport transport, String event, Object message,
+                Ack ack) throws JSONException {
+            super.onRequest(transport, event, message, ack);
+            if (event.equals("text")) {
+                JSONObject text = new JSONObject();
+                text.put("message", ((JSONObject) message).getString("message"));
+                text.put("from", "self");
+                text.put("to", "all");
+                transport.push("text", text);
+            }
+        }
+    }
+
+    @Test
+    public void testJoinSendLeave() throws InterruptedException {
+        Room room = new Room();
+        ConferenceClient client = new ConferenceClient(room.configuration().build());
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch serverDisconnected = new CountDownLatch(1);
+        client.addObserver(new LoopbackConference.Observer() {
+            @Override
+            public void onMessageReceived(String message, String from, String to) {
+                assertEquals("hello", message);
+                received.countDown();
+            }
+
+            @Override
+            public void onServerDisconnected() {
+                serverDisconnected.countDown();
+            }
+        });
+
+        ConferenceInfo info = LoopbackConference.join(client, TIMEOUT_SECONDS);
+        assertEquals("room", info.id());
+        assertEquals("self", info.self().id);
+
+        client.send("hello", null);
+        assertTrue(received.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        client.leave();
+        assertTrue(room.disconnected.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(serverDisconnected.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1L, client.getSignalingMessageCounts().get("text").longValue());
+        assertEquals(1L, client.getSignalingMessageCounts().get("logout").longValue());
+        assertTrue(room.transport().emittedEvents() >= 3);
+        assertEquals(1L, room.transport().pushedEvents());
+    }
+
+    @Test
+    public void testJoinLeaveReleasesExecutors() throws InterruptedException {
+        // A transport per connection, as created by the default factory.
+        ConferenceClient client = new ConferenceClient(new Room().configuration().build());
+        int baseline = WorkerPool.getMetrics().serialQueues;
+        for (int i = 0; i < 2; i++) {
+            CountDownLatch serverDisconnected = new CountDownLatch(1);
+            ConferenceClient.ConferenceClientObserver observer = new LoopbackConference.Observer() {
+                @Override
+                public void onServerDisconnected() {
+                    serverDisconnected.countDown();
+                }
+            };
+            client.addObserver(observer);
+            LoopbackConference.join(client, TIMEOUT_SECONDS);
+            assertTrue(WorkerPool.getMetrics().serialQueues > baseline);
+
+            client.leave();
+            assertTrue(serverDisconnected.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            // The executors of the SignalingChannel and of the transport are shut down.
+            assertEquals(baseline, WorkerPool.getMetrics().serialQueues);
+            client.removeObserver(observer);
+        }
+    }
+
+    @Test
+    public void testJoinLeaveWithReusedTransport() throws InterruptedException {
+        Room room = new Room();
+        LoopbackSignalingTransport transport = new LoopbackSignalingTransport(room);
+        ConferenceClient client = new ConferenceClient(ConferenceClientConfiguration.builder()
+                .setSignalingTransportFactory(configuration -> transport)
+                .build());
+        int baseline = WorkerPool.getMetrics().serialQueues;
+        for (int i = 0; i < 2; i++) {
+            CountDownLatch serverDisconnected = new CountDownLatch(1);
+            ConferenceClient.ConferenceClientObserver observer = new LoopbackConference.Observer() {
+                @Override
+                public void onServerDisconnected() {
+                    serverDisconnected.countDown();
+                }
+            };
+            client.addObserver(observer);
+            LoopbackConference.join(client, TIMEOUT_SECONDS);
+            assertTrue(transport.isConnected());
+
+            client.leave();
+            assertTrue(serverDisconnected.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            assertFalse(transport.isConnected());
+            // The executor of the transport is released until it is connected again.
+            assertTrue(WorkerPool.getMetrics().serialQueues < baseline);
+            client.removeObserver(observer);
+        }
+    }
+
+    @Test
+    public void testLeaveWithFailedLogout() throws InterruptedException {
+        Room room = new Room() {
+            @Override
+            void onRequest(LoopbackSignalingTransport transport, String event, Object message,
+                    Ack ack) throws JSONException {
+                if (event.equals("logout")) {
+                    ack.call("error", "rejected by the test");
+                } else {
+                    super.onRequest(transport, event, message, ack);
+                }
+            }
+        };
+        ConferenceClient client = new ConferenceClient(room.configuration().build());
+        CountDownLatch serverDisconnected = new CountDownLatch(1);
+        client.addObserver(new LoopbackConference.Observer() {
+            @Override
+            public void onServerDisconnected() {
+                serverDisconnected.countDown();
+            }
+        });
+        LoopbackConference.join(client, TIMEOUT_SECONDS);
+
+        // The room is still left.
+        client.leave();
+        assertTrue(room.disconnected.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(serverDisconnected.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testStreamEventsBeforeSnapshotRead() throws InterruptedException, JSONException {
+        JSONObject mixedStream = new JSONObject();
+        mixedStream.put("id", "mixed");
+        mixedStream.put("type", "mixed");
+        mixedStream.put("media", new JSONObject().put("audio", new JSONObject())
+                .put("video", new JSONObject()));
+        mixedStream.put("info", new JSONObject().put("label", "common").put("activeInput", "a")
+                .put("layout", new JSONArray()));
+        JSONArray streams = new JSONArray()
+                .put(LoopbackConference.streamInfo("stream-1", "owner"))
+                .put(LoopbackConference.streamInfo("stream-2", "owner"))
+                .put(LoopbackConference.streamInfo("stream-3", "owner"))
+                .put(mixedStream);
+        Room room = new Room(streams) {
+            @Override
+            Object loginResult() {
+                // In the order of the conference server, org.json orders the keys arbitrarily.
+                return new ConferenceSignalingTransport.RawJson("{\"id\":\"self\","
+                        + "\"room\":{\"id\":\"room\",\"participants\":[],\"streams\":" + streams
+                        + "},\"reconnectionTicket\":\"ticket\"}");
+            }
+
+            @Override
+            public void onEvent(LoopbackSignalingTransport transport, String event,
+                    Object message, Ack ack) {
+                super.onEvent(transport, event, message, ack);
+                if (!event.equals("login")) {
+                    return;
+                }
+                // Delivered after the login result, before the streams after the first one
+                // are read.
+                try {
+                    transport.push("stream", new JSONObject().put("id", "stream-2")
+                            .put("status", "remove"));
+                    transport.push("stream", new JSONObject().put("id", "mixed")
+                            .put("status", "update").put("data", new JSONObject()
+                                    .put("field", "activeInput").put("value", "b")));
+                } catch (JSONException e) {
+                    fail(e.getMessage());
+                }
+            }
+        };
+        // With a direct executor, the events are queued behind the login result.
+        ConferenceClient client = new ConferenceClient(ConferenceClientConfiguration.builder()
+                .setSignalingTransportFactory(
+                        configuration -> new LoopbackSignalingTransport(room, Runnable::run))
+                .setInitialRemoteStreamLimit(1)
+                .build());
+        List<String> added = new ArrayList<>();
+        CountDownLatch synced = new CountDownLatch(1);
+        client.addObserver(new LoopbackConference.Observer() {
+            @Override
+            public void onStreamAdded(RemoteStream remoteStream) {
+                added.add(remoteStream.id());
+            }
+
+            @Override
+            public void onMessageReceived(String message, String from, String to) {
+                synced.countDown();
+            }
+        });
+        LoopbackConference.join(client, TIMEOUT_SECONDS);
+        // Handled after the rest of the room, whose reading is queued before join succeeds.
+        room.transport().push("text", new JSONObject().put("message", "sync")
+                .put("from", "server").put("to", "me"));
+        assertTrue(synced.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // stream-2 is not added once removed, and the update of the mixed stream is kept.
+        assertEquals(Arrays.asList("stream-3", "mixed"), added);
+        List<String> remoteStreams = new ArrayList<>();
+        for (RemoteStream remoteStream : client.info().getRemoteStreams()) {
+            remoteStreams.add(remoteStream.id());
+        }
+        assertEquals(Arrays.asList("stream-1", "stream-3", "mixed"), remoteStreams);
+        assertEquals("b", ((RemoteMixedStream) client.info().getRemoteStreams().get(2))
+                .activeAudioInput());
+        client.leave();
+    }
+
+    @Test
+    public void testSnapshotReadFailure() throws InterruptedException, JSONException {
+        JSONObject stream = LoopbackConference.streamInfo("stream-1", "owner");
+        Room room = new Room() {
+            @Override
+            Object loginResult() {
+                // The second stream is invalid, it is read after join succeeds.
+                return new ConferenceSignalingTransport.RawJson("{\"id\":\"self\","
+                        + "\"room\":{\"id\":\"room\",\"participants\":[],\"streams\":["
+                        + stream + ",42]},\"reconnectionTicket\":\"ticket\"}");
+            }
+        };
+        ConferenceClient client = new ConferenceClient(room.configuration()
+                .setInitialRemoteStreamLimit(1)
+                .build());
+        CountDownLatch serverDisconnected = new CountDownLatch(1);
+        client.addObserver(new LoopbackConference.Observer() {
+            @Override
+            public void onServerDisconnected() {
+                serverDisconnected.countDown();
+            }
+        });
+        LoopbackConference.join(client, TIMEOUT_SECONDS);
+        // The room is left rather than missing streams.
+        assertTrue(room.disconnected.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(serverDisconnected.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,181 @@
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import owt.conference.ConferenceClient;
+import owt.conference.LoopbackSignalingTransport;
+import owt.conference.RemoteMixedStream;
+import owt.conference.RemoteMixedStream.Region;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+public class RemoteMixedStreamTest {
+    private static final int TIMEOUT_SECONDS = 10;
+    private static final String MIXED = "mixed-stream";
+    private LoopbackSignalingTransport transport;
+    private ConferenceClient client;
+    private RemoteMixedStream mixedStream;
+    private final List<List<Region>> layouts = new ArrayList<>();
+    private final List<String> activeInputs = new ArrayList<>();
+    private CountDownLatch barrier;
+    // Counted down once a layout or an active input change is notified.
+    private volatile CountDownLatch layoutChanged = new CountDownLatch(1);
+    private volatile CountDownLatch activeInputChanged = new CountDownLatch(1);
+
+    // Speaker |speaker| in the main region, |others| in the small ones.
+    private static JSONArray layout(String speaker, String... others) throws JSONException {
+        JSONArray layout = new JSONArray();
+        layout.put(region("1", speaker, "0", "0", "2/3"));
+        for (int i = 0; i < others.length; i++) {
+            layout.put(region(String.valueOf(i + 2), others[i], "2/3", i + "/3", "1/3"));
+        }
+        return layout;
+    }
+
+    private static JSONObject region(String id, String stream, String left, String top,
+            String size) throws JSONException {
+        JSONObject area = new JSONObject().put("left", left).put("top", top)
+                .put("width", size).put("height", size);
+        return new JSONObject().put("stream", stream).put("region",
+                new JSONObject().put("id", id).put("shape", "rectangle").put("area", area));
+    }
+
+    @Before
+    public void setUp() throws InterruptedException, JSONException {
+        JSONObject info = new JSONObject();
+        info.put("label", "common");
+        info.put("activeInput", "a");
+        info.put("layout", layout("a", "b", "c"));
+        JSONObject streamInfo = new JSONObject();
+        streamInfo.put("id", MIXED);
+        streamInfo.put("type", "mixed");
+        streamInfo.put("media", new JSONObject().put("audio", new JSONObject())
+                .put("video", new JSONObject()));
+        streamInfo.put("info", info);
+        LoopbackConference conference = new LoopbackConference(new JSONArray().put(streamInfo));
+        client = new ConferenceClient(conference.configuration().build());
+        client.addObserver(new LoopbackConference.Observer() {
+            @Override
+            public void onMessageReceived(String message, String from, String to) {
+                barrier.countDown();
+            }
+        });
+        LoopbackConference.join(client, TIMEOUT_SECONDS);
+        transport = conference.transport();
+        mixedStream = (RemoteMixedStream) client.info().getRemoteStreams().get(0);
+        mixedStream.addObserver(new RemoteMixedStream.RemoteMixedStreamObserver() {
+            @Override
+            public void onLayoutChange(List<Region> regions) {
+                synchronized (layouts) {
+                    layouts.add(regions);
+                }
+                layoutChanged.countDown();
+            }
+
+            @Override
+            public void onActiveAudioInputChange(String activeAudioInput) {
+                synchronized (activeInputs) {
+                    activeInputs.add(activeAudioInput);
+                }
+                activeInputChanged.countDown();
+            }
+
+            @Override
+            public void onEnded() {
+            }
+
+            @Override
+            public void onUpdated() {
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        client.leave();
+    }
+
+    private void pushLayout(JSONArray layout) throws JSONException {
+        transport.push("stream", new JSONObject().put("id", MIXED).put("status", "update")
+                .put("data", new JSONObject().put("field", "video.layout").put("value", layout)));
+    }
+
+    private void pushActiveInput(String activeInput) throws JSONException {
+        transport.push("stream", new JSONObject().put("id", MIXED).put("status", "update")
+                .put("data", new JSONObject().put("field", "activeInput")
+                        .put("value", activeInput)));
+    }
+
+    // Waits until the events pushed so far have been handled.
+    private void sync() throws InterruptedException, JSONException {
+        barrier = new CountDownLatch(1);
+        transport.push("text", new JSONObject().put("message", "sync").put("from", "server")
+                .put("to", "me"));
+        assertTrue(barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testUnchangedLayoutNotNotified() throws InterruptedException, JSONException {
+        List<Region> initial = mixedStream.regions();
+        pushLayout(layout("a", "b", "c"));
+        pushActiveInput("a");
+        // Only the main region changes, the small ones are kept.
+        pushLayout(layout("d", "b", "c"));
+        sync();
+        assertEquals(1, layouts.size());
+        assertSame(mixedStream.regions(), layouts.get(0));
+        assertEquals("d", layouts.get(0).get(0).streamId);
+        assertSame(initial.get(1), layouts.get(0).get(1));
+        assertSame(initial.get(2), layouts.get(0).get(2));
+        assertEquals(0, activeInputs.size());
+        assertEquals(2, mixedStream.droppedEventCount());
+        assertEquals(0, mixedStream.mergedEventCount());
+    }
+
+    @Test
+    public void testSpeakerSwitchingCoalesced() throws InterruptedException, JSONException {
+        mixedStream.setEventCoalescingWindow(200);
+        String[] speakers = {"b", "c", "d", "a", "c"};
+        for (String speaker : speakers) {
+            pushLayout(layout(speaker, "a", "b"));
+            pushActiveInput(speaker);
+        }
+        sync();
+        // The latest values are available before they are notified.
+        assertEquals("c", mixedStream.regions().get(0).streamId);
+        assertEquals("c", mixedStream.activeAudioInput());
+        // Layout changes are notified first, once the window ends.
+        assertTrue(activeInputChanged.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, layouts.size());
+        assertEquals("c", layouts.get(0).get(0).streamId);
+        assertEquals(1, activeInputs.size());
+        assertEquals("c", activeInputs.get(0));
+        assertEquals(2 * (speakers.length - 1), mixedStream.mergedEventCount());
+
+        // Changes reverted within the window are dropped, when the window of the layout change
+        // ends.
+        layoutChanged = new CountDownLatch(1);
+        pushLayout(layout("a", "b", "c"));
+        pushActiveInput("d");
+        pushActiveInput("c");
+        assertTrue(layoutChanged.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(2, layouts.size());
+        assertEquals(1, activeInputs.size());
+        assertEquals(2 * speakers.length - 1, mixedStream.mergedEventCount());
+        assertEquals(1, mixedStream.droppedEventCount());
+    }
+}
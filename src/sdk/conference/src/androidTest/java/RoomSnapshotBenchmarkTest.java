@@ -0,0 +1,133 @@
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import owt.conference.ConferenceClient;
+import owt.conference.ConferenceInfo;
+import owt.conference.ConferenceSignalingTransport;
+import owt.conference.RemoteStream;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures joining a room of 5000 participants, the login result being read as a JSONObject,
+ * streamed from its JSON text, and streamed with the first streams delivered early.
+ */
+@RunWith(AndroidJUnit4.class)
+public class RoomSnapshotBenchmarkTest {
+    private static final String TAG = "RoomSnapshotBenchmark";
+    private static final int TIMEOUT_SECONDS = 60;
+    private static final int PARTICIPANTS = 5000;
+    private static final int STREAMS = 1000;
+    private static final int INITIAL_STREAMS = 16;
+    private static final int ROUNDS = 5;
+    private static String snapshot;
+
+    private static class Room extends LoopbackConference {
+        private final boolean raw;
+
+        Room(boolean raw) {
+            this.raw = raw;
+        }
+
+        @Override
+        Object loginResult() throws JSONException {
+            // Like a transport, the text is parsed before the ack is called.
+            return raw ? new ConferenceSignalingTransport.RawJson(snapshot)
+                    : new JSONObject(snapshot);
+        }
+    }
+
+    @BeforeClass
+    public static void createSnapshot() throws JSONException {
+        JSONArray participants = new JSONArray();
+        for (int i = 0; i < PARTICIPANTS; i++) {
+            participants.put(new JSONObject().put("id", "participant-" + i)
+                    .put("role", "presenter").put("user", "user-" + i));
+        }
+        JSONArray streams = new JSONArray();
+        for (int i = 0; i < STREAMS; i++) {
+            streams.put(LoopbackConference.streamInfo("stream-" + i, "participant-" + i));
+        }
+        // In the order of the conference server, org.json orders the keys arbitrarily.
+        snapshot = "{\"id\":\"participant-0\",\"user\":\"user-0\",\"role\":\"presenter\","
+                + "\"room\":{\"id\":\"room\",\"participants\":" + participants
+                + ",\"streams\":" + streams + "},\"reconnectionTicket\":\"ticket\"}";
+    }
+
+    @Test
+    public void testJoinLargeRoom() throws InterruptedException {
+        // Warm up.
+        join(false, Integer.MAX_VALUE);
+        join(true, Integer.MAX_VALUE);
+        long[] jsonObject = new long[2];
+        long[] streamed = new long[2];
+        long[] early = new long[2];
+        for (int i = 0; i < ROUNDS; i++) {
+            accumulate(jsonObject, join(false, Integer.MAX_VALUE));
+            accumulate(streamed, join(true, Integer.MAX_VALUE));
+            accumulate(early, join(true, INITIAL_STREAMS));
+        }
+        Log.i(TAG, PARTICIPANTS + " participants, " + STREAMS + " streams, "
+                + snapshot.length() / 1024 + " KB");
+        log("JSONObject", jsonObject);
+        log("streamed", streamed);
+        log("streamed, " + INITIAL_STREAMS + " initial streams", early);
+    }
+
+    // Joins the room and waits for all the streams.
+    // @return time to join and time to have all the streams, in nanoseconds.
+    private long[] join(boolean raw, int initialStreams) throws InterruptedException {
+        ConferenceClient client = new ConferenceClient(new Room(raw).configuration()
+                .setInitialRemoteStreamLimit(initialStreams)
+                .build());
+        AtomicInteger addedStreams = new AtomicInteger();
+        CountDownLatch allStreams = new CountDownLatch(1);
+        AtomicInteger joinedStreams = new AtomicInteger();
+        client.addObserver(new LoopbackConference.Observer() {
+            @Override
+            public void onStreamAdded(RemoteStream remoteStream) {
+                if (joinedStreams.get() + addedStreams.incrementAndGet() == STREAMS) {
+                    allStreams.countDown();
+                }
+            }
+        });
+
+        long[] result = new long[2];
+        long start = System.nanoTime();
+        ConferenceInfo info = LoopbackConference.join(client, TIMEOUT_SECONDS);
+        result[0] = System.nanoTime() - start;
+        assertEquals(PARTICIPANTS, info.getParticipants().size());
+        int streams = info.getRemoteStreams().size();
+        assertEquals(Math.min(initialStreams, STREAMS), streams);
+        if (joinedStreams.addAndGet(streams) + addedStreams.get() == STREAMS) {
+            allStreams.countDown();
+        }
+        assertTrue(allStreams.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        result[1] = System.nanoTime() - start;
+        assertEquals(STREAMS, client.info().getRemoteStreams().size());
+        client.leave();
+        return result;
+    }
+
+    private static void accumulate(long[] total, long[] result) {
+        total[0] += result[0];
+        total[1] += result[1];
+    }
+
+    private static void log(String mode, long[] total) {
+        Log.i(TAG, mode + ": join " + TimeUnit.NANOSECONDS.toMillis(total[0] / ROUNDS)
+                + " ms, all streams " + TimeUnit.NANOSECONDS.toMillis(total[1] / ROUNDS) + " ms");
+    }
+}
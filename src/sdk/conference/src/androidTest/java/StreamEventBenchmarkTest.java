@@ -0,0 +1,121 @@
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import owt.base.ActionCallback;
+import owt.base.ContextInitialization;
+import owt.base.OwtError;
+import owt.conference.ConferenceClient;
+import owt.conference.LoopbackSignalingTransport;
+import owt.conference.RemoteStream;
+import owt.conference.Subscription;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.socket.client.Ack;
+
+/**
+ * Measures the throughput of stream status events with many subscriptions. Media is not
+ * negotiated, the server acknowledges soac messages only.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StreamEventBenchmarkTest {
+    private static final String TAG = "StreamEventBenchmark";
+    private static final int TIMEOUT_SECONDS = 60;
+    private static final int STREAMS = 128;
+    private static final int EVENTS = 20000;
+
+    static {
+        ContextInitialization.create().setApplicationContext(
+                InstrumentationRegistry.getTargetContext()).initialize();
+    }
+
+    // Acks subscriptions and reports them ready.
+    private static class Room extends LoopbackConference {
+        private final AtomicInteger subscriptions = new AtomicInteger();
+
+        Room(JSONArray streams) {
+            super(streams);
+        }
+
+        @Override
+        void onRequest(LoopbackSignalingTransport transport, String event, Object message,
+                Ack ack) throws JSONException {
+            if (!event.equals("subscribe")) {
+                super.onRequest(transport, event, message, ack);
+                return;
+            }
+            String id = "subscription-" + subscriptions.incrementAndGet();
+            ack.call("ok", new JSONObject().put("id", id));
+            transport.push("progress", new JSONObject().put("id", id).put("status", "ready"));
+        }
+    }
+
+    @Test
+    public void testStatusEventThroughput() throws InterruptedException, JSONException {
+        JSONArray streams = new JSONArray();
+        for (int i = 0; i < STREAMS; i++) {
+            streams.put(LoopbackConference.streamInfo("stream-" + i, "owner"));
+        }
+        Room room = new Room(streams);
+        ConferenceClient client = new ConferenceClient(room.configuration().build());
+        CountDownLatch barrier = new CountDownLatch(1);
+        client.addObserver(new LoopbackConference.Observer() {
+            @Override
+            public void onMessageReceived(String message, String from, String to) {
+                barrier.countDown();
+            }
+        });
+        LoopbackConference.join(client, TIMEOUT_SECONDS);
+        LoopbackSignalingTransport transport = room.transport();
+        assertEquals(STREAMS, client.info().getRemoteStreams().size());
+
+        CountDownLatch subscribed = new CountDownLatch(STREAMS);
+        for (RemoteStream remoteStream : client.info().getRemoteStreams()) {
+            client.subscribe(remoteStream, new ActionCallback<Subscription>() {
+                @Override
+                public void onSuccess(Subscription subscription) {
+                    subscribed.countDown();
+                }
+
+                @Override
+                public void onFailure(OwtError error) {
+                    fail(error.errorMessage);
+                }
+            });
+        }
+        assertTrue(subscribed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        // Mute storm: status updates of the subscribed streams, then a text message to know when
+        // all of them have been handled.
+        long start = System.nanoTime();
+        for (int i = 0; i < EVENTS; i++) {
+            JSONObject data = new JSONObject();
+            data.put("field", i % 2 == 0 ? "audio.status" : "video.status");
+            data.put("value", i % 4 < 2 ? "inactive" : "active");
+            transport.push("stream", new JSONObject().put("id", "stream-" + (i % STREAMS))
+                    .put("status", "update").put("data", data));
+        }
+        transport.push("text", new JSONObject().put("message", "done").put("from", "owner")
+                .put("to", "me"));
+        assertTrue(barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        long elapsedNs = System.nanoTime() - start;
+        Log.i(TAG, STREAMS + " subscriptions: " + EVENTS + " status events in "
+                + TimeUnit.NANOSECONDS.toMillis(elapsedNs) + " ms, "
+                + (long) (EVENTS / (elapsedNs / 1e9)) + " events/s");
+
+        client.leave();
+    }
+}
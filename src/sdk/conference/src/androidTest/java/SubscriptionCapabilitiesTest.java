@@ -0,0 +1,71 @@
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import owt.conference.ConferenceClient;
+import owt.conference.RemoteStream;
+import owt.conference.SubscriptionCapabilities;
+import owt.conference.SubscriptionCapabilities.Resolution;
+import owt.conference.SubscriptionCapabilities.VideoSubscriptionCapabilities;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class SubscriptionCapabilitiesTest {
+    private static final int TIMEOUT_SECONDS = 10;
+
+    // Forward stream whose video can be subscribed at |frameRates|.
+    private static JSONObject streamInfo(String id, int... frameRates) throws JSONException {
+        JSONObject stream = LoopbackConference.streamInfo(id, "owner");
+        JSONArray frameRatesArray = new JSONArray();
+        for (int frameRate : frameRates) {
+            frameRatesArray.put(frameRate);
+        }
+        stream.getJSONObject("media").getJSONObject("video").getJSONObject("optional")
+                .getJSONObject("parameters").put("framerate", frameRatesArray);
+        return stream;
+    }
+
+    private static List<RemoteStream> join(JSONArray streams) throws InterruptedException {
+        LoopbackConference conference = new LoopbackConference(streams);
+        ConferenceClient client = new ConferenceClient(conference.configuration().build());
+        List<RemoteStream> remoteStreams =
+                LoopbackConference.join(client, TIMEOUT_SECONDS).getRemoteStreams();
+        client.leave();
+        return remoteStreams;
+    }
+
+    @Test
+    public void testSharedAcrossStreams() throws InterruptedException, JSONException {
+        List<RemoteStream> remoteStreams = join(new JSONArray()
+                .put(streamInfo("stream-1", 15, 24))
+                .put(streamInfo("stream-2", 15, 24))
+                .put(streamInfo("stream-3", 24)));
+        assertEquals(3, remoteStreams.size());
+        SubscriptionCapabilities first = remoteStreams.get(0).extraSubscriptionCapability();
+        SubscriptionCapabilities second = remoteStreams.get(1).extraSubscriptionCapability();
+        SubscriptionCapabilities third = remoteStreams.get(2).extraSubscriptionCapability();
+        assertSame(first, second);
+        assertNotSame(first, third);
+        // Only the video capabilities differ.
+        assertSame(first.audioSubscriptionCapabilities, third.audioSubscriptionCapabilities);
+        assertNotSame(first.videoSubscriptionCapabilities, third.videoSubscriptionCapabilities);
+
+        VideoSubscriptionCapabilities video = first.videoSubscriptionCapabilities;
+        assertEquals(new Resolution(640, 360), video.resolutions.get(0));
+        assertEquals(15, video.frameRates()[0]);
+        assertEquals(0.6, video.bitrateMultipliers()[1]);
+        assertEquals(30, video.keyFrameIntervals()[0]);
+        // Returned arrays are copies.
+        video.frameRates()[0] = 60;
+        assertEquals(15, video.frameRates()[0]);
+    }
+}
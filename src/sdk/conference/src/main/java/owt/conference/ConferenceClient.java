@@ -17,13 +17,15 @@ import org.webrtc.IceCandidate;
 import org.webrtc.RTCStatsReport;
 import org.webrtc.SessionDescription;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import io.socket.client.Ack;
 import owt.base.ActionCallback;
@@ -31,6 +33,7 @@ import owt.base.LocalStream;
 import owt.base.MediaConstraints.TrackKind;
 import owt.base.OwtError;
 import owt.base.PeerConnectionChannel;
+import owt.base.SerialExecutor;
 
 /**
  * ConferenceClient handles PeerConnection interactions between client and server.
@@ -72,9 +75,11 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
     }
 
     // All callbacks need to be triggered on |callbackExecutor|.
-    private final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
+    private final SerialExecutor callbackExecutor;
     // key: publication/subscription id.
     private final ConcurrentHashMap<String, ConferencePeerConnectionChannel> pcChannels;
+    // key: id of the subscribed RemoteStream, secondary index of |pcChannels|.
+    private final ConcurrentHashMap<String, ConferencePeerConnectionChannel> subscribedStreams;
     // key: subscription id.
     private final ConcurrentHashMap<String, ActionCallback<Subscription>> subCallbacks;
     // key: publication id.
@@ -88,6 +93,11 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
     private final Object infoLock = new Object();
     private RoomStates roomStates;
     private final Object statesLock = new Object();
+    // null if ICE candidate batching is disabled.
+    private final IceCandidateBatcher iceCandidateBatcher;
+    private final SignalingMessageQueue signalingMessageQueue;
+    // key: message type, see getSignalingMessageCounts().
+    private final ConcurrentHashMap<String, AtomicLong> signalingMessageCounts;
 
     /**
      * Constructor for ConferenceClient.
@@ -97,11 +107,19 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
     public ConferenceClient(ConferenceClientConfiguration configuration) {
         DCHECK(configuration);
         this.configuration = configuration;
+        callbackExecutor = configuration.newCallbackExecutor();
         observers = Collections.synchronizedList(new ArrayList<ConferenceClientObserver>());
         pcChannels = new ConcurrentHashMap<>();
+        subscribedStreams = new ConcurrentHashMap<>();
         subCallbacks = new ConcurrentHashMap<>();
         pubCallbacks = new ConcurrentHashMap<>();
         roomStates = RoomStates.DISCONNECTED;
+        signalingMessageCounts = new ConcurrentHashMap<>();
+        signalingMessageQueue =
+                new SignalingMessageQueue(configuration.signalingQueueCapacity);
+        iceCandidateBatcher = configuration.iceCandidateBatchWindow == 0 ? null
+                : new IceCandidateBatcher(configuration.iceCandidateBatchWindow,
+                        callbackExecutor, this::sendIceCandidates);
     }
 
     /**
@@ -128,6 +146,31 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         observers.remove(observer);
     }
 
+    /**
+     * Get the number of signaling messages sent since this ConferenceClient has been created,
+     * per message type. "soac" messages are counted per type of their "signaling" field, e.g.
+     * "soac:offer", "soac:candidate", "soac:candidates" or "soac:removed-candidates".
+     *
+     * @return snapshot of the counts, keyed by message type.
+     */
+    public Map<String, Long> getSignalingMessageCounts() {
+        HashMap<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, AtomicLong> entry : signalingMessageCounts.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    /**
+     * Get the metrics of the queue holding the signaling messages sent while the connection to
+     * the conference server is lost.
+     *
+     * @return SignalingQueueMetrics
+     */
+    public SignalingQueueMetrics getSignalingQueueMetrics() {
+        return signalingMessageQueue.metrics();
+    }
+
     /**
      * Get the ConferenceInfo of this ConferenceClient.
      *
@@ -157,7 +200,8 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         DCHECK(signalingChannel == null);
         DCHECK(joinCallback == null);
         this.joinCallback = callback;
-        signalingChannel = new SignalingChannel(token, this);
+        signalingChannel = new SignalingChannel(token, configuration.newSignalingExecutor(),
+                signalingMessageQueue, this);
         Log.d(LOG_TAG, "Connecting to the conference room.");
         changeRoomStatus(RoomStates.CONNECTING);
         signalingChannel.connect(configuration);
@@ -171,10 +215,13 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
             Log.w(LOG_TAG, "Wrong room status when leave.");
             return;
         }
+        final SignalingChannel channel = signalingChannel;
         sendSignalingMessage("logout", null, args -> {
-            // Only care about the result in debug mode.
-            DCHECK(extractMsg(0, args).equals("ok"));
-            signalingChannel.disconnect();
+            // The room is left either way, e.g. when the logout could not be sent.
+            if (!extractMsg(0, args).equals("ok")) {
+                Log.w(LOG_TAG, "Failed to log out: " + extractMsg(1, args));
+            }
+            channel.disconnect();
         });
     }
 
@@ -286,12 +333,11 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
 
             sendSignalingMessage("unpublish", unpubMsg, args -> {
                 // Clean resources associated with this publication regardless of the result from
-                // MCU. But we monitor the result in debug mode.
-                DCHECK(extractMsg(0, args).equals("ok"));
-                if (pcChannels.containsKey(publicationId)) {
-                    ConferencePeerConnectionChannel pcChannel = getPeerConnection(publicationId);
-                    pcChannel.dispose();
-                    pcChannels.remove(publicationId);
+                // MCU, which is reported to the publication if it failed.
+                if (!extractMsg(0, args).equals("ok")) {
+                    publication.onError(new OwtError(extractMsg(1, args)));
+                }
+                if (removePeerConnection(publicationId)) {
                     publication.onEnded();
                 }
             });
@@ -362,20 +408,12 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
 
             sendSignalingMessage("subscribe", subscribeMsg, args -> {
                 if (extractMsg(0, args).equals("ok")) {
-                    for (ConferencePeerConnectionChannel pcChannel : pcChannels.values()) {
-                        if(pcChannel.stream == null) {
-                            Log.w(LOG_TAG, "Peer connection channel stream is null.");
-                            continue;
-                        }
-                        if(pcChannel.stream.disposed()) {
-                            Log.w(LOG_TAG, "Peer connection channel stream is disposed.");
-                            continue;
-                        }
-                        if (pcChannel.stream.id().equals(remoteStreamId)) {
-                            triggerCallback(callback,
-                                    new OwtError("Remote stream has been subscribed."));
-                            return;
-                        }
+                    ConferencePeerConnectionChannel subscribed =
+                            subscribedStreams.get(remoteStreamId);
+                    if (subscribed != null && !subscribed.stream.disposed()) {
+                        triggerCallback(callback,
+                                new OwtError("Remote stream has been subscribed."));
+                        return;
                     }
                     JSONObject result = (JSONObject) args[1];
                     try {
@@ -384,6 +422,7 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
                         if (callback != null) {
                             subCallbacks.put(result.getString("id"), callback);
                         }
+                        subscribedStreams.put(remoteStreamId, pcChannel);
                         pcChannel.subscribe(remoteStream, options);
                     } catch (JSONException e) {
                         DCHECK(e);
@@ -412,10 +451,7 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
             unpubMsg.put("id", subscriptionId);
 
             sendSignalingMessage("unsubscribe", unpubMsg, args -> {
-                if (pcChannels.containsKey(subscriptionId)) {
-                    ConferencePeerConnectionChannel pcChannel = getPeerConnection(subscriptionId);
-                    pcChannel.dispose();
-                    pcChannels.remove(subscriptionId);
+                if (removePeerConnection(subscriptionId)) {
                     subscription.onEnded();
                 }
             });
@@ -493,6 +529,10 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
             pcChannels.get(key).dispose();
         }
         pcChannels.clear();
+        subscribedStreams.clear();
+        if (iceCandidateBatcher != null) {
+            iceCandidateBatcher.clear();
+        }
         subCallbacks.clear();
         pubCallbacks.clear();
         signalingChannel = null;
@@ -525,12 +565,29 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
             return pcChannels.get(id);
         }
         ConferencePeerConnectionChannel pcChannel =
-                new ConferencePeerConnectionChannel(id, configuration.rtcConfiguration,
+                new ConferencePeerConnectionChannel(id, configuration,
                         receiveVideo, receiveAudio, this);
         pcChannels.put(id, pcChannel);
         return pcChannel;
     }
 
+    /**
+     * Dispose the ConferencePeerConnectionChannel of |id| and remove it from the indexes.
+     *
+     * @return false if there is no ConferencePeerConnectionChannel of |id|.
+     */
+    private boolean removePeerConnection(String id) {
+        ConferencePeerConnectionChannel pcChannel = pcChannels.remove(id);
+        if (pcChannel == null) {
+            return false;
+        }
+        pcChannel.dispose();
+        if (pcChannel.stream instanceof RemoteStream) {
+            subscribedStreams.remove(pcChannel.stream.id(), pcChannel);
+        }
+        return true;
+    }
+
     <T> void triggerCallback(final ActionCallback<T> callback, final OwtError error) {
         DCHECK(callbackExecutor);
         if (callback == null) {
@@ -551,10 +608,27 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
     void sendSignalingMessage(final String type, final JSONObject message, final Ack ack) {
         DCHECK(signalingChannel);
         if (signalingChannel != null) {
+            countSignalingMessage(type, message);
             signalingChannel.sendMsg(type, message, ack);
         }
     }
 
+    private void countSignalingMessage(String type, JSONObject message) {
+        String key = type;
+        if (type.equals("soac") && message != null) {
+            JSONObject signaling = message.optJSONObject("signaling");
+            if (signaling != null) {
+                key = type + ":" + signaling.optString("type");
+            }
+        }
+        AtomicLong count = signalingMessageCounts.get(key);
+        if (count == null) {
+            signalingMessageCounts.putIfAbsent(key, new AtomicLong());
+            count = signalingMessageCounts.get(key);
+        }
+        count.incrementAndGet();
+    }
+
     private void processAck(final String id) {
         DCHECK(callbackExecutor);
         callbackExecutor.execute(() -> {
@@ -594,22 +668,16 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
     ///@cond
     // SignalingChannelObserver
     @Override
-    public void onRoomConnected(final JSONObject info) {
+    public void onRoomConnected(final ConferenceInfo info) {
         Log.d(LOG_TAG, "Room connected.");
         DCHECK(callbackExecutor);
         changeRoomStatus(RoomStates.CONNECTED);
         callbackExecutor.execute(() -> {
-            ConferenceInfo conferenceInfo;
-            try {
-                if (joinCallback != null) {
-                    conferenceInfo = new ConferenceInfo(info);
-                    synchronized (infoLock) {
-                        ConferenceClient.this.conferenceInfo = conferenceInfo;
-                    }
-                    joinCallback.onSuccess(conferenceInfo);
+            if (joinCallback != null) {
+                synchronized (infoLock) {
+                    conferenceInfo = info;
                 }
-            } catch (JSONException e) {
-                triggerCallback(joinCallback, new OwtError(e.getMessage()));
+                joinCallback.onSuccess(info);
             }
             joinCallback = null;
         });
@@ -684,7 +752,7 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         callbackExecutor.execute(() -> {
             synchronized (infoLock) {
                 if (conferenceInfo != null) {
-                    conferenceInfo.remoteStreams.add(remoteStream);
+                    conferenceInfo.addRemoteStream(remoteStream);
                 }
             }
             for (ConferenceClientObserver observer : observers) {
@@ -698,14 +766,10 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         DCHECK(callbackExecutor);
         callbackExecutor.execute(() -> {
             synchronized (infoLock) {
-                if (conferenceInfo != null) {
-                    for (RemoteStream remoteStream : conferenceInfo.remoteStreams) {
-                        if (remoteStream.id().equals(streamId)) {
-                            conferenceInfo.remoteStreams.remove(remoteStream);
-                            remoteStream.onEnded();
-                            break;
-                        }
-                    }
+                RemoteStream remoteStream = conferenceInfo == null ? null
+                        : conferenceInfo.removeRemoteStream(streamId);
+                if (remoteStream != null) {
+                    remoteStream.onEnded();
                 }
             }
         });
@@ -720,57 +784,45 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
                 switch (field) {
                     case "video.layout":
                         synchronized (infoLock) {
-                            if(conferenceInfo != null) {
-                                for (RemoteStream remoteStream : conferenceInfo.remoteStreams) {
-                                    if (remoteStream.id().equals(id)) {
-                                        ((RemoteMixedStream) remoteStream).updateRegions(
-                                                updateInfo.getJSONArray("value"));
-                                    }
-                                }
+                            RemoteStream remoteStream = conferenceInfo == null ? null
+                                    : conferenceInfo.getRemoteStream(id);
+                            if (remoteStream != null) {
+                                ((RemoteMixedStream) remoteStream).updateRegions(
+                                        updateInfo.getJSONArray("value"), callbackExecutor);
                             }
                         }
                         break;
                     case "audio.status":
                     case "video.status":
-                        for (ConferencePeerConnectionChannel pcChannel : pcChannels.values()) {
-                            // For subscription id will be the RemoteStream id, for publication
-                            // the id will be publication id which is pc.key.
-                            if(pcChannel.stream == null || pcChannel.stream.disposed()) {
-                                continue;
-                            }
-                            if (pcChannel.stream.id().equals(id) || pcChannel.key.equals(id)) {
-                                TrackKind trackKind = field.equals("audio.status")
-                                        ? TrackKind.AUDIO : TrackKind.VIDEO;
-                                boolean active = updateInfo.getString("value").equals("active");
-                                if (pcChannel.publication != null) {
-                                    pcChannel.publication.onStatusUpdated(trackKind, active);
-                                } else if (pcChannel.subscription != null){
-                                    pcChannel.subscription.onStatusUpdated(trackKind, active);
-                                }
-                            }
+                        // For subscription id will be the RemoteStream id, for publication
+                        // the id will be publication id which is pc.key.
+                        TrackKind trackKind = field.equals("audio.status")
+                                ? TrackKind.AUDIO : TrackKind.VIDEO;
+                        boolean active = updateInfo.getString("value").equals("active");
+                        ConferencePeerConnectionChannel byKey = pcChannels.get(id);
+                        ConferencePeerConnectionChannel byStream = subscribedStreams.get(id);
+                        onStatusUpdated(byKey, trackKind, active);
+                        if (byStream != byKey) {
+                            onStatusUpdated(byStream, trackKind, active);
                         }
                         break;
                     case "activeInput":
                         synchronized (infoLock) {
-                            if(conferenceInfo != null) {
-                                for (RemoteStream remoteStream : conferenceInfo.remoteStreams) {
-                                    if (remoteStream.id().equals(id)) {
-                                        ((RemoteMixedStream) remoteStream).updateActiveInput(
-                                                updateInfo.getString("value"));
-                                    }
-                                }
+                            RemoteStream remoteStream = conferenceInfo == null ? null
+                                    : conferenceInfo.getRemoteStream(id);
+                            if (remoteStream != null) {
+                                ((RemoteMixedStream) remoteStream).updateActiveInput(
+                                        updateInfo.getString("value"), callbackExecutor);
                             }
                         }
                         break;
                     case ".":
                         synchronized (infoLock) {
-                            if (conferenceInfo != null) {
-                                for (RemoteStream remoteStream : conferenceInfo.remoteStreams) {
-                                    if (remoteStream.id().equals(id)) {
-                                        JSONObject streamInfo = updateInfo.getJSONObject("value");
-                                        remoteStream.updateStreamInfo(streamInfo, true);
-                                    }
-                                }
+                            RemoteStream remoteStream = conferenceInfo == null ? null
+                                    : conferenceInfo.getRemoteStream(id);
+                            if (remoteStream != null) {
+                                JSONObject streamInfo = updateInfo.getJSONObject("value");
+                                remoteStream.updateStreamInfo(streamInfo, true);
                             }
                         }
                         break;
@@ -781,6 +833,18 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         });
     }
 
+    private void onStatusUpdated(ConferencePeerConnectionChannel pcChannel, TrackKind trackKind,
+            boolean active) {
+        if (pcChannel == null || pcChannel.stream == null || pcChannel.stream.disposed()) {
+            return;
+        }
+        if (pcChannel.publication != null) {
+            pcChannel.publication.onStatusUpdated(trackKind, active);
+        } else if (pcChannel.subscription != null) {
+            pcChannel.subscription.onStatusUpdated(trackKind, active);
+        }
+    }
+
     @Override
     public void onParticipantJoined(final JSONObject participantInfo) {
         DCHECK(callbackExecutor);
@@ -789,7 +853,7 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
                 Participant participant = new Participant(participantInfo);
                 synchronized (infoLock) {
                     if (conferenceInfo != null) {
-                        conferenceInfo.participants.add(participant);
+                        conferenceInfo.addParticipant(participant);
                     }
                 }
                 for (ConferenceClientObserver observer : observers) {
@@ -806,14 +870,10 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         DCHECK(callbackExecutor);
         callbackExecutor.execute(() -> {
             synchronized (infoLock) {
-                if (conferenceInfo != null) {
-                    for (Participant participant : conferenceInfo.participants) {
-                        if (participant.id.equals(participantId)) {
-                            conferenceInfo.participants.remove(participant);
-                            participant.onLeft();
-                            break;
-                        }
-                    }
+                Participant participant = conferenceInfo == null ? null
+                        : conferenceInfo.removeParticipant(participantId);
+                if (participant != null) {
+                    participant.onLeft();
                 }
             }
         });
@@ -822,16 +882,34 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
     // PeerConnectionChannelObserver
     @Override
     public void onIceCandidate(final String id, final IceCandidate candidate) {
-        try {
-            JSONObject candidateObj = new JSONObject();
-            candidateObj.put("sdpMLineIndex", candidate.sdpMLineIndex);
-            candidateObj.put("sdpMid", candidate.sdpMid);
-            candidateObj.put("candidate",
-                    candidate.sdp.indexOf("a=") == 0 ? candidate.sdp : "a=" + candidate.sdp);
+        if (iceCandidateBatcher != null) {
+            iceCandidateBatcher.add(id, candidate);
+        } else {
+            sendIceCandidates(id, Collections.singletonList(candidate));
+        }
+    }
 
+    @Override
+    public void onIceGatheringComplete(final String id) {
+        if (iceCandidateBatcher != null) {
+            iceCandidateBatcher.flush(id);
+        }
+    }
+
+    private void sendIceCandidates(String id, List<IceCandidate> candidates) {
+        try {
             JSONObject candidateMsg = new JSONObject();
-            candidateMsg.put("type", "candidate");
-            candidateMsg.put("candidate", candidateObj);
+            if (candidates.size() == 1) {
+                candidateMsg.put("type", "candidate");
+                candidateMsg.put("candidate", iceCandidateToJson(candidates.get(0)));
+            } else {
+                JSONArray candidateArray = new JSONArray();
+                for (IceCandidate candidate : candidates) {
+                    candidateArray.put(iceCandidateToJson(candidate));
+                }
+                candidateMsg.put("type", "candidates");
+                candidateMsg.put("candidates", candidateArray);
+            }
 
             JSONObject msg = new JSONObject();
             msg.put("id", id);
@@ -843,17 +921,25 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         }
     }
 
+    private JSONObject iceCandidateToJson(IceCandidate candidate) throws JSONException {
+        JSONObject candidateObj = new JSONObject();
+        candidateObj.put("sdpMLineIndex", candidate.sdpMLineIndex);
+        candidateObj.put("sdpMid", candidate.sdpMid);
+        candidateObj.put("candidate",
+                candidate.sdp.indexOf("a=") == 0 ? candidate.sdp : "a=" + candidate.sdp);
+        return candidateObj;
+    }
+
     @Override
     public void onIceCandidatesRemoved(final String id, final IceCandidate[] candidates) {
+        if (iceCandidateBatcher != null) {
+            // Candidates must not be removed before they have been sent.
+            iceCandidateBatcher.flush(id);
+        }
         try {
             JSONArray removedCandidates = new JSONArray();
             for (IceCandidate candidate : candidates) {
-                JSONObject candidateObj = new JSONObject();
-                candidateObj.put("sdpMLineIndex", candidate.sdpMLineIndex);
-                candidateObj.put("sdpMid", candidate.sdpMid);
-                candidateObj.put("candidate",
-                        candidate.sdp.indexOf("a=") == 0 ? candidate.sdp : "a=" + candidate.sdp);
-                removedCandidates.put(candidateObj);
+                removedCandidates.put(iceCandidateToJson(candidate));
             }
 
             JSONObject rmCanMsg = new JSONObject();
@@ -872,13 +958,9 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
     @Override
     public void onLocalDescription(final String id, final SessionDescription localSdp) {
         try {
-            SessionDescription sdp =
-                    new SessionDescription(localSdp.type,
-                            localSdp.description.replaceAll(
-                                    "a=ice-options:google-ice\r\n", ""));
             JSONObject sdpObj = new JSONObject();
-            sdpObj.put("type", sdp.type.toString().toLowerCase(Locale.US));
-            sdpObj.put("sdp", sdp.description);
+            sdpObj.put("type", localSdp.type.toString().toLowerCase(Locale.US));
+            sdpObj.put("sdp", localSdp.description);
 
             JSONObject msg = new JSONObject();
             msg.put("id", id);
@@ -892,10 +974,10 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
 
     @Override
     public void onEnded(final String id) {
-        if (pcChannels.containsKey(id)) {
-            pcChannels.get(id).dispose();
-            pcChannels.remove(id);
+        if (iceCandidateBatcher != null) {
+            iceCandidateBatcher.drop(id);
         }
+        removePeerConnection(id);
     }
 
     @Override
@@ -911,13 +993,12 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
                 subCallbacks.remove(id);
             }
         });
-        for (ConferencePeerConnectionChannel pcChannel : pcChannels.values()) {
-            if (pcChannel.key.equals(id)) {
-                if (pcChannel.publication != null) {
-                    pcChannel.publication.onError(error);
-                } else if (pcChannel.subscription != null){
-                    pcChannel.subscription.onError(error);
-                }
+        ConferencePeerConnectionChannel pcChannel = pcChannels.get(id);
+        if (pcChannel != null) {
+            if (pcChannel.publication != null) {
+                pcChannel.publication.onError(error);
+            } else if (pcChannel.subscription != null){
+                pcChannel.subscription.onError(error);
             }
         }
         onEnded(id);
@@ -934,6 +1015,21 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
 
     }
 
+    @Override
+    public void onDataChannelMessage(String key, ByteBuffer message) {
+
+    }
+
+    @Override
+    public void onDataChannelMessage(String key, String label, ByteBuffer message) {
+
+    }
+
+    @Override
+    public void onDataChannelWritable(String key, boolean writable) {
+
+    }
+
     @Override
     public void onRenegotiationRequest(String key) {
 
@@ -4,10 +4,25 @@
  */
 package owt.conference;
 
+import static owt.base.CheckCondition.RCHECK;
+
+import android.os.Handler;
+import android.os.Looper;
+
 import owt.base.ClientConfiguration;
+import owt.base.MediaCodecs.AudioCodec;
+import owt.base.MediaCodecs.VideoCodec;
+import owt.base.SdpTransformer;
+import owt.base.SdpTransformers;
 
 import org.webrtc.PeerConnection;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
 
@@ -18,9 +33,18 @@ public final class ConferenceClientConfiguration extends ClientConfiguration {
 
     SSLContext sslContext = null;
     HostnameVerifier hostnameVerifier = null;
+    long iceCandidateBatchWindow = 0;
+    int signalingQueueCapacity = SignalingMessageQueue.DEFAULT_CAPACITY;
+    int initialRemoteStreamLimit = Integer.MAX_VALUE;
+    ConferenceSignalingTransport.Factory signalingTransportFactory =
+            SocketIoSignalingTransport.factory();
 
-    private ConferenceClientConfiguration(PeerConnection.RTCConfiguration configuration) {
-        super(configuration);
+    private ConferenceClientConfiguration(PeerConnection.RTCConfiguration configuration,
+            List<SdpTransformer> sdpTransformers,
+            Map<String, List<String>> sectionCodecs, Executor signalingExecutor,
+            Executor peerConnectionExecutor, Executor callbackExecutor) {
+        super(configuration, sdpTransformers, sectionCodecs, signalingExecutor,
+                peerConnectionExecutor, callbackExecutor);
     }
 
     /**
@@ -39,12 +63,24 @@ public final class ConferenceClientConfiguration extends ClientConfiguration {
         private SSLContext sslContext = null;
         private HostnameVerifier hostnameVerifier = null;
         private PeerConnection.RTCConfiguration rtcConfiguration = null;
+        private final List<SdpTransformer> sdpTransformers = new ArrayList<>();
+        private final Map<String, List<String>> sectionCodecs = new HashMap<>();
+        private Executor signalingExecutor = null;
+        private Executor peerConnectionExecutor = null;
+        private Executor callbackExecutor = null;
+        private long iceCandidateBatchWindow = 0;
+        private int signalingQueueCapacity = SignalingMessageQueue.DEFAULT_CAPACITY;
+        private int initialRemoteStreamLimit = Integer.MAX_VALUE;
+        private ConferenceSignalingTransport.Factory signalingTransportFactory =
+                SocketIoSignalingTransport.factory();
 
         Builder() {
+            sdpTransformers.add(SdpTransformers.codecPreference());
+            sdpTransformers.add(SdpTransformers.removeGoogleIceOptions());
         }
 
         /**
-         * Set up the SSL context for the underlying socket.io communication.
+         * Set up the SSL context for the underlying socket.io or WebSocket communication.
          *
          * @param sslContext SSLContext to be set.
          * @return Builder
@@ -55,7 +91,7 @@ public final class ConferenceClientConfiguration extends ClientConfiguration {
         }
 
         /**
-         * Set up the hostname verifier for the underlying socket.io communication.
+         * Set up the hostname verifier for the underlying socket.io or WebSocket communication.
          *
          * @param hostnameVerifier HostnameVerifier to be set.
          * @return Builder
@@ -65,6 +101,20 @@ public final class ConferenceClientConfiguration extends ClientConfiguration {
             return this;
         }
 
+        /**
+         * Set up the factory of the transport exchanging signaling messages with the conference
+         * server, e.g. WebSocketSignalingTransport.factory() or a factory returning a
+         * LoopbackSignalingTransport. SocketIoSignalingTransport.factory() is used by default.
+         *
+         * @param factory ConferenceSignalingTransport.Factory to be set.
+         * @return Builder
+         */
+        public Builder setSignalingTransportFactory(ConferenceSignalingTransport.Factory factory) {
+            RCHECK(factory);
+            this.signalingTransportFactory = factory;
+            return this;
+        }
+
         /**
          * Set up the RTCConfiguration for the underlying WebRTC PeerConnection
          *
@@ -76,6 +126,158 @@ public final class ConferenceClientConfiguration extends ClientConfiguration {
             return this;
         }
 
+        /**
+         * Set the video codecs in preferred order for the media section with mid |midOrTrackId|,
+         * or else the one sending the track with id |midOrTrackId|. They override the video
+         * codecs set for the whole PeerConnection, so that e.g. a camera track and a screen
+         * sharing track published together can use different codecs.
+         *
+         * @param midOrTrackId mid of a media section or id of a track.
+         * @param codecs video codecs in preferred order.
+         * @return Builder
+         */
+        public Builder setCodecPreference(String midOrTrackId, VideoCodec... codecs) {
+            RCHECK(midOrTrackId);
+            RCHECK(codecs.length != 0);
+            sectionCodecs.put(midOrTrackId, codecNames(codecs));
+            return this;
+        }
+
+        /**
+         * Set the audio codecs in preferred order for the media section with mid |midOrTrackId|,
+         * or else the one sending the track with id |midOrTrackId|. They override the audio
+         * codecs set for the whole PeerConnection.
+         *
+         * @param midOrTrackId mid of a media section or id of a track.
+         * @param codecs audio codecs in preferred order.
+         * @return Builder
+         */
+        public Builder setCodecPreference(String midOrTrackId, AudioCodec... codecs) {
+            RCHECK(midOrTrackId);
+            RCHECK(codecs.length != 0);
+            sectionCodecs.put(midOrTrackId, codecNames(codecs));
+            return this;
+        }
+
+        /**
+         * Set up the executor for processing signaling messages. Tasks of a client are still
+         * run one at a time, in order, if |signalingExecutor| runs tasks concurrently.
+         * Without it, a thread pool shared by all the clients is used.
+         *
+         * @param signalingExecutor Executor to be set.
+         * @return Builder
+         */
+        public Builder setSignalingExecutor(Executor signalingExecutor) {
+            this.signalingExecutor = signalingExecutor;
+            return this;
+        }
+
+        /**
+         * Set up the executor for operating on the underlying WebRTC PeerConnections. Tasks of a
+         * PeerConnection are still run one at a time, in order, if |peerConnectionExecutor| runs
+         * tasks concurrently. Without it, a thread pool shared by all the clients is used.
+         *
+         * @param peerConnectionExecutor Executor to be set.
+         * @return Builder
+         */
+        public Builder setPeerConnectionExecutor(Executor peerConnectionExecutor) {
+            this.peerConnectionExecutor = peerConnectionExecutor;
+            return this;
+        }
+
+        /**
+         * Set up the executor for triggering the callbacks and observers of the application.
+         * Callbacks are still triggered one at a time, in order, if |callbackExecutor| runs
+         * tasks concurrently. Without it, a thread pool shared by all the clients is used.
+         *
+         * @param callbackExecutor Executor to be set.
+         * @return Builder
+         */
+        public Builder setCallbackExecutor(Executor callbackExecutor) {
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
+        /**
+         * Trigger the callbacks and observers of the application on the thread of |looper|,
+         * e.g. Looper.getMainLooper().
+         *
+         * @param looper Looper to be set.
+         * @return Builder
+         */
+        public Builder setCallbackLooper(Looper looper) {
+            RCHECK(looper);
+            Handler handler = new Handler(looper);
+            this.callbackExecutor = handler::post;
+            return this;
+        }
+
+        /**
+         * Batch the local ICE candidates of each PeerConnection: candidates gathered within
+         * |windowMs| milliseconds after the first one of a batch are sent in one signaling
+         * message, and the batch is sent right away when ICE gathering completes. A batch of
+         * several candidates is sent as a "soac" message of which the "signaling" field is
+         * {"type": "candidates", "candidates": [{"sdpMLineIndex": ..., "sdpMid": ...,
+         * "candidate": "a=candidate:..."}, ...]}, so the conference server must support this
+         * type. A batch of a single candidate is sent as a "candidate" message as usual.
+         * Batching is disabled by default, every candidate being sent once gathered.
+         *
+         * @param windowMs time window in milliseconds, 0 to disable batching.
+         * @return Builder
+         */
+        public Builder setIceCandidateBatchWindow(long windowMs) {
+            RCHECK(windowMs >= 0);
+            this.iceCandidateBatchWindow = windowMs;
+            return this;
+        }
+
+        /**
+         * Set up the maximum number of signaling messages kept while the connection to the
+         * conference server is lost, to be sent once it is back. When the limit is reached,
+         * ICE candidates are dropped first, then other requests, the oldest first. The default
+         * is 256.
+         *
+         * @param capacity maximum number of messages, must be positive.
+         * @return Builder
+         */
+        public Builder setSignalingQueueCapacity(int capacity) {
+            RCHECK(capacity > 0);
+            this.signalingQueueCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * Set up the maximum number of the RemoteStream%s of the room read before
+         * ConferenceClient.join succeeds. The rest of them are notified by
+         * ConferenceClientObserver.onStreamAdded right after join succeeds, which lets a client
+         * joining a large room start earlier. It only takes effect when the
+         * ConferenceSignalingTransport delivers the login result as
+         * ConferenceSignalingTransport.RawJson, like WebSocketSignalingTransport does; otherwise
+         * the whole room is read before join succeeds. All the streams are read by default.
+         *
+         * @param limit maximum number of RemoteStream%s, must not be negative.
+         * @return Builder
+         */
+        public Builder setInitialRemoteStreamLimit(int limit) {
+            RCHECK(limit >= 0);
+            this.initialRemoteStreamLimit = limit;
+            return this;
+        }
+
+        /**
+         * Add a SdpTransformer to modify the local session descriptions. SdpTransformers run in
+         * the order they are added, after the built-in ones: SdpTransformers.codecPreference() and
+         * SdpTransformers.removeGoogleIceOptions().
+         *
+         * @param sdpTransformer SdpTransformer to be added.
+         * @return Builder
+         */
+        public Builder addSdpTransformer(SdpTransformer sdpTransformer) {
+            RCHECK(sdpTransformer);
+            sdpTransformers.add(sdpTransformer);
+            return this;
+        }
+
         /**
          * Build up the ConferenceClientConfiguration.
          *
@@ -83,9 +285,15 @@ public final class ConferenceClientConfiguration extends ClientConfiguration {
          */
         public ConferenceClientConfiguration build() {
             ConferenceClientConfiguration configuration =
-                    new ConferenceClientConfiguration(rtcConfiguration);
+                    new ConferenceClientConfiguration(rtcConfiguration, sdpTransformers,
+                            sectionCodecs, signalingExecutor, peerConnectionExecutor,
+                            callbackExecutor);
             configuration.sslContext = sslContext;
             configuration.hostnameVerifier = hostnameVerifier;
+            configuration.iceCandidateBatchWindow = iceCandidateBatchWindow;
+            configuration.signalingQueueCapacity = signalingQueueCapacity;
+            configuration.initialRemoteStreamLimit = initialRemoteStreamLimit;
+            configuration.signalingTransportFactory = signalingTransportFactory;
             return configuration;
         }
     }
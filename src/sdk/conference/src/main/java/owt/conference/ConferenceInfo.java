@@ -10,26 +10,36 @@ import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 /**
  * Information of the conference.
  */
 public final class ConferenceInfo {
-    // package access here, as the getter methods return an immutable list.
-    final List<Participant> participants;
     private final Object parLock = new Object();
-    final List<RemoteStream> remoteStreams;
+    // key: participant id, in the order of joining.
+    private final LinkedHashMap<String, Participant> participants = new LinkedHashMap<>();
+    // Immutable copy of |participants|, null if it has changed since the last copy.
+    private volatile List<Participant> participantsSnapshot;
     private final Object streamLock = new Object();
+    // key: stream id, in the order of adding.
+    private final LinkedHashMap<String, RemoteStream> remoteStreams = new LinkedHashMap<>();
+    // Immutable copy of |remoteStreams|, null if it has changed since the last copy.
+    private volatile List<RemoteStream> remoteStreamsSnapshot;
     private String id;
     private Participant self;
 
     ConferenceInfo(JSONObject conferenceInfo) throws JSONException {
-        participants = Collections.synchronizedList(new ArrayList<>());
-        remoteStreams = Collections.synchronizedList(new ArrayList<>());
         updateInfo(conferenceInfo);
     }
 
+    // For RoomSnapshotReader, which adds the participants and streams afterwards.
+    ConferenceInfo(String id, Participant self) {
+        this.id = id;
+        this.self = self;
+    }
+
     private void updateInfo(JSONObject conferenceInfo) throws JSONException {
 
         JSONObject room = conferenceInfo.getJSONObject("room");
@@ -40,9 +50,7 @@ public final class ConferenceInfo {
         for (int i = 0; i < participantsInfo.length(); i++) {
             JSONObject participantInfo = participantsInfo.getJSONObject(i);
             Participant participant = new Participant(participantInfo);
-            synchronized (parLock) {
-                participants.add(participant);
-            }
+            addParticipant(participant);
 
             if (participant.id.equals(conferenceInfo.getString("id"))) {
                 self = participant;
@@ -59,9 +67,56 @@ public final class ConferenceInfo {
             } else {
                 remoteStream = new RemoteStream(streamInfo);
             }
-            synchronized (streamLock) {
-                remoteStreams.add(remoteStream);
+            addRemoteStream(remoteStream);
+        }
+    }
+
+    void addParticipant(Participant participant) {
+        synchronized (parLock) {
+            participants.put(participant.id, participant);
+            participantsSnapshot = null;
+        }
+    }
+
+    /**
+     * @return the Participant removed, null if there is no Participant with |participantId|.
+     */
+    Participant removeParticipant(String participantId) {
+        synchronized (parLock) {
+            Participant participant = participants.remove(participantId);
+            if (participant != null) {
+                participantsSnapshot = null;
+            }
+            return participant;
+        }
+    }
+
+    void addRemoteStream(RemoteStream remoteStream) {
+        synchronized (streamLock) {
+            remoteStreams.put(remoteStream.id(), remoteStream);
+            remoteStreamsSnapshot = null;
+        }
+    }
+
+    /**
+     * @return the RemoteStream removed, null if there is no RemoteStream with |streamId|.
+     */
+    RemoteStream removeRemoteStream(String streamId) {
+        synchronized (streamLock) {
+            RemoteStream remoteStream = remoteStreams.remove(streamId);
+            if (remoteStream != null) {
+                remoteStreamsSnapshot = null;
             }
+            return remoteStream;
+        }
+    }
+
+    /**
+     * @return the RemoteStream with |streamId|, null if there is none.
+     */
+    RemoteStream getRemoteStream(String streamId) {
+        synchronized (streamLock) {
+            return remoteStreams.get(streamId);
         }
     }
 
@@ -86,23 +141,41 @@ public final class ConferenceInfo {
     /**
      * Get the information of all the Participant%s in the conference.
      *
-     * @return list of Participant%s in the conference.
+     * @return immutable list of Participant%s in the conference, which is not updated as
+     * Participant%s join or leave.
      */
     public List<Participant> getParticipants() {
-        synchronized (parLock) {
-            return Collections.unmodifiableList(participants);
+        List<Participant> snapshot = participantsSnapshot;
+        if (snapshot == null) {
+            synchronized (parLock) {
+                if (participantsSnapshot == null) {
+                    participantsSnapshot = Collections.unmodifiableList(
+                            new ArrayList<>(participants.values()));
+                }
+                snapshot = participantsSnapshot;
+            }
         }
+        return snapshot;
     }
 
     /**
      * Get the information of all the RemoteStream%s in the conference.
      *
-     * @return list of the RemoteStream%s in the conference.
+     * @return immutable list of the RemoteStream%s in the conference, which is not updated as
+     * RemoteStream%s are added or removed.
      */
     public List<RemoteStream> getRemoteStreams() {
-        synchronized (streamLock) {
-            return Collections.unmodifiableList(remoteStreams);
+        List<RemoteStream> snapshot = remoteStreamsSnapshot;
+        if (snapshot == null) {
+            synchronized (streamLock) {
+                if (remoteStreamsSnapshot == null) {
+                    remoteStreamsSnapshot = Collections.unmodifiableList(
+                            new ArrayList<>(remoteStreams.values()));
+                }
+                snapshot = remoteStreamsSnapshot;
+            }
         }
+        return snapshot;
     }
 
 }
@@ -32,8 +32,9 @@ final class ConferencePeerConnectionChannel extends PeerConnectionChannel {
     Publication publication;
     Subscription subscription;
     private boolean remoteSdpSet = false;
+    private boolean iceGatheringComplete = false;
 
-    ConferencePeerConnectionChannel(String key, PeerConnection.RTCConfiguration configuration,
+    ConferencePeerConnectionChannel(String key, ConferenceClientConfiguration configuration,
             boolean receiveVideo, boolean receiveAudio,
             PeerConnectionChannelObserver observer) {
         super(key, configuration, receiveVideo, receiveAudio, observer);
@@ -101,6 +102,9 @@ final class ConferencePeerConnectionChannel extends PeerConnectionChannel {
                 observer.onIceCandidate(key, iceCandidate);
             }
             queuedLocalCandidates.clear();
+            if (iceGatheringComplete) {
+                observer.onIceGatheringComplete(key);
+            }
 
             if (stream instanceof LocalStream) {
                 setMaxBitrate(stream.id());
@@ -147,6 +151,18 @@ final class ConferencePeerConnectionChannel extends PeerConnectionChannel {
         });
     }
 
+    @Override
+    public void onIceGatheringChange(final PeerConnection.IceGatheringState iceGatheringState) {
+        // Goes through |callbackExecutor| to come after the onIceCandidate of the candidates.
+        callbackExecutor.execute(() -> {
+            iceGatheringComplete =
+                    iceGatheringState == PeerConnection.IceGatheringState.COMPLETE;
+            if (iceGatheringComplete && remoteSdpSet) {
+                observer.onIceGatheringComplete(key);
+            }
+        });
+    }
+
     @Override
     public void onIceCandidatesRemoved(IceCandidate[] iceCandidates) {
         observer.onIceCandidatesRemoved(key, iceCandidates);
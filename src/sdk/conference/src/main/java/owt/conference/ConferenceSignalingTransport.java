@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import io.socket.client.Ack;
+
+/**
+ * Interface for the transport ConferenceClient relies on for exchanging signaling messages with
+ * the conference server. A transport carries named events with an optional message and ack, as
+ * Socket.IO does. ConferenceClient uses SocketIoSignalingTransport by default, another transport
+ * can be set with ConferenceClientConfiguration.Builder.setSignalingTransportFactory().
+ */
+public interface ConferenceSignalingTransport {
+
+    /**
+     * Connect to the conference server at |url|. The transport reconnects by itself when the
+     * connection is lost, up to |reconnectionAttempts| consecutive attempts.
+     *
+     * @param url url of the conference server, e.g. https://example.com:3004.
+     * @param reconnectionAttempts maximum number of consecutive reconnection attempts.
+     * @param observer TransportObserver to be notified of the connection state and events.
+     */
+    void connect(String url, int reconnectionAttempts, TransportObserver observer);
+
+    /**
+     * Close the connection. TransportObserver.onDisconnected will be triggered once closed.
+     */
+    void disconnect();
+
+    /**
+     * Whether the transport is currently connected to the conference server.
+     */
+    boolean isConnected();
+
+    /**
+     * Send an event to the conference server.
+     *
+     * @param event name of the event, e.g. "publish".
+     * @param message message of the event, a JSONObject or a String, null for no message.
+     * @param ack called with the response of the conference server, may be null. An argument of
+     * the response is a JSONObject, a String, or a RawJson the transport has not parsed.
+     */
+    void emit(String event, Object message, Ack ack);
+
+    /**
+     * JSON text of a response argument left unparsed by the transport, so that a large response,
+     * e.g. the room snapshot of "login", can be read incrementally instead of as a JSONObject.
+     */
+    final class RawJson {
+        /**
+         * JSON text of the argument.
+         */
+        public final String text;
+
+        public RawJson(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+    /**
+     * Interface for observing the connection state of a transport and the events received from
+     * the conference server.
+     */
+    interface TransportObserver {
+        /**
+         * Called upon connected, including after a reconnection.
+         */
+        void onConnected();
+
+        /**
+         * Called upon a failed connection or reconnection attempt.
+         */
+        void onConnectError(String errorMsg);
+
+        /**
+         * Called before each reconnection attempt.
+         */
+        void onReconnecting();
+
+        /**
+         * Called once the connection has been closed by ConferenceSignalingTransport.disconnect().
+         */
+        void onDisconnected();
+
+        /**
+         * Called upon receiving an event from the conference server, e.g. "progress", "stream",
+         * "participant", "text" or "drop".
+         *
+         * @param event name of the event.
+         * @param message message of the event, a JSONObject or a String, null if none.
+         */
+        void onEvent(String event, Object message);
+    }
+
+    /**
+     * Interface for creating the transport of each connection to a conference.
+     */
+    interface Factory {
+        /**
+         * Create a transport for a ConferenceClient joining a conference.
+         *
+         * @param configuration configuration of the ConferenceClient.
+         * @return ConferenceSignalingTransport
+         */
+        ConferenceSignalingTransport create(ConferenceClientConfiguration configuration);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static owt.base.CheckCondition.DCHECK;
+
+import owt.base.WorkerPool;
+
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Coalesces the local ICE candidates of each PeerConnection gathered within a time window, so
+ * that they are sent in one signaling message instead of one message per candidate. The first
+ * candidate of a batch starts the window, flush() sends the batch before it ends, e.g. when ICE
+ * gathering completes.
+ */
+final class IceCandidateBatcher {
+
+    interface Sender {
+        /**
+         * Send |candidates| gathered by the PeerConnection with |key|, in gathering order.
+         */
+        void send(String key, List<IceCandidate> candidates);
+    }
+
+    private final long windowMs;
+    private final Executor executor;
+    private final Sender sender;
+    // key: publication/subscription id.
+    private final HashMap<String, List<IceCandidate>> batches = new HashMap<>();
+
+    /**
+     * @param windowMs time window in milliseconds, must be positive.
+     * @param executor executor on which the batches are flushed when their window ends.
+     */
+    IceCandidateBatcher(long windowMs, Executor executor, Sender sender) {
+        DCHECK(windowMs > 0);
+        this.windowMs = windowMs;
+        this.executor = executor;
+        this.sender = sender;
+    }
+
+    void add(final String key, IceCandidate candidate) {
+        synchronized (batches) {
+            List<IceCandidate> batch = batches.get(key);
+            if (batch != null) {
+                batch.add(candidate);
+                return;
+            }
+            batch = new ArrayList<>();
+            batch.add(candidate);
+            batches.put(key, batch);
+        }
+        WorkerPool.schedule(executor, () -> flush(key), windowMs);
+    }
+
+    /**
+     * Send the pending candidates of |key| now. The timer of the batch is left running, it
+     * finds nothing to send or sends a batch started meanwhile earlier than needed.
+     */
+    void flush(String key) {
+        // Sending while holding the lock keeps the batches of a key in order, also with a
+        // removed-candidates message sent right after flush().
+        synchronized (batches) {
+            List<IceCandidate> batch = batches.remove(key);
+            if (batch != null) {
+                sender.send(key, batch);
+            }
+        }
+    }
+
+    /**
+     * Drop the pending candidates of |key|, e.g. when its PeerConnection has ended.
+     */
+    void drop(String key) {
+        synchronized (batches) {
+            batches.remove(key);
+        }
+    }
+
+    void clear() {
+        synchronized (batches) {
+            batches.clear();
+        }
+    }
+}
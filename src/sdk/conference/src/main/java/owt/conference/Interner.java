@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Pool of immutable values which returns a canonical instance for equal values. Values are held
+ * weakly, a canonical instance is dropped once nothing else refers to it, so the pool is bounded
+ * by the distinct values in use.
+ */
+final class Interner<T> {
+    private final WeakHashMap<T, WeakReference<T>> pool = new WeakHashMap<>();
+
+    /**
+     * @return the canonical instance equal to |value|, which is |value| if there was none.
+     */
+    synchronized T intern(T value) {
+        if (value == null) {
+            return null;
+        }
+        WeakReference<T> reference = pool.get(value);
+        T canonical = reference == null ? null : reference.get();
+        if (canonical == null) {
+            pool.put(value, new WeakReference<>(value));
+            canonical = value;
+        }
+        return canonical;
+    }
+
+    /**
+     * @return number of canonical instances in the pool.
+     */
+    synchronized int size() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static owt.base.CheckCondition.RCHECK;
+
+import owt.base.SerialExecutor;
+import owt.base.WorkerPool;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.socket.client.Ack;
+
+/**
+ * ConferenceSignalingTransport connected to a conference server scripted in the same process,
+ * for testing and benchmarking ConferenceClient without a network. Messages are passed to the
+ * Server as they are, without serialization, and events pushed by the Server are delivered to
+ * the ConferenceClient in order, one at a time.
+ *
+ * A LoopbackSignalingTransport may be connected again after it has been disconnected, so a
+ * Factory returning the same instance can be set to the ConferenceClientConfiguration.
+ */
+public final class LoopbackSignalingTransport implements ConferenceSignalingTransport {
+
+    /**
+     * Interface of the scripted conference server.
+     */
+    public interface Server {
+        /**
+         * Called upon a ConferenceClient connected through |transport|.
+         */
+        void onConnected(LoopbackSignalingTransport transport);
+
+        /**
+         * Called upon receiving an event from the ConferenceClient, e.g. "login" or "publish".
+         * Respond by calling |ack|, e.g. ack.call("ok", result), and push events by
+         * LoopbackSignalingTransport.push().
+         *
+         * @param transport transport the event has been received from.
+         * @param event name of the event.
+         * @param message message of the event, null if none.
+         * @param ack ack of the event, null if none.
+         */
+        void onEvent(LoopbackSignalingTransport transport, String event, Object message,
+                Ack ack);
+
+        /**
+         * Called upon the ConferenceClient disconnected.
+         */
+        void onDisconnected(LoopbackSignalingTransport transport);
+    }
+
+    private final Server server;
+    private final Executor backingExecutor;
+    // Runs the server and the events to the client, like the event thread of a socket. Shut down
+    // upon disconnection and replaced upon the next connection. Guarded by |this|.
+    private SerialExecutor executor;
+    private final AtomicLong emittedEvents = new AtomicLong();
+    private final AtomicLong pushedEvents = new AtomicLong();
+    private TransportObserver observer;
+    private boolean connected = false;
+
+    /**
+     * Create a LoopbackSignalingTransport running |server| on the thread pool shared by the SDK.
+     *
+     * @param server Server to be connected.
+     */
+    public LoopbackSignalingTransport(Server server) {
+        this(server, null);
+    }
+
+    /**
+     * Create a LoopbackSignalingTransport running |server| on |executor|, one task at a time.
+     *
+     * @param server Server to be connected.
+     * @param executor Executor for the server and the delivery of its events, e.g. a direct
+     * executor for deterministic tests.
+     */
+    public LoopbackSignalingTransport(Server server, Executor executor) {
+        RCHECK(server);
+        this.server = server;
+        this.backingExecutor = executor;
+        this.executor = WorkerPool.newSerialExecutor(executor);
+    }
+
+    @Override
+    public void connect(String url, int reconnectionAttempts, final TransportObserver observer) {
+        RCHECK(observer);
+        renewExecutor().execute(() -> {
+            synchronized (this) {
+                this.observer = observer;
+                connected = true;
+                // In case it has been disconnected since connect() was called.
+                renewExecutor();
+            }
+            server.onConnected(this);
+            observer.onConnected();
+        });
+    }
+
+    @Override
+    public void disconnect() {
+        currentExecutor().execute(() -> {
+            TransportObserver observer;
+            synchronized (this) {
+                if (!connected) {
+                    return;
+                }
+                connected = false;
+                observer = this.observer;
+                // Released until the next connection, like the executor of a
+                // WebSocketSignalingTransport.
+                executor.shutdown();
+            }
+            server.onDisconnected(this);
+            observer.onDisconnected();
+        });
+    }
+
+    private synchronized SerialExecutor currentExecutor() {
+        return executor;
+    }
+
+    // @return the executor, replaced if it has been shut down upon disconnection.
+    private synchronized SerialExecutor renewExecutor() {
+        if (executor.isShutdown()) {
+            executor = WorkerPool.newSerialExecutor(backingExecutor);
+        }
+        return executor;
+    }
+
+    @Override
+    public synchronized boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void emit(final String event, final Object message, final Ack ack) {
+        emittedEvents.incrementAndGet();
+        currentExecutor().execute(() -> server.onEvent(this, event, message,
+                ack == null ? null : args -> currentExecutor().execute(() -> ack.call(args))));
+    }
+
+    /**
+     * Push an event of the server to the ConferenceClient, e.g. a "progress", "stream",
+     * "participant" or "text" event.
+     *
+     * @param event name of the event.
+     * @param message message of the event, a JSONObject or a String.
+     */
+    public void push(final String event, final Object message) {
+        pushedEvents.incrementAndGet();
+        currentExecutor().execute(() -> {
+            TransportObserver observer;
+            synchronized (this) {
+                if (!connected) {
+                    return;
+                }
+                observer = this.observer;
+            }
+            observer.onEvent(event, message);
+        });
+    }
+
+    /**
+     * Number of events emitted by the ConferenceClient.
+     */
+    public long emittedEvents() {
+        return emittedEvents.get();
+    }
+
+    /**
+     * Number of events pushed by the server.
+     */
+    public long pushedEvents() {
+        return pushedEvents.get();
+    }
+}
@@ -35,6 +35,12 @@ public final class Participant {
         userId = participantInfo.getString("user");
     }
 
+    Participant(String id, String role, String userId) {
+        this.id = id;
+        this.role = role;
+        this.userId = userId;
+    }
+
     /**
      * Add a ParticipantObserver.
      *
@@ -5,9 +5,12 @@
 package owt.conference;
 
 import static owt.base.CheckCondition.DCHECK;
+import static owt.base.CheckCondition.RCHECK;
 import static owt.conference.JsonUtils.getObj;
 import static owt.conference.JsonUtils.getString;
 
+import owt.base.WorkerPool;
+
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -17,6 +20,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * RemoteMixedStream represents the stream mixed by the conference server.
@@ -27,19 +31,32 @@ public final class RemoteMixedStream extends RemoteStream {
      * View label of the RemoteMixedStream.
      */
     public final String view;
-    private String activeAudioInput;
+    private volatile String activeAudioInput;
     /**
-     * List of Region%s that indicates the video layout of the RemoteStream.
+     * List of Region%s that indicates the video layout of the RemoteStream, replaced as a whole
+     * upon changes.
      */
-    private List<Region> regions;
+    private volatile List<Region> regions;
+    private final Object eventLock = new Object();
+    // Guarded by |eventLock|.
+    private long coalescingWindowMs = 0;
+    private boolean flushScheduled = false;
+    private boolean layoutPending = false;
+    private boolean activeInputPending = false;
+    // Latest layout and active input delivered to the observers.
+    private List<Region> deliveredRegions;
+    private String deliveredActiveInput;
+    private long mergedEvents = 0;
+    private long droppedEvents = 0;
 
     RemoteMixedStream(JSONObject streamInfo) throws JSONException {
         super(streamInfo);
         JSONObject info = getObj(streamInfo, "info", true);
         view = getString(info, "label", "");
         activeAudioInput = getString(info, "activeInput", "");
-        regions = new ArrayList<>();
-        updateRegions(info.getJSONArray("layout"));
+        regions = parseRegions(info.getJSONArray("layout"), Collections.<Region>emptyList());
+        deliveredRegions = regions;
+        deliveredActiveInput = activeAudioInput;
     }
 
     /**
@@ -48,27 +65,147 @@ public final class RemoteMixedStream extends RemoteStream {
      * @return list of Region%s in this RemoteMixedStream.
      */
     public List<Region> regions() {
-        return Collections.unmodifiableList(regions);
+        return regions;
     }
 
     public String activeAudioInput() {
         return activeAudioInput;
     }
 
-    void updateRegions(JSONArray regionsInfo) {
-        regions.clear();
+    /**
+     * Coalesce the layout and active audio input changes within a time window, so that
+     * RemoteMixedStreamObserver is notified of the latest ones only, once the window ends. The
+     * first change after a notification starts the window. regions() and activeAudioInput()
+     * always return the latest values. Changes are notified right away by default.
+     *
+     * @param windowMs time window in milliseconds, 0 to disable coalescing.
+     */
+    public void setEventCoalescingWindow(long windowMs) {
+        RCHECK(windowMs >= 0);
+        synchronized (eventLock) {
+            coalescingWindowMs = windowMs;
+        }
+    }
+
+    /**
+     * @return number of layout and active audio input changes superseded by a later one within
+     * the coalescing window, so that they have not been notified.
+     */
+    public long mergedEventCount() {
+        synchronized (eventLock) {
+            return mergedEvents;
+        }
+    }
+
+    /**
+     * @return number of layout and active audio input updates that have not been notified
+     * because they changed nothing since the former notification.
+     */
+    public long droppedEventCount() {
+        synchronized (eventLock) {
+            return droppedEvents;
+        }
+    }
+
+    /**
+     * @param executor executor on which the observers are notified at the end of the coalescing
+     * window.
+     */
+    void updateRegions(JSONArray regionsInfo, Executor executor) {
+        List<Region> current = regions;
+        List<Region> updated = parseRegions(regionsInfo, current);
+        synchronized (eventLock) {
+            if (updated.equals(current)) {
+                droppedEvents++;
+                return;
+            }
+            regions = updated;
+            if (layoutPending) {
+                mergedEvents++;
+            }
+            layoutPending = true;
+            if (coalescingWindowMs > 0) {
+                scheduleFlush(executor);
+                return;
+            }
+        }
+        flush();
+    }
+
+    void updateActiveInput(String activeInput, Executor executor) {
+        synchronized (eventLock) {
+            if (activeInput.equals(activeAudioInput)) {
+                droppedEvents++;
+                return;
+            }
+            activeAudioInput = activeInput;
+            if (activeInputPending) {
+                mergedEvents++;
+            }
+            activeInputPending = true;
+            if (coalescingWindowMs > 0) {
+                scheduleFlush(executor);
+                return;
+            }
+        }
+        flush();
+    }
+
+    // Called with |eventLock| held.
+    private void scheduleFlush(Executor executor) {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            WorkerPool.schedule(executor, this::flush, coalescingWindowMs);
+        }
+    }
+
+    // Notifies the pending changes, those reverted within the window are dropped.
+    private void flush() {
+        List<Region> layout = null;
+        String activeInput = null;
+        synchronized (eventLock) {
+            flushScheduled = false;
+            if (layoutPending) {
+                layoutPending = false;
+                if (regions.equals(deliveredRegions)) {
+                    droppedEvents++;
+                } else {
+                    layout = deliveredRegions = regions;
+                }
+            }
+            if (activeInputPending) {
+                activeInputPending = false;
+                if (activeAudioInput.equals(deliveredActiveInput)) {
+                    droppedEvents++;
+                } else {
+                    activeInput = deliveredActiveInput = activeAudioInput;
+                }
+            }
+        }
+        if (layout != null) {
+            triggerLayoutChange(layout);
+        }
+        if (activeInput != null) {
+            triggerActiveInputChange(activeInput);
+        }
+    }
+
+    // Regions equal to the one at the same position of |current| are reused.
+    private static List<Region> parseRegions(JSONArray regionsInfo, List<Region> current) {
+        List<Region> result = new ArrayList<>(regionsInfo.length());
         try {
             for (int i = 0; i < regionsInfo.length(); i++) {
-                JSONObject region = regionsInfo.getJSONObject(i);
-                regions.add(new Region(region));
+                Region region = new Region(regionsInfo.getJSONObject(i));
+                result.add(i < current.size() && current.get(i).equals(region)
+                        ? current.get(i) : region);
             }
         } catch (JSONException e) {
             DCHECK(e);
         }
-        triggerLayoutChange();
+        return Collections.unmodifiableList(result);
     }
 
-    private void triggerLayoutChange() {
+    private void triggerLayoutChange(List<Region> regions) {
         if (observers != null) {
             for (StreamObserver observer : observers) {
                 if (observer instanceof RemoteMixedStreamObserver) {
@@ -78,11 +215,6 @@ public final class RemoteMixedStream extends RemoteStream {
         }
     }
 
-    void updateActiveInput(String activeInput) {
-        this.activeAudioInput = activeInput;
-        triggerActiveInputChange(activeInput);
-    }
-
     private void triggerActiveInputChange(String activeInput) {
         if (observers != null) {
             for (StreamObserver observer : observers) {
@@ -143,5 +275,30 @@ public final class RemoteMixedStream extends RemoteStream {
                 shape = null;
             }
         }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Region)) {
+                return false;
+            }
+            Region other = (Region) obj;
+            return equals(regionId, other.regionId) && streamId.equals(other.streamId)
+                    && equals(shape, other.shape) && parameters.equals(other.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = streamId.hashCode();
+            result = 31 * result + (regionId == null ? 0 : regionId.hashCode());
+            result = 31 * result + (shape == null ? 0 : shape.hashCode());
+            return 31 * result + parameters.hashCode();
+        }
+
+        private static boolean equals(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
     }
 }
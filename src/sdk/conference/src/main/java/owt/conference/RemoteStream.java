@@ -4,6 +4,7 @@
  */
 package owt.conference;
 
+import static owt.base.CheckCondition.DCHECK;
 import static owt.conference.JsonUtils.getObj;
 import static owt.conference.JsonUtils.getString;
 
@@ -21,15 +22,12 @@ import java.util.Iterator;
  * RemoteStream represent the stream published by other endpoints in the conference.
  */
 public class RemoteStream extends owt.base.RemoteStream {
-    /**
-     * Extra SubscriptionCapabilities for subscribing a remote stream
-     * besides PublicationSettings
-     */
-    public SubscriptionCapabilities extraSubscriptionCapability;
-    /**
-     * PublicationSettings of RemoteStream
-     */
-    public PublicationSettings publicationSettings;
+    private final Object mediaInfoLock = new Object();
+    // "media" of the latest stream info, parsed on demand.
+    private JSONObject mediaInfo;
+    // Parsed from |mediaInfo| upon first access, null until then.
+    private SubscriptionCapabilities extraSubscriptionCapability;
+    private PublicationSettings publicationSettings;
 
     RemoteStream(JSONObject streamInfo) throws JSONException {
         super(JsonUtils.getString(streamInfo, "id"),
@@ -39,8 +37,11 @@ public class RemoteStream extends owt.base.RemoteStream {
 
     void updateStreamInfo(JSONObject streamInfo, boolean triggerEvent) throws JSONException {
         JSONObject mediaInfo = JsonUtils.getObj(streamInfo, "media", true);
-        publicationSettings = new PublicationSettings(mediaInfo);
-        extraSubscriptionCapability = new SubscriptionCapabilities(mediaInfo);
+        synchronized (mediaInfoLock) {
+            this.mediaInfo = mediaInfo;
+            publicationSettings = null;
+            extraSubscriptionCapability = null;
+        }
 
         JSONObject video = JsonUtils.getObj(mediaInfo, "video");
         VideoSourceInfo videoSourceInfo = null;
@@ -62,6 +63,43 @@ public class RemoteStream extends owt.base.RemoteStream {
         }
     }
 
+    /**
+     * Extra SubscriptionCapabilities for subscribing a remote stream besides
+     * PublicationSettings.
+     *
+     * @return SubscriptionCapabilities of the RemoteStream.
+     */
+    public SubscriptionCapabilities extraSubscriptionCapability() {
+        synchronized (mediaInfoLock) {
+            if (extraSubscriptionCapability == null) {
+                try {
+                    extraSubscriptionCapability = SubscriptionCapabilities.get(mediaInfo);
+                } catch (JSONException e) {
+                    DCHECK(e);
+                }
+            }
+            return extraSubscriptionCapability;
+        }
+    }
+
+    /**
+     * PublicationSettings of RemoteStream.
+     *
+     * @return PublicationSettings of the RemoteStream.
+     */
+    public PublicationSettings publicationSettings() {
+        synchronized (mediaInfoLock) {
+            if (publicationSettings == null) {
+                try {
+                    publicationSettings = new PublicationSettings(mediaInfo);
+                } catch (JSONException e) {
+                    DCHECK(e);
+                }
+            }
+            return publicationSettings;
+        }
+    }
+
     MediaStream getMediaStream() {
         return mediaStream;
     }
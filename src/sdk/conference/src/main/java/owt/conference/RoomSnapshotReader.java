@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import android.util.JsonReader;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the result of "login" incrementally from its JSON text, building Participant%s and
+ * RemoteStream%s as they are read instead of materializing the whole room as a JSONObject first.
+ * Reading may stop after some streams have been read and resume later, so that join succeeds
+ * before the rest of a large room has been read.
+ *
+ * Login result:
+ * {'id': selfId,
+ *  'room': {'id': roomId,
+ *           'participants': [{'id': id, 'role': role, 'user': user}],
+ *           'streams': [streamInfo]},
+ *  'reconnectionTicket': ticket}
+ */
+final class RoomSnapshotReader {
+    private enum State {
+        LOGIN_RESULT,
+        ROOM,
+        STREAMS,
+        DONE
+    }
+
+    private final JsonReader reader;
+    private State state = State.LOGIN_RESULT;
+    private String selfId;
+    private String roomId;
+    private String reconnectionTicket;
+    // null until the participants have been read.
+    private List<Participant> participants;
+
+    RoomSnapshotReader(String loginResult) throws IOException {
+        reader = new JsonReader(new StringReader(loginResult));
+        reader.beginObject();
+    }
+
+    /**
+     * Read on until |streamLimit| streams have been read by this call, or to the end. Reading
+     * only stops early once the room id, the id of self and the participants have been read.
+     *
+     * @return RemoteStream%s read by this call.
+     */
+    List<RemoteStream> read(int streamLimit) throws IOException, JSONException {
+        List<RemoteStream> streams = new ArrayList<>();
+        while (state != State.DONE) {
+            switch (state) {
+                case LOGIN_RESULT:
+                    if (!reader.hasNext()) {
+                        reader.endObject();
+                        state = State.DONE;
+                        break;
+                    }
+                    switch (reader.nextName()) {
+                        case "id":
+                            selfId = reader.nextString();
+                            break;
+                        case "reconnectionTicket":
+                            reconnectionTicket = reader.nextString();
+                            break;
+                        case "room":
+                            reader.beginObject();
+                            state = State.ROOM;
+                            break;
+                        default:
+                            reader.skipValue();
+                    }
+                    break;
+                case ROOM:
+                    if (!reader.hasNext()) {
+                        reader.endObject();
+                        state = State.LOGIN_RESULT;
+                        break;
+                    }
+                    switch (reader.nextName()) {
+                        case "id":
+                            roomId = reader.nextString();
+                            break;
+                        case "participants":
+                            participants = readParticipants();
+                            break;
+                        case "streams":
+                            reader.beginArray();
+                            state = State.STREAMS;
+                            break;
+                        default:
+                            reader.skipValue();
+                    }
+                    break;
+                case STREAMS:
+                    if (!reader.hasNext()) {
+                        reader.endArray();
+                        state = State.ROOM;
+                        break;
+                    }
+                    if (streams.size() >= streamLimit && roomId != null && selfId != null
+                            && participants != null) {
+                        return streams;
+                    }
+                    JSONObject streamInfo = readObject();
+                    streams.add(streamInfo.getString("type").equals("mixed")
+                            ? new RemoteMixedStream(streamInfo) : new RemoteStream(streamInfo));
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (roomId == null) {
+            throw new JSONException("No room in the login result.");
+        }
+        if (participants == null) {
+            participants = new ArrayList<>();
+        }
+        return streams;
+    }
+
+    boolean done() {
+        return state == State.DONE;
+    }
+
+    /**
+     * Create the ConferenceInfo with the participants and |streams|, which must be called after
+     * the room id, the id of self and the participants have been read.
+     */
+    ConferenceInfo conferenceInfo(List<RemoteStream> streams) {
+        Participant self = null;
+        for (Participant participant : participants) {
+            if (participant.id.equals(selfId)) {
+                self = participant;
+            }
+        }
+        ConferenceInfo conferenceInfo = new ConferenceInfo(roomId, self);
+        for (Participant participant : participants) {
+            conferenceInfo.addParticipant(participant);
+        }
+        for (RemoteStream stream : streams) {
+            conferenceInfo.addRemoteStream(stream);
+        }
+        return conferenceInfo;
+    }
+
+    /**
+     * @return reconnection ticket, null if it has not been read.
+     */
+    String reconnectionTicket() {
+        return reconnectionTicket;
+    }
+
+    private List<Participant> readParticipants() throws IOException {
+        List<Participant> result = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String id = null, role = null, user = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id":
+                        id = reader.nextString();
+                        break;
+                    case "role":
+                        role = reader.nextString();
+                        break;
+                    case "user":
+                        user = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+            result.add(new Participant(id, role, user));
+        }
+        reader.endArray();
+        return result;
+    }
+
+    private JSONObject readObject() throws IOException, JSONException {
+        JSONObject object = new JSONObject();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            object.put(name, readValue());
+        }
+        reader.endObject();
+        return object;
+    }
+
+    private JSONArray readArray() throws IOException, JSONException {
+        JSONArray array = new JSONArray();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            array.put(readValue());
+        }
+        reader.endArray();
+        return array;
+    }
+
+    private Object readValue() throws IOException, JSONException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                return readObject();
+            case BEGIN_ARRAY:
+                return readArray();
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return JSONObject.NULL;
+            case NUMBER:
+                String number = reader.nextString();
+                if (number.indexOf('.') != -1 || number.indexOf('e') != -1
+                        || number.indexOf('E') != -1) {
+                    return Double.parseDouble(number);
+                }
+                long value = Long.parseLong(number);
+                return value == (int) value ? (Object) (int) value : (Object) value;
+            default:
+                return reader.nextString();
+        }
+    }
+}
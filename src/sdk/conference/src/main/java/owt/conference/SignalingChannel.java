@@ -11,28 +11,28 @@ import static owt.base.Const.LOG_TAG;
 import android.util.Base64;
 import android.util.Log;
 
-import okhttp3.OkHttpClient;
 import owt.base.Const;
+import owt.base.SerialExecutor;
+import owt.base.WorkerPool;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.net.URISyntaxException;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
 
 import io.socket.client.Ack;
-import io.socket.client.IO;
-import io.socket.client.Socket;
 import io.socket.emitter.Emitter.Listener;
 
 final class SignalingChannel {
 
     interface SignalingChannelObserver {
 
-        void onRoomConnected(JSONObject info);
+        void onRoomConnected(ConferenceInfo info);
 
         void onRoomConnectFailed(String errorMsg);
 
@@ -58,19 +58,27 @@ final class SignalingChannel {
     private SignalingChannelObserver observer;
     // Base64 encoded token.
     private final String token;
-    private final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
-    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+    // Only assigned in the constructor, it is not final as the listeners below refer to it. Shut
+    // down once the room is disconnected or could not be connected.
+    private SerialExecutor callbackExecutor;
+    private ScheduledFuture<?> refreshTask;
     private final int MAX_RECONNECT_ATTEMPTS = 5;
     private String reconnectionTicket;
     private int reconnectAttempts = 0;
     // No lock is guarding loggedIn so void access and modify it on threads other than
     // |callbackExecutor|.
     private boolean loggedIn = false;
-    private Socket socketClient;
-    // [{'name': name, 'msg': message, 'ack': ack}]
-    private final ArrayList<HashMap<String, Object>> cache = new ArrayList<>();
-
-    // Socket.IO events.
+    private ConferenceSignalingTransport transport;
+    // Number of the RemoteStreams of the room to be read before join succeeds.
+    private int initialRemoteStreamLimit = Integer.MAX_VALUE;
+    // Stream events received while the rest of the room is to be read, null otherwise. They may
+    // refer to streams which have not been read yet. Only accessed on |callbackExecutor|.
+    private List<JSONObject> streamEventsBeforeRead;
+    // Messages sent while the socket is disconnected, shared by the SignalingChannels of a
+    // ConferenceClient.
+    private final SignalingMessageQueue cache;
+
+    // Transport events.
     private final Listener connectedCallback = args -> callbackExecutor.execute(() -> {
         Log.d(LOG_TAG, "Socket connected.");
         if (loggedIn) {
@@ -79,7 +87,7 @@ final class SignalingChannel {
             try {
                 login();
             } catch (JSONException e) {
-                observer.onRoomConnectFailed(e.getMessage());
+                onRoomConnectFailed(e.getMessage());
             }
         }
     });
@@ -91,7 +99,7 @@ final class SignalingChannel {
                     if (loggedIn) {
                         triggerDisconnected();
                     } else {
-                        observer.onRoomConnectFailed("Socket.IO connected failed: " + msg);
+                        onRoomConnectFailed("Socket.IO connected failed: " + msg);
                     }
                 }
             });
@@ -103,7 +111,7 @@ final class SignalingChannel {
             observer.onReconnecting();
         }
     });
-    // disconnectCallback will be bound ONLY when disconnect() is called actively.
+    // Transports notify disconnection ONLY when disconnect() is called actively.
     private final Listener disconnectCallback = args -> callbackExecutor.execute(
             this::triggerDisconnected);
 
@@ -135,6 +143,9 @@ final class SignalingChannel {
             JSONObject msg = (JSONObject) args[0];
             String status = msg.getString("status");
             String streamId = msg.getString("id");
+            if (streamEventsBeforeRead != null) {
+                streamEventsBeforeRead.add(msg);
+            }
             switch (status) {
                 case "add":
                     JSONObject data = msg.getJSONObject("data");
@@ -165,9 +176,57 @@ final class SignalingChannel {
         }
     });
     private final Listener dropCallback = args -> triggerDisconnected();
+    private final ConferenceSignalingTransport.TransportObserver transportObserver =
+            new ConferenceSignalingTransport.TransportObserver() {
+                @Override
+                public void onConnected() {
+                    connectedCallback.call();
+                }
+
+                @Override
+                public void onConnectError(String errorMsg) {
+                    connectErrorCallback.call(errorMsg);
+                }
+
+                @Override
+                public void onReconnecting() {
+                    reconnectingCallback.call();
+                }
+
+                @Override
+                public void onDisconnected() {
+                    disconnectCallback.call();
+                }
+
+                @Override
+                public void onEvent(String event, Object message) {
+                    switch (event) {
+                        case "progress":
+                            progressCallback.call(message);
+                            break;
+                        case "participant":
+                            participantCallback.call(message);
+                            break;
+                        case "stream":
+                            streamCallback.call(message);
+                            break;
+                        case "text":
+                            textCallback.call(message);
+                            break;
+                        case "drop":
+                            dropCallback.call(message);
+                            break;
+                        default:
+                            Log.d(LOG_TAG, "Ignored signaling event " + event);
+                    }
+                }
+            };
 
-    SignalingChannel(String token, SignalingChannelObserver observer) {
+    SignalingChannel(String token, SerialExecutor callbackExecutor, SignalingMessageQueue cache,
+            SignalingChannelObserver observer) {
         this.token = token;
+        this.callbackExecutor = callbackExecutor;
+        this.cache = cache;
         this.observer = observer;
     }
 
@@ -181,61 +240,28 @@ final class SignalingChannel {
             String host = jsonToken.getString("host");
             final String url = (isSecure ? "https" : "http") + "://" + host;
 
-            IO.Options opt = new IO.Options();
-            opt.forceNew = true;
-            opt.reconnection = true;
-            opt.reconnectionAttempts = MAX_RECONNECT_ATTEMPTS;
-            opt.secure = isSecure;
-            OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder();
-            if (configuration.sslContext != null) {
-                clientBuilder.sslSocketFactory(configuration.sslContext.getSocketFactory());
-            }
-            if (configuration.hostnameVerifier != null) {
-                clientBuilder.hostnameVerifier(configuration.hostnameVerifier);
-            }
-            OkHttpClient httpClient = clientBuilder.build();
-            opt.callFactory = httpClient;
-            opt.webSocketFactory = httpClient;
-            socketClient = IO.socket(url, opt);
-
-            // Do not listen EVENT_DISCONNECT event on this phase.
-            socketClient.on(Socket.EVENT_CONNECT, connectedCallback)
-                    .on(Socket.EVENT_CONNECT_ERROR, connectErrorCallback)
-                    .on(Socket.EVENT_RECONNECTING, reconnectingCallback)
-                    .on("progress", progressCallback)
-                    .on("participant", participantCallback)
-                    .on("stream", streamCallback)
-                    .on("text", textCallback)
-                    .on("drop", dropCallback);
-            socketClient.connect();
+            initialRemoteStreamLimit = configuration.initialRemoteStreamLimit;
+            transport = configuration.signalingTransportFactory.create(configuration);
+            RCHECK(transport);
+            transport.connect(url, MAX_RECONNECT_ATTEMPTS, transportObserver);
 
         } catch (JSONException e) {
-            observer.onRoomConnectFailed(e.getMessage());
-        } catch (URISyntaxException e) {
-            observer.onRoomConnectFailed(e.getMessage());
+            onRoomConnectFailed(e.getMessage());
         }
     }
 
     void disconnect() {
-        if (socketClient != null) {
-            socketClient.on(Socket.EVENT_DISCONNECT, disconnectCallback);
-            socketClient.disconnect();
+        callbackExecutor.execute(this::cancelRefreshTask);
+        if (transport != null) {
+            transport.disconnect();
         }
     }
 
     void sendMsg(String type, JSONObject msg, Ack ack) {
-        if (!socketClient.connected()) {
-            HashMap<String, Object> msg2cache = new HashMap<>();
-            msg2cache.put("type", type);
-            msg2cache.put("msg", msg);
-            msg2cache.put("ack", ack);
-            cache.add(msg2cache);
+        if (!transport.isConnected()) {
+            cache.add(type, msg, ack);
         } else {
-            if (msg != null) {
-                socketClient.emit(type, msg, ack);
-            } else {
-                socketClient.emit(type, ack);
-            }
+            transport.emit(type, msg, ack);
         }
     }
 
@@ -246,28 +272,122 @@ final class SignalingChannel {
         loginInfo.put("userAgent", new JSONObject(Const.userAgent));
         loginInfo.put("protocol", Const.PROTOCOL_VERSION);
 
-        socketClient.emit("login", loginInfo,
+        transport.emit("login", loginInfo,
                 (Ack) (Object... args) -> callbackExecutor.execute(() -> {
                     if (extractMsg(0, args).equals("ok")) {
-                        loggedIn = true;
-                        try {
-                            reconnectionTicket = ((JSONObject) args[1]).getString(
-                                    "reconnectionTicket");
-                        } catch (JSONException e) {
-                            DCHECK(e);
+                        if (args[1] instanceof ConferenceSignalingTransport.RawJson) {
+                            onLoggedIn(((ConferenceSignalingTransport.RawJson) args[1]).text);
+                        } else {
+                            onLoggedIn((JSONObject) args[1]);
                         }
-                        observer.onRoomConnected((JSONObject) args[1]);
-                        onRefreshReconnectionTicket();
                     } else {
-                        observer.onRoomConnectFailed(extractMsg(1, args));
+                        onRoomConnectFailed(extractMsg(1, args));
                     }
 
                 }));
     }
 
+    private void onLoggedIn(JSONObject loginResult) {
+        ConferenceInfo conferenceInfo;
+        try {
+            conferenceInfo = new ConferenceInfo(loginResult);
+        } catch (JSONException e) {
+            onRoomConnectFailed(e.getMessage());
+            return;
+        }
+        loggedIn = true;
+        try {
+            reconnectionTicket = loginResult.getString("reconnectionTicket");
+        } catch (JSONException e) {
+            DCHECK(e);
+        }
+        observer.onRoomConnected(conferenceInfo);
+        onRefreshReconnectionTicket();
+    }
+
+    // Reads the room incrementally, join succeeds once |initialRemoteStreamLimit| streams have
+    // been read and the rest are added afterwards.
+    private void onLoggedIn(String loginResult) {
+        RoomSnapshotReader snapshotReader;
+        ConferenceInfo conferenceInfo;
+        try {
+            snapshotReader = new RoomSnapshotReader(loginResult);
+            conferenceInfo = snapshotReader.conferenceInfo(
+                    snapshotReader.read(initialRemoteStreamLimit));
+        } catch (IOException | JSONException e) {
+            onRoomConnectFailed(e.getMessage());
+            return;
+        } catch (IllegalStateException | NumberFormatException e) {
+            // Thrown by JsonReader on unexpected JSON.
+            onRoomConnectFailed(e.getMessage());
+            return;
+        }
+        loggedIn = true;
+        observer.onRoomConnected(conferenceInfo);
+        if (snapshotReader.done()) {
+            onSnapshotRead(snapshotReader);
+            return;
+        }
+        // Stream events may be dispatched before the rest is read.
+        streamEventsBeforeRead = new ArrayList<>();
+        callbackExecutor.execute(() -> {
+            try {
+                onRemainingStreamsRead(snapshotReader.read(Integer.MAX_VALUE));
+            } catch (IOException | JSONException e) {
+                onSnapshotReadFailed(e);
+                return;
+            } catch (IllegalStateException | NumberFormatException e) {
+                onSnapshotReadFailed(e);
+                return;
+            }
+            streamEventsBeforeRead = null;
+            onSnapshotRead(snapshotReader);
+        });
+    }
+
+    // Join has already succeeded, but streams of the room are missing and the reconnection
+    // ticket after them is unknown, so the room is left and reported as disconnected.
+    private void onSnapshotReadFailed(Exception e) {
+        Log.e(LOG_TAG, "Failed to read the room: " + e.getMessage());
+        streamEventsBeforeRead = null;
+        transport.disconnect();
+    }
+
+    // Adds the streams read after join, except those removed meanwhile. The updates received
+    // meanwhile were dropped as the streams were unknown, they are applied again.
+    private void onRemainingStreamsRead(List<RemoteStream> remoteStreams) throws JSONException {
+        Set<String> removed = new HashSet<>();
+        for (JSONObject msg : streamEventsBeforeRead) {
+            if (msg.getString("status").equals("remove")) {
+                removed.add(msg.getString("id"));
+            }
+        }
+        Set<String> added = new HashSet<>();
+        for (RemoteStream remoteStream : remoteStreams) {
+            if (!removed.contains(remoteStream.id())) {
+                added.add(remoteStream.id());
+                observer.onStreamAdded(remoteStream);
+            }
+        }
+        for (JSONObject msg : streamEventsBeforeRead) {
+            if (msg.getString("status").equals("update") && added.contains(msg.getString("id"))) {
+                observer.onStreamUpdated(msg.getString("id"), msg.getJSONObject("data"));
+            }
+        }
+    }
+
+    private void onSnapshotRead(RoomSnapshotReader snapshotReader) {
+        reconnectionTicket = snapshotReader.reconnectionTicket();
+        if (reconnectionTicket == null) {
+            Log.e(LOG_TAG, "No reconnection ticket in the login result.");
+            return;
+        }
+        onRefreshReconnectionTicket();
+    }
+
     private void relogin() {
         DCHECK(reconnectionTicket);
-        socketClient.emit("relogin", reconnectionTicket, (Ack) (Object... args) -> {
+        transport.emit("relogin", reconnectionTicket, (Ack) (Object... args) -> {
             if (extractMsg(0, args).equals("ok")) {
                 reconnectionTicket = (String) args[1];
                 reconnectAttempts = 0;
@@ -280,22 +400,31 @@ final class SignalingChannel {
     }
 
     private void flushCachedMsg() {
-        for (HashMap<String, Object> msg : cache) {
+        for (SignalingMessageQueue.Message msg : cache.drain()) {
             try {
-                sendMsg((String) msg.get("type"), (JSONObject) msg.get("msg"),
-                        (Ack) msg.get("ack"));
+                sendMsg(msg.type, msg.msg, msg.ack);
             } catch (Exception exception) {
                 DCHECK(exception);
             }
+        }
+    }
 
+    private void onRoomConnectFailed(String errorMsg) {
+        // Dropped by the SignalingChannel, which must not report a disconnection then.
+        callbackExecutor.shutdown();
+        if (transport != null) {
+            transport.disconnect();
         }
-        cache.clear();
+        observer.onRoomConnectFailed(errorMsg);
     }
 
     private void triggerDisconnected() {
         loggedIn = false;
         reconnectAttempts = 0;
         cache.clear();
+        cancelRefreshTask();
+        // Tasks already queued still run, a SignalingChannel is not reconnected.
+        callbackExecutor.shutdown();
         observer.onRoomDisconnected();
     }
 
@@ -310,7 +439,7 @@ final class SignalingChannel {
 
     private void onRefreshReconnectionTicket() {
         Log.d(LOG_TAG, "refresh connection ticket");
-        socketClient.emit("refreshReconnectionTicket", null,
+        transport.emit("refreshReconnectionTicket", null,
                 (Object... args) -> callbackExecutor.execute(() -> {
                     if (extractMsg(0, args).equals("ok")) {
                         String message = args[1].toString();
@@ -332,21 +461,20 @@ final class SignalingChannel {
                 delay = 5*60*1000;
             }
 
-            long finalDelay = delay;
-            refreshExecutor.execute(()->{
-                try {
-                    Thread.sleep(finalDelay);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-
-                onRefreshReconnectionTicket();
-            });
+            cancelRefreshTask();
+            refreshTask = WorkerPool.schedule(callbackExecutor, this::onRefreshReconnectionTicket,
+                    delay);
 
 
         } catch (Exception e) {
             Log.e(LOG_TAG, Log.getStackTraceString(e));
         }
     }
-}
 
+    private void cancelRefreshTask() {
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static owt.base.CheckCondition.DCHECK;
+import static owt.base.Const.LOG_TAG;
+
+import android.util.Log;
+
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.socket.client.Ack;
+
+/**
+ * Bounded queue of the signaling messages sent while the socket is disconnected, replayed once
+ * it has reconnected.
+ *
+ * Messages are replayed by priority, then in the order they have been sent: logout, controls and
+ * removals first, then the other requests, then ICE candidates. A message older than the TTL of
+ * its type expires. A stream-control or subscription-control message replaces the queued one it
+ * supersedes, i.e. pausing or playing the same track kind of the same id. When the queue is
+ * full, an expired message or else the oldest message of the lowest priority is dropped. The
+ * acks of the messages expired, dropped or replaced are called with an error, so that the
+ * callbacks of the requests they carry fail instead of never being triggered.
+ */
+final class SignalingMessageQueue {
+    static final int DEFAULT_CAPACITY = 256;
+    private static final int PRIORITY_HIGH = 0;
+    private static final int PRIORITY_NORMAL = 1;
+    private static final int PRIORITY_LOW = 2;
+    // Candidates are useless once the ICE agent of the server has given up on them.
+    private static final long CANDIDATE_TTL_MS = 5000;
+    private static final long TEXT_TTL_MS = 30000;
+
+    static final class Message {
+        final String type;
+        final JSONObject msg;
+        final Ack ack;
+        final int priority;
+        // Long.MAX_VALUE if the message does not expire.
+        final long expiresAtNanos;
+        final long enqueuedAtNanos;
+        // null if the message cannot be superseded.
+        final String coalesceKey;
+
+        Message(String type, JSONObject msg, Ack ack, long nowNanos) {
+            this.type = type;
+            this.msg = msg;
+            this.ack = ack;
+            this.enqueuedAtNanos = nowNanos;
+            this.priority = priorityOf(type, msg);
+            long ttlMs = ttlOf(type, priority);
+            this.expiresAtNanos =
+                    ttlMs == 0 ? Long.MAX_VALUE : nowNanos + TimeUnit.MILLISECONDS.toNanos(ttlMs);
+            this.coalesceKey = coalesceKeyOf(type, msg);
+        }
+
+        boolean expired(long nowNanos) {
+            return expiresAtNanos != Long.MAX_VALUE && nowNanos - expiresAtNanos > 0;
+        }
+
+        void fail(String reason) {
+            if (ack != null) {
+                ack.call("error", reason);
+            }
+        }
+    }
+
+    private final int capacity;
+    // Indexed by priority.
+    private final List<ArrayDeque<Message>> queues = new ArrayList<>();
+    private final HashMap<String, Message> coalescable = new HashMap<>();
+    private int size = 0;
+    private long queuedCount = 0;
+    private long flushedCount = 0;
+    private long droppedCount = 0;
+    private long expiredCount = 0;
+    private long coalescedCount = 0;
+
+    SignalingMessageQueue(int capacity) {
+        DCHECK(capacity > 0);
+        this.capacity = capacity;
+        for (int i = PRIORITY_HIGH; i <= PRIORITY_LOW; i++) {
+            queues.add(new ArrayDeque<>());
+        }
+    }
+
+    void add(String type, JSONObject msg, Ack ack) {
+        Message message = new Message(type, msg, ack, System.nanoTime());
+        Message replaced = null;
+        Message dropped = null;
+        Message expired = null;
+        synchronized (this) {
+            queuedCount++;
+            if (message.coalesceKey != null) {
+                replaced = coalescable.put(message.coalesceKey, message);
+                if (replaced != null) {
+                    queues.get(replaced.priority).remove(replaced);
+                    size--;
+                    coalescedCount++;
+                }
+            }
+            queues.get(message.priority).add(message);
+            size++;
+            if (size > capacity) {
+                Message removed = evict(message.enqueuedAtNanos);
+                if (removed.expired(message.enqueuedAtNanos)) {
+                    expired = removed;
+                    expiredCount++;
+                } else {
+                    dropped = removed;
+                    droppedCount++;
+                }
+            }
+        }
+        if (replaced != null) {
+            replaced.fail("Superseded by a later message.");
+        }
+        if (expired != null) {
+            expired.fail("Signaling message expired.");
+        }
+        if (dropped != null) {
+            Log.w(LOG_TAG, "Signaling queue full, dropped a " + dropped.type + " message.");
+            dropped.fail("Signaling queue full.");
+        }
+    }
+
+    /**
+     * Remove all the messages, in the order they are to be sent, but the expired ones.
+     */
+    List<Message> drain() {
+        long now = System.nanoTime();
+        List<Message> messages = new ArrayList<>();
+        List<Message> expired = new ArrayList<>();
+        synchronized (this) {
+            for (ArrayDeque<Message> queue : queues) {
+                for (Message message : queue) {
+                    (message.expired(now) ? expired : messages).add(message);
+                }
+                queue.clear();
+            }
+            coalescable.clear();
+            size = 0;
+            flushedCount += messages.size();
+            expiredCount += expired.size();
+        }
+        for (Message message : expired) {
+            message.fail("Signaling message expired.");
+        }
+        return messages;
+    }
+
+    /**
+     * Drop all the messages when the room has been disconnected. Their acks are not called as
+     * the ConferenceClient tears down the whole session on disconnection.
+     */
+    synchronized void clear() {
+        for (ArrayDeque<Message> queue : queues) {
+            droppedCount += queue.size();
+            queue.clear();
+        }
+        coalescable.clear();
+        size = 0;
+    }
+
+    synchronized SignalingQueueMetrics metrics() {
+        return new SignalingQueueMetrics(size, queuedCount, flushedCount, droppedCount,
+                expiredCount, coalescedCount);
+    }
+
+    private Message evict(long nowNanos) {
+        // Expired messages go first.
+        for (ArrayDeque<Message> queue : queues) {
+            for (Iterator<Message> it = queue.iterator(); it.hasNext(); ) {
+                Message message = it.next();
+                if (message.expired(nowNanos)) {
+                    it.remove();
+                    return removed(message);
+                }
+            }
+        }
+        for (int i = PRIORITY_LOW; i >= PRIORITY_HIGH; i--) {
+            if (!queues.get(i).isEmpty()) {
+                return removed(queues.get(i).poll());
+            }
+        }
+        DCHECK(false);
+        return null;
+    }
+
+    private Message removed(Message message) {
+        size--;
+        if (message.coalesceKey != null && coalescable.get(message.coalesceKey) == message) {
+            coalescable.remove(message.coalesceKey);
+        }
+        return message;
+    }
+
+    private static int priorityOf(String type, JSONObject msg) {
+        switch (type) {
+            case "logout":
+            case "stream-control":
+            case "subscription-control":
+            case "unpublish":
+            case "unsubscribe":
+                return PRIORITY_HIGH;
+            case "soac":
+                return isCandidateMessage(msg) ? PRIORITY_LOW : PRIORITY_NORMAL;
+            default:
+                return PRIORITY_NORMAL;
+        }
+    }
+
+    private static long ttlOf(String type, int priority) {
+        if (priority == PRIORITY_LOW) {
+            return CANDIDATE_TTL_MS;
+        }
+        return type.equals("text") ? TEXT_TTL_MS : 0;
+    }
+
+    private static boolean isCandidateMessage(JSONObject msg) {
+        JSONObject signaling = msg == null ? null : msg.optJSONObject("signaling");
+        if (signaling == null) {
+            return false;
+        }
+        String signalingType = signaling.optString("type");
+        return signalingType.equals("candidate") || signalingType.equals("candidates")
+                || signalingType.equals("removed-candidates");
+    }
+
+    private static String coalesceKeyOf(String type, JSONObject msg) {
+        if (msg == null || !(type.equals("stream-control")
+                || type.equals("subscription-control"))) {
+            return null;
+        }
+        // pause and play of the same track kind supersede each other. Updates are not coalesced
+        // as each of them may carry a part of the options only.
+        String operation = msg.optString("operation");
+        if (operation.equals("pause") || operation.equals("play")) {
+            return type + "/" + msg.optString("id") + "/" + msg.optString("data");
+        }
+        return null;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+/**
+ * Snapshot of the metrics of the queue holding the signaling messages sent while the connection
+ * to the conference server is lost. Counts are accumulated since the ConferenceClient has been
+ * created.
+ */
+public final class SignalingQueueMetrics {
+    /**
+     * Number of messages currently in the queue.
+     */
+    public final int pending;
+    /**
+     * Number of messages that have been queued.
+     */
+    public final long queued;
+    /**
+     * Number of queued messages that have been sent after reconnecting.
+     */
+    public final long flushed;
+    /**
+     * Number of queued messages dropped because the queue was full or the conference has been
+     * disconnected.
+     */
+    public final long dropped;
+    /**
+     * Number of queued messages dropped because they had expired.
+     */
+    public final long expired;
+    /**
+     * Number of queued messages dropped because a later message superseded them.
+     */
+    public final long coalesced;
+
+    SignalingQueueMetrics(int pending, long queued, long flushed, long dropped, long expired,
+            long coalesced) {
+        this.pending = pending;
+        this.queued = queued;
+        this.flushed = flushed;
+        this.dropped = dropped;
+        this.expired = expired;
+        this.coalesced = coalesced;
+    }
+
+    @Override
+    public String toString() {
+        return "pending=" + pending + ", queued=" + queued + ", flushed=" + flushed
+                + ", dropped=" + dropped + ", expired=" + expired + ", coalesced=" + coalesced;
+    }
+}
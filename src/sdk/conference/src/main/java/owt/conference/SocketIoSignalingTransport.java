@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static owt.base.CheckCondition.DCHECK;
+
+import okhttp3.OkHttpClient;
+
+import java.net.URISyntaxException;
+
+import io.socket.client.Ack;
+import io.socket.client.IO;
+import io.socket.client.Socket;
+
+/**
+ * ConferenceSignalingTransport based on the Socket.IO client library. It is the default
+ * transport of ConferenceClient.
+ */
+public final class SocketIoSignalingTransport implements ConferenceSignalingTransport {
+    // Events of the conference server.
+    private static final String[] SERVER_EVENTS =
+            {"progress", "participant", "stream", "text", "drop"};
+    private final ConferenceClientConfiguration configuration;
+    private Socket socketClient;
+    private TransportObserver observer;
+
+    private SocketIoSignalingTransport(ConferenceClientConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Get a Factory creating SocketIoSignalingTransports, using the SSL context and hostname
+     * verifier of the ConferenceClientConfiguration.
+     *
+     * @return ConferenceSignalingTransport.Factory
+     */
+    public static Factory factory() {
+        return SocketIoSignalingTransport::new;
+    }
+
+    static OkHttpClient httpClient(ConferenceClientConfiguration configuration) {
+        OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder();
+        if (configuration.sslContext != null) {
+            clientBuilder.sslSocketFactory(configuration.sslContext.getSocketFactory());
+        }
+        if (configuration.hostnameVerifier != null) {
+            clientBuilder.hostnameVerifier(configuration.hostnameVerifier);
+        }
+        return clientBuilder.build();
+    }
+
+    @Override
+    public void connect(String url, int reconnectionAttempts, final TransportObserver observer) {
+        DCHECK(socketClient == null);
+        this.observer = observer;
+        IO.Options opt = new IO.Options();
+        opt.forceNew = true;
+        opt.reconnection = true;
+        opt.reconnectionAttempts = reconnectionAttempts;
+        opt.secure = url.startsWith("https");
+        OkHttpClient httpClient = httpClient(configuration);
+        opt.callFactory = httpClient;
+        opt.webSocketFactory = httpClient;
+        try {
+            socketClient = IO.socket(url, opt);
+        } catch (URISyntaxException e) {
+            observer.onConnectError(e.getMessage());
+            return;
+        }
+
+        // Do not listen EVENT_DISCONNECT event on this phase.
+        socketClient.on(Socket.EVENT_CONNECT, args -> observer.onConnected())
+                .on(Socket.EVENT_CONNECT_ERROR,
+                        args -> observer.onConnectError(args.length > 0 && args[0] != null
+                                ? args[0].toString() : ""))
+                .on(Socket.EVENT_RECONNECTING, args -> observer.onReconnecting());
+        for (final String event : SERVER_EVENTS) {
+            socketClient.on(event,
+                    args -> observer.onEvent(event, args.length > 0 ? args[0] : null));
+        }
+        socketClient.connect();
+    }
+
+    @Override
+    public void disconnect() {
+        if (socketClient != null) {
+            // EVENT_DISCONNECT is listened ONLY when disconnect() is called actively.
+            socketClient.on(Socket.EVENT_DISCONNECT, args -> observer.onDisconnected());
+            socketClient.disconnect();
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return socketClient != null && socketClient.connected();
+    }
+
+    @Override
+    public void emit(String event, Object message, Ack ack) {
+        DCHECK(socketClient);
+        if (message != null) {
+            socketClient.emit(event, message, ack);
+        } else {
+            socketClient.emit(event, ack);
+        }
+    }
+}
@@ -18,42 +18,78 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Capabilities for subscribing a RemoteStream, which indicates the video or/and audio options
  * that ConferenceClient may use to subscribe a RemoteStream. Subscribing a RemoteStream with the
  * options that beyonds its SubscriptionCapabilities may cause failure.
+ *
+ * SubscriptionCapabilities are immutable, and RemoteStream%s with the same capabilities share
+ * the same instances.
  */
-public class SubscriptionCapabilities {
+public final class SubscriptionCapabilities {
+    private static final Interner<SubscriptionCapabilities> capabilitiesPool = new Interner<>();
+    private static final Interner<AudioSubscriptionCapabilities> audioPool = new Interner<>();
+    private static final Interner<VideoSubscriptionCapabilities> videoPool = new Interner<>();
 
     public final AudioSubscriptionCapabilities audioSubscriptionCapabilities;
     public final VideoSubscriptionCapabilities videoSubscriptionCapabilities;
 
-    SubscriptionCapabilities(JSONObject mediaInfo) throws JSONException {
+    private SubscriptionCapabilities(AudioSubscriptionCapabilities audio,
+            VideoSubscriptionCapabilities video) {
+        audioSubscriptionCapabilities = audio;
+        videoSubscriptionCapabilities = video;
+    }
+
+    static SubscriptionCapabilities get(JSONObject mediaInfo) throws JSONException {
         DCHECK(mediaInfo);
 
         JSONObject audio = JsonUtils.getObj(mediaInfo, "audio");
-        audioSubscriptionCapabilities = audio == null ? null
-                : new AudioSubscriptionCapabilities(audio);
+        AudioSubscriptionCapabilities audioCapabilities = audio == null ? null
+                : audioPool.intern(new AudioSubscriptionCapabilities(audio));
 
         JSONObject video = JsonUtils.getObj(mediaInfo, "video");
-        videoSubscriptionCapabilities = video == null ? null
-                : new VideoSubscriptionCapabilities(video);
+        VideoSubscriptionCapabilities videoCapabilities = video == null ? null
+                : videoPool.intern(new VideoSubscriptionCapabilities(video));
+
+        return capabilitiesPool.intern(
+                new SubscriptionCapabilities(audioCapabilities, videoCapabilities));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof SubscriptionCapabilities)) {
+            return false;
+        }
+        // Components are interned.
+        SubscriptionCapabilities capabilities = (SubscriptionCapabilities) other;
+        return audioSubscriptionCapabilities == capabilities.audioSubscriptionCapabilities
+                && videoSubscriptionCapabilities == capabilities.videoSubscriptionCapabilities;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(audioSubscriptionCapabilities)
+                + System.identityHashCode(videoSubscriptionCapabilities);
     }
 
     /**
      * Audio capabilities for subscribing a RemoteStream.
      */
-    public static class AudioSubscriptionCapabilities {
+    public static final class AudioSubscriptionCapabilities {
         /**
-         * List of AudioCodecParameters supported to subscribe a RemoteStream.
+         * Immutable list of AudioCodecParameters supported to subscribe a RemoteStream.
          */
         public final List<AudioCodecParameters> audioCodecs;
 
         AudioSubscriptionCapabilities(JSONObject audioObj) throws JSONException {
-            audioCodecs = new ArrayList<>();
+            List<AudioCodecParameters> codecs = new ArrayList<>();
 
             JSONObject audioOpt = JsonUtils.getObj(audioObj, "optional");
             if (audioOpt != null && audioOpt.has("format")) {
@@ -63,43 +99,42 @@ public class SubscriptionCapabilities {
                     AudioCodec codec = AudioCodec.get(JsonUtils.getString(codecObj, "codec", ""));
                     int channelNum = JsonUtils.getInt(codecObj, "channelNum", 0);
                     int sampleRate = JsonUtils.getInt(codecObj, "sampleRate", 0);
-                    audioCodecs.add(new AudioCodecParameters(codec, channelNum, sampleRate));
+                    codecs.add(new AudioCodecParameters(codec, channelNum, sampleRate));
                 }
             }
+            audioCodecs = Collections.unmodifiableList(codecs);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other || (other instanceof AudioSubscriptionCapabilities
+                    && audioCodecs.equals(((AudioSubscriptionCapabilities) other).audioCodecs));
+        }
+
+        @Override
+        public int hashCode() {
+            return audioCodecs.hashCode();
         }
     }
 
     /**
      * Video capabilities for subscribing a RemoteStream.
      */
-    public static class VideoSubscriptionCapabilities {
+    public static final class VideoSubscriptionCapabilities {
         /**
-         * List of VideoCodecParameters supported to subscribe a RemoteStream.
+         * Immutable list of VideoCodecParameters supported to subscribe a RemoteStream.
          */
         public final List<VideoCodecParameters> videoCodecs;
         /**
-         * List of resolutions supported to subscribe a RemoteStream.
-         */
-        public final List<HashMap<String, Integer>> resolutions;
-        /**
-         * List of framerates supported to subscribe a RemoteStream.
-         */
-        public final List<Integer> frameRates;
-        /**
-         * List of the multipliers of bitrate supported to subscribe a RemoteStream.
-         */
-        public final List<Double> bitrateMultipliers;
-        /**
-         * List of the intervals of keyframe supported to subscribe a RemoteStream.
+         * Immutable list of resolutions supported to subscribe a RemoteStream.
          */
-        public final List<Integer> keyFrameIntervals;
+        public final List<Resolution> resolutions;
+        private final int[] frameRates;
+        private final double[] bitrateMultipliers;
+        private final int[] keyFrameIntervals;
 
         VideoSubscriptionCapabilities(JSONObject videoObj) throws JSONException {
-            videoCodecs = new ArrayList<>();
-            resolutions = new ArrayList<>();
-            frameRates = new ArrayList<>();
-            bitrateMultipliers = new ArrayList<>();
-            keyFrameIntervals = new ArrayList<>();
+            List<VideoCodecParameters> codecs = new ArrayList<>();
 
             // videoObj:
             // {'format': formatObj,
@@ -127,9 +162,10 @@ public class SubscriptionCapabilities {
                 for (int i = 0; i < videoFormats.length(); i++) {
                     JSONObject codecObj = videoFormats.getJSONObject(i);
                     VideoCodec videoCodec = VideoCodec.get(JsonUtils.getString(codecObj, "codec", ""));
-                    videoCodecs.add(new VideoCodecParameters(videoCodec));
+                    codecs.add(new VideoCodecParameters(videoCodec));
                 }
             }
+            videoCodecs = Collections.unmodifiableList(codecs);
 
             // optParamObj:
             // {'resolution': [{'width': width, 'height': height}]
@@ -139,28 +175,116 @@ public class SubscriptionCapabilities {
             if (optionalObj != null && optionalObj.has("parameters")) {
                 JSONObject optParamObj = JsonUtils.getObj(optionalObj, "parameters");
                 JSONArray resolutionsArray = optParamObj.getJSONArray("resolution");
-                for (int i = 0; i < resolutionsArray.length(); i++) {
+                Resolution[] res = new Resolution[resolutionsArray.length()];
+                for (int i = 0; i < res.length; i++) {
                     JSONObject resolution = resolutionsArray.getJSONObject(i);
-                    HashMap<String, Integer> res = new HashMap<>();
-                    res.put("width", JsonUtils.getInt(resolution, "width", 0));
-                    res.put("height", JsonUtils.getInt(resolution, "height", 0));
-                    resolutions.add(res);
+                    res[i] = new Resolution(JsonUtils.getInt(resolution, "width", 0),
+                            JsonUtils.getInt(resolution, "height", 0));
                 }
+                resolutions = Collections.unmodifiableList(Arrays.asList(res));
                 JSONArray frameRatesArray = optParamObj.getJSONArray("framerate");
-                for (int i = 0; i < frameRatesArray.length(); i++) {
-                    frameRates.add(frameRatesArray.getInt(i));
+                frameRates = new int[frameRatesArray.length()];
+                for (int i = 0; i < frameRates.length; i++) {
+                    frameRates[i] = frameRatesArray.getInt(i);
                 }
                 JSONArray bitratesArray = optParamObj.getJSONArray("bitrate");
-                for (int i = 0; i < bitratesArray.length(); i++) {
+                bitrateMultipliers = new double[bitratesArray.length()];
+                for (int i = 0; i < bitrateMultipliers.length; i++) {
                     String bitrateString = bitratesArray.getString(i).substring(1);
-                    bitrateMultipliers.add(Double.parseDouble(bitrateString));
+                    bitrateMultipliers[i] = Double.parseDouble(bitrateString);
                 }
                 JSONArray keyFrameIntervalsArray = optParamObj.getJSONArray("keyFrameInterval");
-                for (int i = 0; i < keyFrameIntervalsArray.length(); i++) {
-                    keyFrameIntervals.add(keyFrameIntervalsArray.getInt(i));
+                keyFrameIntervals = new int[keyFrameIntervalsArray.length()];
+                for (int i = 0; i < keyFrameIntervals.length; i++) {
+                    keyFrameIntervals[i] = keyFrameIntervalsArray.getInt(i);
                 }
+            } else {
+                resolutions = Collections.emptyList();
+                frameRates = new int[0];
+                bitrateMultipliers = new double[0];
+                keyFrameIntervals = new int[0];
+            }
+        }
+
+        /**
+         * Framerates supported to subscribe a RemoteStream.
+         *
+         * @return a copy of the framerates.
+         */
+        public int[] frameRates() {
+            return frameRates.clone();
+        }
+
+        /**
+         * Multipliers of bitrate supported to subscribe a RemoteStream.
+         *
+         * @return a copy of the multipliers.
+         */
+        public double[] bitrateMultipliers() {
+            return bitrateMultipliers.clone();
+        }
+
+        /**
+         * Intervals of keyframe supported to subscribe a RemoteStream.
+         *
+         * @return a copy of the intervals.
+         */
+        public int[] keyFrameIntervals() {
+            return keyFrameIntervals.clone();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof VideoSubscriptionCapabilities)) {
+                return false;
             }
+            VideoSubscriptionCapabilities capabilities = (VideoSubscriptionCapabilities) other;
+            return videoCodecs.equals(capabilities.videoCodecs)
+                    && resolutions.equals(capabilities.resolutions)
+                    && Arrays.equals(frameRates, capabilities.frameRates)
+                    && Arrays.equals(bitrateMultipliers, capabilities.bitrateMultipliers)
+                    && Arrays.equals(keyFrameIntervals, capabilities.keyFrameIntervals);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = videoCodecs.hashCode();
+            result = 31 * result + resolutions.hashCode();
+            result = 31 * result + Arrays.hashCode(frameRates);
+            result = 31 * result + Arrays.hashCode(bitrateMultipliers);
+            return 31 * result + Arrays.hashCode(keyFrameIntervals);
+        }
+    }
+
+    /**
+     * Resolution of a video.
+     */
+    public static final class Resolution {
+        public final int width, height;
+
+        public Resolution(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other || (other instanceof Resolution
+                    && width == ((Resolution) other).width
+                    && height == ((Resolution) other).height);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * width + height;
+        }
 
+        @Override
+        public String toString() {
+            return width + "x" + height;
         }
     }
 }
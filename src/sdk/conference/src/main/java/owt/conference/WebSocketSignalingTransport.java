@@ -0,0 +1,403 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static owt.base.CheckCondition.DCHECK;
+import static owt.base.Const.LOG_TAG;
+
+import android.util.Log;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import owt.base.SerialExecutor;
+import owt.base.WorkerPool;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import io.socket.client.Ack;
+
+/**
+ * ConferenceSignalingTransport speaking the Socket.IO protocol (Engine.IO v3) over a plain OkHttp
+ * WebSocket, without the Socket.IO client library. It connects with the WebSocket transport
+ * directly instead of starting with HTTP long polling, and supports text packets on the default
+ * namespace only, which is all the conference server uses.
+ */
+public final class WebSocketSignalingTransport implements ConferenceSignalingTransport {
+    private static final long RECONNECTION_DELAY_MS = 1000;
+    private static final long MAX_RECONNECTION_DELAY_MS = 5000;
+    private final OkHttpClient httpClient;
+    // Runs the ping and reconnection timers.
+    private final SerialExecutor executor = WorkerPool.newSerialExecutor();
+    // key: ack id.
+    private final HashMap<Integer, Ack> acks = new HashMap<>();
+    // Ids of the acks whose object arguments are delivered as RawJson.
+    private final HashSet<Integer> rawAcks = new HashSet<>();
+    private int nextAckId = 0;
+    private String url;
+    private int reconnectionAttempts;
+    private int attempts = 0;
+    private TransportObserver observer;
+    // Current WebSocket, callbacks of the former ones are ignored.
+    private WebSocket webSocket;
+    // Whether the Socket.IO connection has been established on |webSocket|.
+    private boolean connected = false;
+    // Whether disconnect() has been called.
+    private boolean closed = false;
+    private long pingIntervalMs;
+    private long pingTimeoutMs;
+    private boolean waitingForPong = false;
+    private ScheduledFuture<?> pingTask;
+    private ScheduledFuture<?> reconnectTask;
+
+    private WebSocketSignalingTransport(ConferenceClientConfiguration configuration) {
+        httpClient = SocketIoSignalingTransport.httpClient(configuration);
+    }
+
+    /**
+     * Get a Factory creating WebSocketSignalingTransports, using the SSL context and hostname
+     * verifier of the ConferenceClientConfiguration.
+     *
+     * @return ConferenceSignalingTransport.Factory
+     */
+    public static Factory factory() {
+        return WebSocketSignalingTransport::new;
+    }
+
+    @Override
+    public void connect(String url, int reconnectionAttempts, TransportObserver observer) {
+        synchronized (this) {
+            DCHECK(this.observer == null);
+            this.url = url;
+            this.reconnectionAttempts = reconnectionAttempts;
+            this.observer = observer;
+            open();
+        }
+    }
+
+    @Override
+    public void disconnect() {
+        synchronized (this) {
+            if (closed || observer == null) {
+                return;
+            }
+            closed = true;
+            cancelTasks();
+            if (webSocket != null) {
+                if (connected) {
+                    webSocket.send("41");
+                }
+                webSocket.close(1000, null);
+                webSocket = null;
+            }
+            connected = false;
+            acks.clear();
+            rawAcks.clear();
+        }
+        executor.execute(observer::onDisconnected);
+        executor.shutdown();
+    }
+
+    @Override
+    public synchronized boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void emit(String event, Object message, Ack ack) {
+        JSONArray packet = new JSONArray();
+        packet.put(event);
+        if (message != null) {
+            packet.put(message);
+        }
+        synchronized (this) {
+            if (!connected) {
+                Log.w(LOG_TAG, "Dropped " + event + " sent while disconnected.");
+                return;
+            }
+            String ackId = "";
+            if (ack != null) {
+                acks.put(nextAckId, ack);
+                if (event.equals("login")) {
+                    // Lets the room snapshot be read incrementally.
+                    rawAcks.add(nextAckId);
+                }
+                ackId = String.valueOf(nextAckId++);
+            }
+            webSocket.send("42" + ackId + packet.toString());
+        }
+    }
+
+    // Called with the lock held.
+    private void open() {
+        String wsUrl = url.replaceFirst("^http", "ws") + "/socket.io/?EIO=3&transport=websocket";
+        webSocket = httpClient.newWebSocket(new Request.Builder().url(wsUrl).build(),
+                new Listener());
+    }
+
+    // Called with the lock held.
+    private void cancelTasks() {
+        if (pingTask != null) {
+            pingTask.cancel(false);
+            pingTask = null;
+        }
+        if (reconnectTask != null) {
+            reconnectTask.cancel(false);
+            reconnectTask = null;
+        }
+        waitingForPong = false;
+    }
+
+    private void onLost(WebSocket socket, String reason) {
+        boolean wasConnected;
+        synchronized (this) {
+            if (socket != webSocket) {
+                return;
+            }
+            Log.d(LOG_TAG, "WebSocket lost: " + reason);
+            wasConnected = connected;
+            connected = false;
+            cancelTasks();
+            webSocket.cancel();
+            webSocket = null;
+            // Like Socket.IO, acks of the lost connection are never called.
+            acks.clear();
+            rawAcks.clear();
+            if (attempts < reconnectionAttempts) {
+                attempts++;
+                long delay = Math.min(RECONNECTION_DELAY_MS * attempts, MAX_RECONNECTION_DELAY_MS);
+                reconnectTask = WorkerPool.schedule(executor, this::reconnect, delay);
+            }
+        }
+        if (!wasConnected) {
+            observer.onConnectError(reason);
+        }
+    }
+
+    private void reconnect() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            reconnectTask = null;
+        }
+        observer.onReconnecting();
+        synchronized (this) {
+            if (!closed) {
+                open();
+            }
+        }
+    }
+
+    private void sendPing() {
+        synchronized (this) {
+            if (webSocket == null) {
+                return;
+            }
+            webSocket.send("2");
+            waitingForPong = true;
+            final WebSocket socket = webSocket;
+            pingTask = WorkerPool.schedule(executor, () -> {
+                boolean timedOut;
+                synchronized (this) {
+                    timedOut = waitingForPong;
+                }
+                if (timedOut) {
+                    onLost(socket, "ping timeout");
+                }
+            }, pingTimeoutMs);
+        }
+    }
+
+    // Handles an Engine.IO packet.
+    private void onPacket(WebSocket socket, String packet) throws JSONException {
+        switch (packet.charAt(0)) {
+            case '0':
+                JSONObject handshake = new JSONObject(packet.substring(1));
+                synchronized (this) {
+                    pingIntervalMs = handshake.getLong("pingInterval");
+                    pingTimeoutMs = handshake.getLong("pingTimeout");
+                    pingTask = WorkerPool.schedule(executor, this::sendPing, pingIntervalMs);
+                }
+                break;
+            case '1':
+                onLost(socket, "closed by the server");
+                break;
+            case '3':
+                synchronized (this) {
+                    waitingForPong = false;
+                    if (pingTask != null) {
+                        pingTask.cancel(false);
+                    }
+                    pingTask = WorkerPool.schedule(executor, this::sendPing, pingIntervalMs);
+                }
+                break;
+            case '4':
+                onSocketIoPacket(socket, packet.substring(1));
+                break;
+            default:
+                break;
+        }
+    }
+
+    // Handles a Socket.IO packet.
+    private void onSocketIoPacket(WebSocket socket, String packet) throws JSONException {
+        char type = packet.charAt(0);
+        int dataStart = 1;
+        while (dataStart < packet.length() && Character.isDigit(packet.charAt(dataStart))) {
+            dataStart++;
+        }
+        int id = dataStart > 1 ? Integer.parseInt(packet.substring(1, dataStart)) : -1;
+        String data = packet.substring(dataStart);
+        switch (type) {
+            case '0':
+                synchronized (this) {
+                    connected = true;
+                    attempts = 0;
+                }
+                observer.onConnected();
+                break;
+            case '1':
+                onLost(socket, "disconnected by the server");
+                break;
+            case '2':
+                JSONArray event = new JSONArray(data);
+                observer.onEvent(event.getString(0), event.length() > 1 ? value(event, 1) : null);
+                if (id != -1) {
+                    socket.send("43" + id + "[]");
+                }
+                break;
+            case '3':
+                Ack ack;
+                boolean raw;
+                synchronized (this) {
+                    ack = acks.remove(id);
+                    raw = rawAcks.remove(id);
+                }
+                if (ack != null) {
+                    ack.call(raw ? rawArguments(data) : arguments(data));
+                }
+                break;
+            case '4':
+                onLost(socket, data);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static Object[] arguments(String data) throws JSONException {
+        JSONArray array = new JSONArray(data);
+        Object[] args = new Object[array.length()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = value(array, i);
+        }
+        return args;
+    }
+
+    // Like arguments(), but objects are left unparsed as RawJson. The elements of the array are
+    // found by scanning for the commas at depth 1 outside of strings.
+    private static Object[] rawArguments(String data) throws JSONException {
+        List<Object> args = new ArrayList<>();
+        int depth = 0;
+        int start = -1;
+        boolean inString = false;
+        for (int i = 0; i < data.length(); i++) {
+            char c = data.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    inString = true;
+                    break;
+                case '[':
+                case '{':
+                    if (++depth == 1) {
+                        start = i + 1;
+                    }
+                    break;
+                case ']':
+                case '}':
+                    if (--depth == 0) {
+                        addRawArgument(args, data.substring(start, i));
+                    }
+                    break;
+                case ',':
+                    if (depth == 1) {
+                        addRawArgument(args, data.substring(start, i));
+                        start = i + 1;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (depth != 0 || start == -1) {
+            throw new JSONException("Malformed ack: " + data);
+        }
+        return args.toArray();
+    }
+
+    private static void addRawArgument(List<Object> args, String element) throws JSONException {
+        element = element.trim();
+        if (element.isEmpty()) {
+            return;
+        }
+        if (element.charAt(0) == '{') {
+            args.add(new RawJson(element));
+        } else {
+            Object value = new JSONTokener(element).nextValue();
+            args.add(value == JSONObject.NULL ? null : value);
+        }
+    }
+
+    private static Object value(JSONArray array, int index) throws JSONException {
+        Object value = array.get(index);
+        return value == JSONObject.NULL ? null : value;
+    }
+
+    private class Listener extends WebSocketListener {
+        @Override
+        public void onMessage(WebSocket socket, String text) {
+            synchronized (WebSocketSignalingTransport.this) {
+                if (socket != webSocket || text.isEmpty()) {
+                    return;
+                }
+            }
+            try {
+                onPacket(socket, text);
+            } catch (JSONException e) {
+                DCHECK(e);
+            }
+        }
+
+        @Override
+        public void onClosing(WebSocket socket, int code, String reason) {
+            onLost(socket, "closing: " + code + " " + reason);
+        }
+
+        @Override
+        public void onFailure(WebSocket socket, Throwable t, Response response) {
+            onLost(socket, t.getMessage() != null ? t.getMessage() : t.toString());
+        }
+    }
+}
@@ -3,6 +3,8 @@ import android.util.Log;
 import owt.p2p.P2PClient;
 import owt.p2p.RemoteStream;
 
+import java.nio.ByteBuffer;
+
 public class Expectations implements P2PClient.P2PClientObserver{
     private static final String TAG = Expectations.class.getSimpleName();
 
@@ -20,4 +22,19 @@ public class Expectations implements P2PClient.P2PClientObserver{
     public void onDataReceived(String peerId, String message) {
         Log.v(TAG, "onDataReceived.");
     }
+
+    @Override
+    public void onDataReceived(String peerId, ByteBuffer message) {
+        Log.v(TAG, "onDataReceived.");
+    }
+
+    @Override
+    public void onDataReceived(String peerId, String label, ByteBuffer message) {
+        Log.v(TAG, "onDataReceived.");
+    }
+
+    @Override
+    public void onDataChannelWritable(String peerId, boolean writable) {
+        Log.v(TAG, "onDataChannelWritable.");
+    }
 }
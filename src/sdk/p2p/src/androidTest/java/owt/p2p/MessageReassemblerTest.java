@@ -0,0 +1,120 @@
+package owt.p2p;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+
+import static owt.p2p.MessageFragmenter.CANCEL;
+import static owt.p2p.MessageFragmenter.FIRST;
+import static owt.p2p.MessageFragmenter.FRAME_SIZE;
+import static owt.p2p.MessageFragmenter.LAST;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+
+@RunWith(AndroidJUnit4.class)
+public class MessageReassemblerTest {
+    private static final int MAX_MESSAGE_BYTES = 1000;
+
+    private final MessageReassembler reassembler =
+            new MessageReassembler(new BufferPool(0), MAX_MESSAGE_BYTES);
+
+    // Frame of |payloadBytes| bytes of the message |id|, announcing |length| if FIRST is set.
+    private static ByteBuffer frame(int flags, int id, long length, int payloadBytes) {
+        ByteBuffer frame = ByteBuffer.allocate(MessageFragmenter.FIRST_HEADER_SIZE + payloadBytes);
+        frame.put((byte) flags).putInt(id);
+        if ((flags & FIRST) != 0) {
+            frame.putLong(length);
+        }
+        frame.position(frame.position() + payloadBytes);
+        frame.flip();
+        return frame;
+    }
+
+    @Test
+    public void testFragmentedMessage() {
+        ByteBuffer payload = ByteBuffer.allocate(200 * 1024);
+        while (payload.hasRemaining()) {
+            payload.put((byte) payload.position());
+        }
+        payload.flip();
+        MessageReassembler reassembler =
+                new MessageReassembler(new BufferPool(0), payload.remaining());
+        MessageFragmenter fragmenter = new MessageFragmenter(1, payload, false);
+        MessageReassembler.Message message = null;
+        while (fragmenter.remaining() > 0) {
+            assertNull(message);
+            message = reassembler.onFrame(fragmenter.next().data);
+        }
+        assertNotNull(message);
+        assertEquals(payload, message.data);
+    }
+
+    @Test
+    public void testMessageTooLong() {
+        assertNull(reassembler.onFrame(frame(FIRST, 1, MAX_MESSAGE_BYTES + 1, 10)));
+        assertNull(reassembler.onFrame(frame(LAST, 1, 0, 10)));
+        assertNull(reassembler.onFrame(frame(FIRST | LAST, 2, Integer.MAX_VALUE + 1L, 0)));
+
+        MessageReassembler.Message message =
+                reassembler.onFrame(frame(FIRST | LAST, 3, MAX_MESSAGE_BYTES, MAX_MESSAGE_BYTES));
+        assertNotNull(message);
+        assertEquals(MAX_MESSAGE_BYTES, message.data.remaining());
+    }
+
+    @Test
+    public void testTooManyPartialMessages() {
+        for (int id = 0; id < MessageReassembler.MAX_PARTIAL_MESSAGES; id++) {
+            assertNull(reassembler.onFrame(frame(FIRST, id, 2, 1)));
+        }
+        int dropped = MessageReassembler.MAX_PARTIAL_MESSAGES;
+        assertNull(reassembler.onFrame(frame(FIRST, dropped, 2, 1)));
+        assertNull(reassembler.onFrame(frame(LAST, dropped, 0, 1)));
+
+        // Completing or cancelling a message makes room for another one.
+        assertNotNull(reassembler.onFrame(frame(LAST, 0, 0, 1)));
+        reassembler.onFrame(frame(CANCEL, 1, 0, 0));
+        assertNull(reassembler.onFrame(frame(FIRST, dropped, 2, 1)));
+        assertNull(reassembler.onFrame(frame(FIRST, dropped + 1, 2, 1)));
+        assertNotNull(reassembler.onFrame(frame(LAST, dropped, 0, 1)));
+        assertNotNull(reassembler.onFrame(frame(LAST, dropped + 1, 0, 1)));
+    }
+
+    @Test
+    public void testBufferGrowsAsFramesArrive() {
+        int maxMessageBytes = MessageReassembler.MAX_PARTIAL_MESSAGES * FRAME_SIZE;
+        MessageReassembler reassembler =
+                new MessageReassembler(new BufferPool(0), maxMessageBytes);
+        // Only a frame is allocated for each message until more of it arrives.
+        for (int id = 0; id < MessageReassembler.MAX_PARTIAL_MESSAGES; id++) {
+            assertNull(reassembler.onFrame(frame(FIRST, id, maxMessageBytes, 1)));
+        }
+        for (int id = 1; id < MessageReassembler.MAX_PARTIAL_MESSAGES; id++) {
+            reassembler.onFrame(frame(CANCEL, id, 0, 0));
+        }
+        MessageReassembler.Message message = null;
+        for (int received = 1; received < maxMessageBytes; received += FRAME_SIZE / 2) {
+            assertNull(message);
+            int payloadBytes = Math.min(FRAME_SIZE / 2, maxMessageBytes - received);
+            message = reassembler.onFrame(frame(received + payloadBytes == maxMessageBytes
+                    ? LAST : 0, 0, 0, payloadBytes));
+        }
+        assertNotNull(message);
+        assertEquals(maxMessageBytes, message.data.remaining());
+    }
+
+    @Test
+    public void testTooManyPartialBytes() {
+        assertNull(reassembler.onFrame(frame(FIRST, 1, 600, 100)));
+        assertNull(reassembler.onFrame(frame(FIRST, 2, 600, 100)));
+        assertNull(reassembler.onFrame(frame(LAST, 2, 0, 500)));
+
+        assertNotNull(reassembler.onFrame(frame(LAST, 1, 0, 500)));
+        assertNull(reassembler.onFrame(frame(FIRST, 2, 600, 100)));
+        assertNotNull(reassembler.onFrame(frame(LAST, 2, 0, 500)));
+    }
+}
@@ -0,0 +1,135 @@
+package owt.p2p;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import owt.base.ActionCallback;
+import owt.base.OwtError;
+
+@RunWith(AndroidJUnit4.class)
+public class PendingAcksTest {
+    private static final long TIMEOUT_MS = 300;
+
+    private static final class Callback implements ActionCallback<Void> {
+        final CountDownLatch failed = new CountDownLatch(1);
+        volatile OwtError error;
+
+        @Override
+        public void onSuccess(Void result) {
+        }
+
+        @Override
+        public void onFailure(OwtError error) {
+            this.error = error;
+            failed.countDown();
+        }
+    }
+
+    private final PendingAcks pendingAcks =
+            new PendingAcks(new TimerWheel(Runnable::run), TIMEOUT_MS);
+
+    @Test
+    public void testTimeoutStartsOnceHandedToDataChannel() throws InterruptedException {
+        Callback queued = new Callback();
+        long id = pendingAcks.add(queued);
+        // A message still in the data channel queue does not time out.
+        assertFalse(queued.failed.await(TIMEOUT_MS * 2, TimeUnit.MILLISECONDS));
+        assertEquals(0, pendingAcks.metrics().oldestAckAgeMs, 0);
+
+        long startNs = System.nanoTime();
+        pendingAcks.start(id);
+        assertTrue(queued.failed.await(TIMEOUT_MS * 3, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - startNs >= TIMEOUT_MS * 1000000);
+        assertEquals(OwtP2PError.P2P_MESSAGING_TARGET_UNREACHABLE.value, queued.error.errorCode);
+        assertNull(pendingAcks.remove(id));
+        MessageAckMetrics metrics = pendingAcks.metrics();
+        assertEquals(0, metrics.outstandingAcks);
+        assertEquals(1, metrics.timedOutAcks);
+    }
+
+    @Test
+    public void testAckedMessageDoesNotTimeOut() throws InterruptedException {
+        Callback acked = new Callback();
+        Callback late = new Callback();
+        long ackedId = pendingAcks.add(acked);
+        long lateId = pendingAcks.add(late);
+        pendingAcks.start(ackedId);
+        pendingAcks.start(lateId);
+        assertSame(acked, pendingAcks.remove(ackedId));
+        assertTrue(late.failed.await(TIMEOUT_MS * 3, TimeUnit.MILLISECONDS));
+        assertEquals(1, acked.failed.getCount());
+        assertEquals(1, pendingAcks.metrics().timedOutAcks);
+    }
+
+    @Test
+    public void testWrapAround() {
+        // Ids go around the ring many times with a few messages outstanding.
+        ArrayList<Long> ids = new ArrayList<>();
+        ArrayList<Callback> callbacks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Callback callback = new Callback();
+            ids.add(pendingAcks.add(callback));
+            callbacks.add(callback);
+            // Messages sent without callback take an id but no slot.
+            pendingAcks.add(null);
+            if (ids.size() > 10) {
+                assertSame(callbacks.remove(0), pendingAcks.remove(ids.remove(0)));
+            }
+        }
+        assertEquals(10, pendingAcks.metrics().outstandingAcks);
+        assertEquals(11, pendingAcks.metrics().maxOutstandingAcks);
+        assertEquals(callbacks, pendingAcks.removeAll());
+        assertEquals(0, pendingAcks.metrics().outstandingAcks);
+    }
+
+    @Test
+    public void testGrowth() {
+        // The oldest message stays outstanding, so the ring grows to hold the ids after it.
+        Callback oldest = new Callback();
+        long oldestId = pendingAcks.add(oldest);
+        List<Long> ids = new ArrayList<>();
+        List<Callback> callbacks = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Callback callback = new Callback();
+            long id = pendingAcks.add(callback);
+            pendingAcks.start(id);
+            ids.add(id);
+            callbacks.add(callback);
+        }
+        assertEquals(501, pendingAcks.metrics().outstandingAcks);
+
+        // Half of them are acked in any order, the others up to the last one at once.
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += 2) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(0));
+        for (int i : order) {
+            assertSame(callbacks.get(i), pendingAcks.remove(ids.get(i)));
+            assertNull(pendingAcks.remove(ids.get(i)));
+        }
+        List<Callback> remaining = new ArrayList<>();
+        remaining.add(oldest);
+        for (int i = 1; i < ids.size(); i += 2) {
+            remaining.add(callbacks.get(i));
+        }
+        assertEquals(remaining, pendingAcks.removeUpTo(ids.get(ids.size() - 1)));
+        assertNull(pendingAcks.remove(oldestId));
+        assertEquals(0, pendingAcks.metrics().outstandingAcks);
+    }
+}
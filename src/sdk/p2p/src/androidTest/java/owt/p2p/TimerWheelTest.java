@@ -0,0 +1,79 @@
+package owt.p2p;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+public class TimerWheelTest {
+    // A turn of the wheel, see TimerWheel.SLOTS.
+    private static final int SLOTS = 512;
+
+    private final TimerWheel timerWheel = new TimerWheel(Runnable::run);
+
+    private long nowTick() {
+        return timerWheel.tickOf(System.nanoTime());
+    }
+
+    @Test
+    public void testTimeoutsInOrder() throws InterruptedException {
+        List<Integer> fired = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        long tick = nowTick();
+        for (int i : new int[]{3, 1, 2}) {
+            timerWheel.schedule(() -> {
+                synchronized (fired) {
+                    fired.add(i);
+                }
+                done.countDown();
+            }, tick + i);
+        }
+        assertTrue(done.await(TimerWheel.TICK_MS * 10, TimeUnit.MILLISECONDS));
+        assertEquals(1, (int) fired.get(0));
+        assertEquals(2, (int) fired.get(1));
+        assertEquals(3, (int) fired.get(2));
+    }
+
+    @Test
+    public void testPastTickFiresOnNextTick() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        timerWheel.schedule(fired::countDown, 0);
+        assertTrue(fired.await(TimerWheel.TICK_MS * 5, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testTimeoutOfLaterTurnStaysInItsSlot() throws InterruptedException {
+        CountDownLatch nextTurn = new CountDownLatch(1);
+        CountDownLatch thisTurn = new CountDownLatch(1);
+        long tick = nowTick() + 2;
+        // Both in the same slot, which is visited twice before the first one is due.
+        timerWheel.schedule(nextTurn::countDown, tick + SLOTS);
+        timerWheel.schedule(thisTurn::countDown, tick);
+        assertTrue(thisTurn.await(TimerWheel.TICK_MS * 10, TimeUnit.MILLISECONDS));
+        assertFalse(nextTurn.await(TimerWheel.TICK_MS * 5, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testRestartsAfterIdle() throws InterruptedException {
+        CountDownLatch first = new CountDownLatch(1);
+        timerWheel.schedule(first::countDown, nowTick() + 1);
+        assertTrue(first.await(TimerWheel.TICK_MS * 5, TimeUnit.MILLISECONDS));
+        // The wheel stops ticking once idle, and catches up with the time passed meanwhile.
+        Thread.sleep(TimerWheel.TICK_MS * 5);
+        CountDownLatch second = new CountDownLatch(1);
+        long startNs = System.nanoTime();
+        timerWheel.schedule(second::countDown, nowTick() + 2);
+        assertTrue(second.await(TimerWheel.TICK_MS * 5, TimeUnit.MILLISECONDS));
+        assertTrue(System.nanoTime() - startNs >= TimerWheel.TICK_MS * 1000000);
+    }
+}
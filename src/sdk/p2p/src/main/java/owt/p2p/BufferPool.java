@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.p2p;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of the direct buffers messages are reassembled into. Capacities are powers of two from
+ * MIN_CAPACITY to MAX_CAPACITY, larger buffers are allocated for each message and not pooled.
+ * Released buffers are kept up to |maxPooledBytes| in total.
+ */
+final class BufferPool {
+    static final int MIN_CAPACITY = 4 * 1024;
+    static final int MAX_CAPACITY = 16 * 1024 * 1024;
+    private static final int MIN_CAPACITY_SHIFT = Integer.numberOfTrailingZeros(MIN_CAPACITY);
+
+    // Free buffers of each capacity, indexed by log2(capacity / MIN_CAPACITY).
+    private final List<ArrayDeque<ByteBuffer>> freeBuffers = new ArrayList<>();
+    private final long maxPooledBytes;
+    private long pooledBytes = 0;
+
+    BufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = maxPooledBytes;
+        for (int capacity = MIN_CAPACITY; capacity <= MAX_CAPACITY; capacity <<= 1) {
+            freeBuffers.add(new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * @return direct buffer with position 0 and limit |size|.
+     */
+    synchronized ByteBuffer acquire(int size) {
+        if (size > MAX_CAPACITY) {
+            return ByteBuffer.allocateDirect(size);
+        }
+        int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(size - 1) << 1);
+        ByteBuffer buffer = freeBuffers.get(index(capacity)).poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(capacity);
+        } else {
+            pooledBytes -= capacity;
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Return |buffer| to the pool, read-only buffers and those of capacities not pooled are
+     * ignored. |buffer| must not be used or released again afterwards.
+     */
+    synchronized void release(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (!buffer.isDirect() || buffer.isReadOnly() || capacity < MIN_CAPACITY
+                || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1
+                || pooledBytes + capacity > maxPooledBytes) {
+            return;
+        }
+        freeBuffers.get(index(capacity)).push(buffer);
+        pooledBytes += capacity;
+    }
+
+    private static int index(int capacity) {
+        return Integer.numberOfTrailingZeros(capacity) - MIN_CAPACITY_SHIFT;
+    }
+}
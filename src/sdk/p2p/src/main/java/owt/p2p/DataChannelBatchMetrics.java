@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.p2p;
+
+/**
+ * Counters of the batches of small messages exchanged with a remote P2PClient on the default
+ * data channel, see P2PClientConfiguration.Builder.setDataChannelBatching().
+ */
+public final class DataChannelBatchMetrics {
+    /**
+     * Number of batches sent.
+     */
+    public final long sentBatches;
+    /**
+     * Number of messages sent in batches.
+     */
+    public final long batchedMessages;
+    /**
+     * Maximum number of messages a batch has been sent with.
+     */
+    public final int maxBatchMessages;
+    /**
+     * Average size of the batches sent, in bytes.
+     */
+    public final double averageBatchBytes;
+    /**
+     * Average and maximum time the first message of a batch has waited for it to be sent, in
+     * milliseconds.
+     */
+    public final double averageDelayMs, maxDelayMs;
+    /**
+     * Number of batches received.
+     */
+    public final long receivedBatches;
+    /**
+     * Number of messages received in batches.
+     */
+    public final long receivedBatchedMessages;
+
+    DataChannelBatchMetrics(long sentBatches, long batchedMessages, int maxBatchMessages,
+            double averageBatchBytes, double averageDelayMs, double maxDelayMs,
+            long receivedBatches, long receivedBatchedMessages) {
+        this.sentBatches = sentBatches;
+        this.batchedMessages = batchedMessages;
+        this.maxBatchMessages = maxBatchMessages;
+        this.averageBatchBytes = averageBatchBytes;
+        this.averageDelayMs = averageDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.receivedBatches = receivedBatches;
+        this.receivedBatchedMessages = receivedBatchedMessages;
+    }
+
+    @Override
+    public String toString() {
+        return "sentBatches=" + sentBatches + ", batchedMessages=" + batchedMessages
+                + ", maxBatchMessages=" + maxBatchMessages + ", averageBatchBytes="
+                + averageBatchBytes + ", averageDelayMs=" + averageDelayMs + ", maxDelayMs="
+                + maxDelayMs + ", receivedBatches=" + receivedBatches
+                + ", receivedBatchedMessages=" + receivedBatchedMessages;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.p2p;
+
+/**
+ * Gauges of the text messages sent to a remote P2PClient and waiting for its ack, see
+ * P2PClientConfiguration.Builder.setMessageAckTimeout().
+ */
+public final class MessageAckMetrics {
+    /**
+     * Number of messages waiting for an ack.
+     */
+    public final int outstandingAcks;
+    /**
+     * Maximum number of messages that have been waiting for an ack at a time.
+     */
+    public final int maxOutstandingAcks;
+    /**
+     * Number of messages that have failed because they were not acked in time.
+     */
+    public final long timedOutAcks;
+    /**
+     * Time the oldest outstanding message has been waiting for its ack since it was handed to
+     * the data channel, in milliseconds. 0 if there is none or it is still queued.
+     */
+    public final double oldestAckAgeMs;
+
+    MessageAckMetrics(int outstandingAcks, int maxOutstandingAcks, long timedOutAcks,
+            double oldestAckAgeMs) {
+        this.outstandingAcks = outstandingAcks;
+        this.maxOutstandingAcks = maxOutstandingAcks;
+        this.timedOutAcks = timedOutAcks;
+        this.oldestAckAgeMs = oldestAckAgeMs;
+    }
+
+    @Override
+    public String toString() {
+        return "outstandingAcks=" + outstandingAcks + ", maxOutstandingAcks=" + maxOutstandingAcks
+                + ", timedOutAcks=" + timedOutAcks + ", oldestAckAgeMs=" + oldestAckAgeMs;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.p2p;
+
+import static owt.p2p.MessageFragmenter.BATCH;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import owt.base.ActionCallback;
+
+/**
+ * Packs small messages into a single binary message of at most |maxBytes|, for remote endpoints
+ * that support data channel batching. The messages are copied into the batch once it is polled.
+ * Not thread-safe.
+ *
+ * Batch: [flags: 1 byte, BATCH][entry]...
+ * Entry: [length of the message << 1 | 1 if binary: varint][message]
+ */
+final class MessageBatcher {
+    static final int HEADER_SIZE = 1;
+
+    static final class Batch {
+        final ByteBuffer data;
+        // Callbacks of the messages in the batch, in order, some may be null.
+        final List<ActionCallback<Void>> callbacks;
+
+        Batch(ByteBuffer data, List<ActionCallback<Void>> callbacks) {
+            this.data = data;
+            this.callbacks = callbacks;
+        }
+    }
+
+    interface EntryHandler {
+        void onEntry(ByteBuffer message, boolean binary);
+    }
+
+    static final class Entry {
+        final Object token;
+        final ByteBuffer message;
+        final boolean binary;
+        final ActionCallback<Void> callback;
+
+        Entry(Object token, ByteBuffer message, boolean binary, ActionCallback<Void> callback) {
+            this.token = token;
+            this.message = message;
+            this.binary = binary;
+            this.callback = callback;
+        }
+    }
+
+    private final int maxBytes;
+    private final ArrayList<Entry> entries = new ArrayList<>();
+    // Size of the batch being built.
+    private int size = HEADER_SIZE;
+    private long firstAddedAtNs;
+    // Counters of the batches sent and received.
+    private long sentBatches = 0;
+    private long batchedMessages = 0;
+    private int maxBatchMessages = 0;
+    private long batchedBytes = 0;
+    private long totalDelayNs = 0;
+    private long maxDelayNs = 0;
+    private long receivedBatches = 0;
+    private long receivedBatchedMessages = 0;
+
+    MessageBatcher(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return whether a message of |length| bytes fits in an empty batch.
+     */
+    boolean accepts(int length) {
+        return HEADER_SIZE + entrySize(length) <= maxBytes;
+    }
+
+    /**
+     * @return whether a message of |length| bytes fits in the batch being built.
+     */
+    boolean fits(int length) {
+        return size + entrySize(length) <= maxBytes;
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Add the remaining bytes of |message|, which must fit, to the batch being built.
+     *
+     * @param token identifies the message for remove().
+     * @return whether |message| is the first message of the batch.
+     */
+    boolean add(Object token, ByteBuffer message, boolean binary, ActionCallback<Void> callback) {
+        boolean first = entries.isEmpty();
+        if (first) {
+            firstAddedAtNs = System.nanoTime();
+        }
+        entries.add(new Entry(token, message, binary, callback));
+        size += entrySize(message.remaining());
+        return first;
+    }
+
+    /**
+     * Remove the message identified by |token| from the batch being built.
+     *
+     * @return Entry of the message, null if it is not in the batch.
+     */
+    Entry remove(Object token) {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.token == token) {
+                entries.remove(i);
+                size -= entrySize(entry.message.remaining());
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the batch built so far, null if it is empty. A new batch is started.
+     */
+    Batch poll() {
+        if (entries.isEmpty()) {
+            return null;
+        }
+        ByteBuffer data = ByteBuffer.allocate(size);
+        data.put(BATCH);
+        ArrayList<ActionCallback<Void>> callbacks = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            int length = entry.message.remaining();
+            putVarint(data, (length << 1) | (entry.binary ? 1 : 0));
+            data.put(entry.message.duplicate());
+            callbacks.add(entry.callback);
+        }
+        data.flip();
+
+        long delayNs = System.nanoTime() - firstAddedAtNs;
+        sentBatches++;
+        batchedMessages += entries.size();
+        maxBatchMessages = Math.max(maxBatchMessages, entries.size());
+        batchedBytes += size;
+        totalDelayNs += delayNs;
+        maxDelayNs = Math.max(maxDelayNs, delayNs);
+
+        entries.clear();
+        size = HEADER_SIZE;
+        return new Batch(data, callbacks);
+    }
+
+    void onBatchReceived(int messages) {
+        receivedBatches++;
+        receivedBatchedMessages += messages;
+    }
+
+    DataChannelBatchMetrics metrics() {
+        return new DataChannelBatchMetrics(sentBatches, batchedMessages, maxBatchMessages,
+                sentBatches == 0 ? 0 : (double) batchedBytes / sentBatches,
+                sentBatches == 0 ? 0 : totalDelayNs / 1e6 / sentBatches, maxDelayNs / 1e6,
+                receivedBatches, receivedBatchedMessages);
+    }
+
+    /**
+     * Read the messages of the batch in the remaining bytes of |batch|, which must start with
+     * the BATCH flags. The buffers passed to |handler| are only valid during the call.
+     *
+     * @return number of messages read, -1 if the batch is invalid.
+     */
+    static int read(ByteBuffer batch, EntryHandler handler) {
+        if (!batch.hasRemaining() || (batch.get() & BATCH) == 0) {
+            return -1;
+        }
+        int messages = 0;
+        int limit = batch.limit();
+        while (batch.hasRemaining()) {
+            int prefix = getVarint(batch);
+            int length = prefix >>> 1;
+            if (prefix < 0 || length > batch.remaining()) {
+                return -1;
+            }
+            batch.limit(batch.position() + length);
+            handler.onEntry(batch.slice(), (prefix & 1) != 0);
+            batch.position(batch.limit());
+            batch.limit(limit);
+            messages++;
+        }
+        return messages;
+    }
+
+    private static int entrySize(int length) {
+        return varintSize((length << 1) | 1) + length;
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    // @return -1 if the varint is truncated or longer than 4 bytes.
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+}
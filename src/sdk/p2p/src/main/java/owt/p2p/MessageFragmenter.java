@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.p2p;
+
+import org.webrtc.DataChannel;
+
+import java.nio.ByteBuffer;
+
+import owt.base.PeerConnectionChannel.DataChannelMessageSource;
+
+/**
+ * Splits a message into binary frames of at most FRAME_SIZE bytes, for remote endpoints that
+ * support data channel fragmentation. Frames are produced one at a time as the data channel
+ * drains, into a single buffer reused for all of them.
+ *
+ * Frame: [flags: 1 byte][message id: 4 bytes][length of the message: 8 bytes, FIRST only][payload]
+ */
+final class MessageFragmenter implements DataChannelMessageSource {
+    static final byte FIRST = 1;
+    static final byte LAST = 2;
+    // The payload is UTF-8 text.
+    static final byte TEXT = 4;
+    // The message is dropped, no payload.
+    static final byte CANCEL = 8;
+    // Messages packed by a MessageBatcher, no message id.
+    static final byte BATCH = 16;
+    static final int HEADER_SIZE = 5;
+    static final int FIRST_HEADER_SIZE = HEADER_SIZE + 8;
+    // The maximum message size a remote endpoint accepts when it announces none.
+    static final int FRAME_SIZE = 64 * 1024;
+
+    private final int id;
+    private final boolean text;
+    private final long length;
+    private final ByteBuffer payload;
+    private ByteBuffer frame;
+
+    /**
+     * @param payload the remaining bytes are framed, its position is left unchanged.
+     */
+    MessageFragmenter(int id, ByteBuffer payload, boolean text) {
+        this.id = id;
+        this.text = text;
+        this.length = payload.remaining();
+        this.payload = payload.slice();
+    }
+
+    @Override
+    public long remaining() {
+        return payload.remaining();
+    }
+
+    @Override
+    public DataChannel.Buffer next() {
+        boolean first = frame == null;
+        if (first) {
+            frame = ByteBuffer.allocate((int) Math.min(FRAME_SIZE, FIRST_HEADER_SIZE + length));
+        }
+        frame.clear();
+        int size = Math.min(payload.remaining(),
+                frame.capacity() - (first ? FIRST_HEADER_SIZE : HEADER_SIZE));
+        byte flags = text ? TEXT : 0;
+        if (first) {
+            flags |= FIRST;
+        }
+        if (size == payload.remaining()) {
+            flags |= LAST;
+        }
+        frame.put(flags).putInt(id);
+        if (first) {
+            frame.putLong(length);
+        }
+        int limit = payload.limit();
+        payload.limit(payload.position() + size);
+        frame.put(payload);
+        payload.limit(limit);
+        frame.flip();
+        return new DataChannel.Buffer(frame, true);
+    }
+
+    @Override
+    public DataChannel.Buffer cancel() {
+        frame.clear();
+        frame.put(CANCEL).putInt(id);
+        frame.flip();
+        return new DataChannel.Buffer(frame, true);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.p2p;
+
+import static owt.base.Const.LOG_TAG;
+import static owt.p2p.MessageFragmenter.CANCEL;
+import static owt.p2p.MessageFragmenter.FIRST;
+import static owt.p2p.MessageFragmenter.FIRST_HEADER_SIZE;
+import static owt.p2p.MessageFragmenter.FRAME_SIZE;
+import static owt.p2p.MessageFragmenter.HEADER_SIZE;
+import static owt.p2p.MessageFragmenter.LAST;
+import static owt.p2p.MessageFragmenter.TEXT;
+
+import android.util.Log;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+
+/**
+ * Reassembles the messages framed by a remote MessageFragmenter, copying the payload of each frame
+ * into a buffer of |bufferPool|. The buffer grows as frames arrive, doubling up to the length
+ * announced by the first frame, so memory is only committed for the bytes actually received.
+ * Messages announced longer than |maxMessageBytes| are dropped, and so are those that would take
+ * the messages being reassembled over MAX_PARTIAL_MESSAGES or their buffers over
+ * |maxMessageBytes| in total, a remote MessageFragmenter sending one message at a time. Not
+ * thread-safe, frames are handled in order on the thread of DataChannel.Observer.
+ */
+final class MessageReassembler {
+    static final class Message {
+        // Position 0, limit at the end of the message.
+        final ByteBuffer data;
+        final boolean text;
+
+        Message(ByteBuffer data, boolean text) {
+            this.data = data;
+            this.text = text;
+        }
+    }
+
+    private static final class PartialMessage {
+        // Replaced by a larger buffer as frames arrive, its limit being its size.
+        ByteBuffer data;
+        final long length;
+        final boolean text;
+
+        PartialMessage(ByteBuffer data, long length, boolean text) {
+            this.data = data;
+            this.length = length;
+            this.text = text;
+        }
+    }
+
+    static final int MAX_PARTIAL_MESSAGES = 16;
+
+    private final BufferPool bufferPool;
+    private final int maxMessageBytes;
+    // <MessageId, Message being reassembled>
+    private final HashMap<Integer, PartialMessage> partialMessages = new HashMap<>();
+    // Sum of the sizes of the buffers of |partialMessages|.
+    private long partialBytes = 0;
+
+    MessageReassembler(BufferPool bufferPool, int maxMessageBytes) {
+        this.bufferPool = bufferPool;
+        this.maxMessageBytes = maxMessageBytes;
+    }
+
+    /**
+     * Handle the remaining bytes of |frame|, which are only read during this call.
+     *
+     * @return the message |frame| completes, null if there is none.
+     */
+    Message onFrame(ByteBuffer frame) {
+        if (frame.remaining() < HEADER_SIZE) {
+            Log.w(LOG_TAG, "Invalid data channel frame.");
+            return null;
+        }
+        byte flags = frame.get();
+        int id = frame.getInt();
+        if ((flags & CANCEL) != 0) {
+            drop(id);
+            return null;
+        }
+        PartialMessage message;
+        if ((flags & FIRST) != 0) {
+            if (frame.remaining() < FIRST_HEADER_SIZE - HEADER_SIZE) {
+                Log.w(LOG_TAG, "Invalid data channel frame.");
+                return null;
+            }
+            long length = frame.getLong();
+            // A message reusing the id of a partial one replaces it.
+            drop(id);
+            if (length < 0 || length > maxMessageBytes) {
+                Log.w(LOG_TAG, "Data channel message too long: " + length);
+                return null;
+            }
+            int size = (int) Math.min(length, Math.max(frame.remaining(), FRAME_SIZE));
+            if (partialMessages.size() >= MAX_PARTIAL_MESSAGES
+                    || partialBytes + size > maxMessageBytes) {
+                Log.w(LOG_TAG, "Too many data channel messages being received, dropping one of "
+                        + length + " bytes.");
+                return null;
+            }
+            message = new PartialMessage(bufferPool.acquire(size), length, (flags & TEXT) != 0);
+            partialMessages.put(id, message);
+            partialBytes += size;
+        } else {
+            message = partialMessages.get(id);
+            if (message == null) {
+                // The first frames of the message have been dropped.
+                return null;
+            }
+        }
+        long received = message.data.position() + (long) frame.remaining();
+        if (received > message.length) {
+            Log.w(LOG_TAG, "Data channel message longer than announced.");
+            drop(id);
+            return null;
+        }
+        if (received > message.data.limit() && !grow(message, (int) received)) {
+            Log.w(LOG_TAG, "Too many data channel messages being received, dropping one of "
+                    + message.length + " bytes.");
+            drop(id);
+            return null;
+        }
+        message.data.put(frame);
+        if ((flags & LAST) == 0) {
+            return null;
+        }
+        partialMessages.remove(id);
+        partialBytes -= message.data.limit();
+        if (message.data.position() < message.length) {
+            Log.w(LOG_TAG, "Data channel message shorter than announced.");
+            bufferPool.release(message.data);
+            return null;
+        }
+        message.data.flip();
+        return new Message(message.data, message.text);
+    }
+
+    // Moves the data of |message| to a buffer of at least |minSize| bytes, doubling its size.
+    // @return false if the buffers of the partial messages would exceed |maxMessageBytes|.
+    private boolean grow(PartialMessage message, int minSize) {
+        int oldSize = message.data.limit();
+        int size = (int) Math.min(message.length, Math.max(minSize, 2L * oldSize));
+        if (partialBytes + size - oldSize > maxMessageBytes) {
+            return false;
+        }
+        ByteBuffer data = bufferPool.acquire(size);
+        message.data.flip();
+        data.put(message.data);
+        bufferPool.release(message.data);
+        message.data = data;
+        partialBytes += size - oldSize;
+        return true;
+    }
+
+    // Drops the partial message |id|, if any.
+    private void drop(int id) {
+        PartialMessage message = partialMessages.remove(id);
+        if (message != null) {
+            partialBytes -= message.data.limit();
+            bufferPool.release(message.data);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.p2p;
+
+import owt.base.PeerConnectionChannel.DataChannelMessageSource;
+
+/**
+ * OutgoingMessage handles a message being sent to a remote P2PClient by P2PClient.send().
+ */
+public final class OutgoingMessage {
+    /**
+     * Id of the remote P2PClient the message is sent to.
+     */
+    public final String peerId;
+    private final P2PPeerConnectionChannel pcChannel;
+    private final DataChannelMessageSource source;
+
+    OutgoingMessage(String peerId, P2PPeerConnectionChannel pcChannel,
+            DataChannelMessageSource source) {
+        this.peerId = peerId;
+        this.pcChannel = pcChannel;
+        this.source = source;
+    }
+
+    /**
+     * Cancel sending the message, unless it has been handed to the data channel as a whole. The
+     * remote P2PClient drops the part of the message it has received, and the ActionCallback of
+     * P2PClient.send() fails.
+     *
+     * @return true if the message has been cancelled.
+     */
+    public boolean cancel() {
+        return pcChannel.cancelData(source);
+    }
+}
@@ -33,6 +33,7 @@ import org.webrtc.IceCandidate;
 import org.webrtc.RTCStatsReport;
 import org.webrtc.SessionDescription;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -40,14 +41,15 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import owt.base.ActionCallback;
 import owt.base.Const;
+import owt.base.DataChannelConfiguration;
+import owt.base.DataChannelQueueMetrics;
 import owt.base.LocalStream;
 import owt.base.OwtError;
 import owt.base.PeerConnectionChannel;
+import owt.base.SerialExecutor;
 import owt.base.Stream;
 import owt.p2p.SignalingChannelInterface.SignalingChannelObserver;
 
@@ -56,6 +58,7 @@ import owt.p2p.SignalingChannelInterface.SignalingChannelObserver;
  */
 public final class P2PClient implements PeerConnectionChannel.PeerConnectionChannelObserver,
         SignalingChannelObserver {
+    private static final long MAX_POOLED_BUFFER_BYTES = 32 * 1024 * 1024;
 
     /**
      * Interface for observing client events.
@@ -80,6 +83,41 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
          * @param message message received.
          */
         void onDataReceived(String peerId, String message);
+
+        /**
+         * Called upon receiving a binary message. If the remote P2PClient supports fragmentation,
+         * |message| is a pooled buffer which may be returned with P2PClient.recycle() once it is
+         * no longer used. Does nothing by default.
+         *
+         * @param peerId id of the message sender.
+         * @param message direct ByteBuffer holding the message.
+         */
+        default void onDataReceived(String peerId, ByteBuffer message) {
+        }
+
+        /**
+         * Called upon receiving a message on a data channel created with a
+         * DataChannelConfiguration, by either P2PClient. Text messages are passed as their UTF-8
+         * bytes. Does nothing by default.
+         *
+         * @param peerId id of the message sender.
+         * @param label label of the data channel.
+         * @param message read-only direct ByteBuffer holding the message.
+         */
+        default void onDataReceived(String peerId, String label, ByteBuffer message) {
+        }
+
+        /**
+         * Called when the data waiting to be sent to a remote P2PClient reaches the high
+         * watermark, |writable| being false, then drops to the low watermark, |writable| being
+         * true. See P2PClientConfiguration.Builder.setDataChannelWatermarks. Does nothing by
+         * default.
+         *
+         * @param peerId id of the remote P2PClient.
+         * @param writable whether more data should be sent.
+         */
+        default void onDataChannelWritable(String peerId, boolean writable) {
+        }
     }
 
     private final P2PClientConfiguration configuration;
@@ -88,14 +126,19 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
     // key: peer id.
     private final ConcurrentHashMap<String, P2PPeerConnectionChannel> pcChannels;
     private final Object pcChannelsLock = new Object();
+    // Buffers binary messages from all remote P2PClients are reassembled into.
+    private final BufferPool bufferPool = new BufferPool(MAX_POOLED_BUFFER_BYTES);
+    // Times out the text messages sent to all remote P2PClients, on |callbackExecutor|.
+    private final TimerWheel ackTimerWheel;
     private String id;
     private SignalingChannelInterface signalingChannel;
     private ServerConnectionStatus serverConnectionStatus;
     private final Object statusLock = new Object();
     // All callbacks need to be triggered on |callbackExecutor|.
-    private ExecutorService callbackExecutor;
-    // All signaling works should be ran on signalingExecutor.
-    private ExecutorService signalingExecutor;
+    private final SerialExecutor callbackExecutor;
+    // All signaling works should be ran on signalingExecutor, which is created by connect() and
+    // shut down once disconnected.
+    private volatile SerialExecutor signalingExecutor;
     // key: stream id.
     private final ConcurrentHashMap<String, JSONObject> streamInfos;
 
@@ -117,8 +160,8 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
         allowedRemotePeers = new HashSet<>();
         pcChannels = new ConcurrentHashMap<>();
         serverConnectionStatus = DISCONNECTED;
-        callbackExecutor = Executors.newSingleThreadExecutor();
-        signalingExecutor = Executors.newSingleThreadExecutor();
+        callbackExecutor = configuration.newCallbackExecutor();
+        ackTimerWheel = new TimerWheel(callbackExecutor);
         streamInfos = new ConcurrentHashMap<>();
     }
 
@@ -193,13 +236,13 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
     public synchronized void connect(final String token, final ActionCallback<String> callback) {
         // Format and content of |token| can be customized, so we do not assume any expectations.
         DCHECK(signalingChannel);
-        DCHECK(signalingExecutor);
         if (!checkConnectionStatus(DISCONNECTED)) {
             triggerCallback(callback, new OwtError(OwtP2PError.P2P_CLIENT_INVALID_STATE.value,
                     "Wrong server connection status."));
             return;
         }
         changeConnectionStatus(CONNECTING);
+        signalingExecutor = configuration.newSignalingExecutor();
         signalingExecutor.execute(
                 () -> signalingChannel.connect(token, new ActionCallback<String>() {
                     @Override
@@ -217,6 +260,7 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
                     @Override
                     public void onFailure(OwtError error) {
                         changeConnectionStatus(DISCONNECTED);
+                        signalingExecutor.shutdown();
                         triggerCallback(callback, error);
                     }
                 }));
@@ -317,36 +361,235 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
     }
 
     /**
-     * Send a text message to a remote P2PClient.
+     * Send a text message to a remote P2PClient. If the remote P2PClient supports fragmentation,
+     * messages longer than 64 KiB are sent in fragments and may be of any size, otherwise those
+     * longer than 0xFFFF characters fail with P2P_CLIENT_ILLEGAL_ARGUMENT.
      *
      * @param peerId id of remote P2PClient.
      * @param message message to be sent.
      * @param callback ActionCallback.onSuccess will be invoked succeeds to send the message.
      * Otherwise when fails to do so, ActionCallback.onFailure will be invoked with the
      * corresponding OwtError.
+     * @return OutgoingMessage to cancel sending the message, null if it is not sent.
      */
-    public synchronized void send(String peerId, String message, ActionCallback<Void> callback) {
+    public synchronized OutgoingMessage send(String peerId, String message,
+            ActionCallback<Void> callback) {
         if (!checkConnectionStatus(CONNECTED)) {
             triggerCallback(callback, new OwtError(OwtP2PError.P2P_CLIENT_INVALID_STATE.value,
                     "Wrong server connection status."));
-            return;
+            return null;
         }
         if (!checkPermission(peerId, callback)) {
-            return;
+            return null;
         }
         RCHECK(message);
-        if (message.length() > 0xFFFF) {
+        if (!containsPCChannel(peerId)) {
+            sendStop(peerId);
+            sendUserInfo(peerId);
+        }
+        P2PPeerConnectionChannel pcChannel = getPeerConnection(peerId);
+        if (message.length() > 0xFFFF && pcChannel.rejectsLongText()) {
             triggerCallback(callback,
                     new OwtError(OwtP2PError.P2P_CLIENT_ILLEGAL_ARGUMENT.value,
                             "Message too long."));
+            return null;
+        }
+        return pcChannel.sendData(message, callback);
+    }
+
+    /**
+     * Send a binary message to a remote P2PClient. The remaining bytes of |message| are sent
+     * without JSON wrapping, and read as the data channel drains, so |message| must not be
+     * modified until |callback| is called. The position of |message| is left unchanged. If the
+     * remote P2PClient supports fragmentation, the message is sent in fragments of 64 KiB and may
+     * be of any size.
+     *
+     * @param peerId id of remote P2PClient.
+     * @param message message to be sent.
+     * @param callback ActionCallback.onSuccess will be invoked once the message has been handed to
+     * the data channel, which does not mean the remote P2PClient has received it. Otherwise when
+     * fails to do so, ActionCallback.onFailure will be invoked with the corresponding OwtError.
+     * @return OutgoingMessage to cancel sending the message, null if it is not sent.
+     */
+    public synchronized OutgoingMessage send(String peerId, ByteBuffer message,
+            final ActionCallback<Void> callback) {
+        if (!checkConnectionStatus(CONNECTED)) {
+            triggerCallback(callback, new OwtError(OwtP2PError.P2P_CLIENT_INVALID_STATE.value,
+                    "Wrong server connection status."));
+            return null;
+        }
+        if (!checkPermission(peerId, callback)) {
+            return null;
+        }
+        RCHECK(message);
+        if (!containsPCChannel(peerId)) {
+            sendStop(peerId);
+            sendUserInfo(peerId);
+        }
+        P2PPeerConnectionChannel pcChannel = getPeerConnection(peerId);
+        return pcChannel.sendData(message, new ActionCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                triggerCallback(callback, result);
+            }
+
+            @Override
+            public void onFailure(OwtError error) {
+                triggerCallback(callback, new OwtError(
+                        OwtP2PError.P2P_CLIENT_INVALID_STATE.value, error.errorMessage));
+            }
+        });
+    }
+
+    /**
+     * Create a data channel to a remote P2PClient in addition to the default one, so that its
+     * messages, e.g. unordered or partially reliable, do not wait for those of the others. The
+     * messages sent before it opens are queued.
+     *
+     * @param peerId id of remote P2PClient.
+     * @param configuration DataChannelConfiguration of the data channel.
+     * @param callback ActionCallback.onSuccess will be invoked once the data channel has been
+     * created. Otherwise when fails to do so, e.g. a data channel with the same label exists,
+     * ActionCallback.onFailure will be invoked with the corresponding OwtError.
+     */
+    public synchronized void createDataChannel(String peerId,
+            DataChannelConfiguration configuration, ActionCallback<Void> callback) {
+        if (!checkConnectionStatus(CONNECTED)) {
+            triggerCallback(callback, new OwtError(OwtP2PError.P2P_CLIENT_INVALID_STATE.value,
+                    "Wrong server connection status."));
+            return;
+        }
+        if (!checkPermission(peerId, callback)) {
             return;
         }
+        RCHECK(configuration);
         if (!containsPCChannel(peerId)) {
             sendStop(peerId);
             sendUserInfo(peerId);
         }
         P2PPeerConnectionChannel pcChannel = getPeerConnection(peerId);
-        pcChannel.sendData(message, callback);
+        if (pcChannel.openDataChannel(configuration)) {
+            triggerCallback(callback, (Void) null);
+        } else {
+            triggerCallback(callback, new OwtError(OwtP2PError.P2P_CLIENT_ILLEGAL_ARGUMENT.value,
+                    "Duplicated data channel."));
+        }
+    }
+
+    /**
+     * Send a binary message on a data channel created with createDataChannel, by either
+     * P2PClient. The message is sent as a single data channel message, without fragmentation,
+     * and |message| must not be modified until |callback| is called.
+     *
+     * @param peerId id of remote P2PClient.
+     * @param label label of the data channel.
+     * @param message message to be sent.
+     * @param callback ActionCallback.onSuccess will be invoked once the message has been handed to
+     * the data channel. Otherwise when fails to do so, e.g. there is no such data channel,
+     * ActionCallback.onFailure will be invoked with the corresponding OwtError.
+     * @return OutgoingMessage to cancel sending the message, null if it is not sent.
+     */
+    public synchronized OutgoingMessage send(String peerId, String label, ByteBuffer message,
+            final ActionCallback<Void> callback) {
+        if (!checkConnectionStatus(CONNECTED)) {
+            triggerCallback(callback, new OwtError(OwtP2PError.P2P_CLIENT_INVALID_STATE.value,
+                    "Wrong server connection status."));
+            return null;
+        }
+        if (!checkPermission(peerId, callback)) {
+            return null;
+        }
+        RCHECK(label);
+        RCHECK(message);
+        if (!containsPCChannel(peerId)) {
+            triggerCallback(callback, new OwtError(OwtP2PError.P2P_CLIENT_INVALID_STATE.value,
+                    "No data channel " + label + "."));
+            return null;
+        }
+        P2PPeerConnectionChannel pcChannel = getPeerConnection(peerId);
+        return pcChannel.sendData(label, message, new ActionCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                triggerCallback(callback, result);
+            }
+
+            @Override
+            public void onFailure(OwtError error) {
+                triggerCallback(callback, new OwtError(
+                        OwtP2PError.P2P_CLIENT_INVALID_STATE.value, error.errorMessage));
+            }
+        });
+    }
+
+    /**
+     * Return a binary message received by P2PClientObserver.onDataReceived to the pool it was
+     * reassembled in, to be reused for later messages. |message| must not be used afterwards.
+     *
+     * @param message ByteBuffer passed to P2PClientObserver.onDataReceived.
+     */
+    public void recycle(ByteBuffer message) {
+        RCHECK(message);
+        bufferPool.release(message);
+    }
+
+    /**
+     * Get the metrics of the data waiting to be sent to a remote P2PClient.
+     *
+     * @param peerId id of remote P2PClient.
+     * @return DataChannelQueueMetrics, null if there is no connection with |peerId|.
+     */
+    public DataChannelQueueMetrics getDataChannelQueueMetrics(String peerId) {
+        RCHECK(peerId);
+        synchronized (pcChannelsLock) {
+            P2PPeerConnectionChannel pcChannel = pcChannels.get(peerId);
+            return pcChannel == null ? null : pcChannel.getDataChannelQueueMetrics();
+        }
+    }
+
+    /**
+     * Get the metrics of the data waiting to be sent to a remote P2PClient on a data channel,
+     * including the latency percentiles of its messages.
+     *
+     * @param peerId id of remote P2PClient.
+     * @param label label of the data channel, DataChannelConfiguration.DEFAULT_LABEL for the
+     * default one.
+     * @return DataChannelQueueMetrics, null if there is no such data channel.
+     */
+    public DataChannelQueueMetrics getDataChannelQueueMetrics(String peerId, String label) {
+        RCHECK(peerId);
+        RCHECK(label);
+        synchronized (pcChannelsLock) {
+            P2PPeerConnectionChannel pcChannel = pcChannels.get(peerId);
+            return pcChannel == null ? null : pcChannel.getDataChannelQueueMetrics(label);
+        }
+    }
+
+    /**
+     * Get the gauges of the text messages sent to a remote P2PClient and waiting for its ack.
+     *
+     * @param peerId id of remote P2PClient.
+     * @return MessageAckMetrics, null if there is no connection with |peerId|.
+     */
+    public MessageAckMetrics getMessageAckMetrics(String peerId) {
+        RCHECK(peerId);
+        synchronized (pcChannelsLock) {
+            P2PPeerConnectionChannel pcChannel = pcChannels.get(peerId);
+            return pcChannel == null ? null : pcChannel.getMessageAckMetrics();
+        }
+    }
+
+    /**
+     * Get the counters of the batches of small messages exchanged with a remote P2PClient.
+     *
+     * @param peerId id of remote P2PClient.
+     * @return DataChannelBatchMetrics, null if there is no connection with |peerId|.
+     */
+    public DataChannelBatchMetrics getDataChannelBatchMetrics(String peerId) {
+        RCHECK(peerId);
+        synchronized (pcChannelsLock) {
+            P2PPeerConnectionChannel pcChannel = pcChannels.get(peerId);
+            return pcChannel == null ? null : pcChannel.getDataChannelBatchMetrics();
+        }
     }
 
     private void permissionDenied(String peerId) {
@@ -374,6 +617,10 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
             }
             pcChannels.clear();
         }
+        if (signalingExecutor != null) {
+            // Tasks already queued still run, the next connect() creates a new one.
+            signalingExecutor.shutdown();
+        }
     }
 
     private void changeConnectionStatus(ServerConnectionStatus newStatus) {
@@ -422,7 +669,7 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
                 return pcChannels.get(peerId);
             }
             P2PPeerConnectionChannel pcChannel = new P2PPeerConnectionChannel(peerId,
-                    config == null ? this.configuration : config, this);
+                    config == null ? this.configuration : config, bufferPool, ackTimerWheel, this);
             pcChannels.put(peerId, pcChannel);
             return pcChannel;
         }
@@ -491,8 +738,13 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
     // message here only accepts JSONObject and JSONArray objects.
     private void sendSignalingMessage(final String peerId, final SignalingMessageType type,
             final Object message, final ActionCallback<Void> callback) {
-        DCHECK(signalingExecutor);
         DCHECK(signalingChannel);
+        SerialExecutor signalingExecutor = this.signalingExecutor;
+        if (signalingExecutor == null || signalingExecutor.isShutdown()) {
+            triggerCallback(callback, new OwtError(OwtP2PError.P2P_CLIENT_INVALID_STATE.value,
+                    "Wrong server connection status."));
+            return;
+        }
         signalingExecutor.execute(() -> {
 
             try {
@@ -591,6 +843,11 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
 
     }
 
+    @Override
+    public void onIceGatheringComplete(String key) {
+
+    }
+
     @Override
     public void onLocalDescription(final String peerId, SessionDescription localSdp) {
         try {
@@ -696,8 +953,19 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
         DCHECK(callbackExecutor);
         DCHECK(pcChannels.containsKey(peerId));
 
+        P2PPeerConnectionChannel pcChannel = pcChannels.get(peerId);
         try {
             JSONObject msg = new JSONObject(message);
+            if (msg.has("ack")) {
+                if (pcChannel != null) {
+                    List<ActionCallback<Void>> acked =
+                            pcChannel.processCumulativeDataAck(msg.getLong("ack"));
+                    for (ActionCallback<Void> callback : acked) {
+                        triggerCallback(callback, (Void) null);
+                    }
+                }
+                return;
+            }
             Long msgId = msg.getLong("id");
             final String msgData = msg.getString("data");
             callbackExecutor.execute(() -> {
@@ -706,7 +974,9 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
                 }
             });
 
-            sendSignalingMessage(peerId, CHAT_DATA_ACK, msgId, null);
+            if (pcChannel == null || !pcChannel.ackDataInBand(msgId)) {
+                sendSignalingMessage(peerId, CHAT_DATA_ACK, msgId, null);
+            }
         } catch (JSONException e) {
             // TODO: Webrtc sometimes trigger this event with weird messages,
             // need to investigate this issue. Temporarily comment out this DCHECK.
@@ -714,6 +984,37 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
         }
     }
 
+    @Override
+    public void onDataChannelWritable(final String peerId, final boolean writable) {
+        DCHECK(callbackExecutor);
+        callbackExecutor.execute(() -> {
+            for (P2PClientObserver observer : observers) {
+                observer.onDataChannelWritable(peerId, writable);
+            }
+        });
+    }
+
+    @Override
+    public void onDataChannelMessage(final String peerId, final ByteBuffer message) {
+        DCHECK(callbackExecutor);
+        callbackExecutor.execute(() -> {
+            for (P2PClientObserver observer : observers) {
+                observer.onDataReceived(peerId, message);
+            }
+        });
+    }
+
+    @Override
+    public void onDataChannelMessage(final String peerId, final String label,
+            final ByteBuffer message) {
+        DCHECK(callbackExecutor);
+        callbackExecutor.execute(() -> {
+            for (P2PClientObserver observer : observers) {
+                observer.onDataReceived(peerId, label, message);
+            }
+        });
+    }
+
     @Override
     public void onRenegotiationRequest(String peerId) {
     }
@@ -6,27 +6,53 @@ package owt.p2p;
 
 import static owt.base.CheckCondition.RCHECK;
 
+import android.os.Handler;
+import android.os.Looper;
+
 import owt.base.AudioEncodingParameters;
 import owt.base.ClientConfiguration;
+import owt.base.MediaCodecs.AudioCodec;
+import owt.base.MediaCodecs.VideoCodec;
+import owt.base.SdpTransformer;
+import owt.base.SdpTransformers;
 import owt.base.VideoEncodingParameters;
 
 import org.webrtc.PeerConnection;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Configuration for P2PClient.
  */
 public final class P2PClientConfiguration extends ClientConfiguration {
+    /**
+     * Default time in milliseconds a text message waits for the ack of the remote P2PClient.
+     */
+    public static final long DEFAULT_MESSAGE_ACK_TIMEOUT_MS = 60 * 1000;
+    /**
+     * Default maximum size in bytes of a message received from a remote P2PClient.
+     */
+    public static final int DEFAULT_MAX_RECEIVED_MESSAGE_SIZE = 16 * 1024 * 1024;
 
     final List<VideoEncodingParameters> videoEncodings;
     final List<AudioEncodingParameters> audioEncodings;
+    // Small messages are batched if |batchingMaxBytes| is positive.
+    long batchingMaxDelayMs = 0;
+    int batchingMaxBytes = 0;
+    long messageAckTimeoutMs = DEFAULT_MESSAGE_ACK_TIMEOUT_MS;
+    int maxReceivedMessageSize = DEFAULT_MAX_RECEIVED_MESSAGE_SIZE;
 
     private P2PClientConfiguration(PeerConnection.RTCConfiguration rtcConfiguration,
             List<AudioEncodingParameters> audioEncodings,
-            List<VideoEncodingParameters> videoEncodings) {
-        super(rtcConfiguration);
+            List<VideoEncodingParameters> videoEncodings, List<SdpTransformer> sdpTransformers,
+            Map<String, List<String>> sectionCodecs, Executor signalingExecutor,
+            Executor peerConnectionExecutor, Executor callbackExecutor) {
+        super(rtcConfiguration, sdpTransformers, sectionCodecs, signalingExecutor,
+                peerConnectionExecutor, callbackExecutor);
         this.audioEncodings = audioEncodings;
         this.videoEncodings = videoEncodings;
     }
@@ -46,9 +72,21 @@ public final class P2PClientConfiguration extends ClientConfiguration {
     public static class Builder {
         private final List<VideoEncodingParameters> videoEncodings = new ArrayList<>();
         private final List<AudioEncodingParameters> audioEncodings = new ArrayList<>();
+        private final List<SdpTransformer> sdpTransformers = new ArrayList<>();
+        private final Map<String, List<String>> sectionCodecs = new HashMap<>();
+        private Executor signalingExecutor = null;
+        private Executor peerConnectionExecutor = null;
+        private Executor callbackExecutor = null;
         private PeerConnection.RTCConfiguration rtcConfiguration = null;
+        private long dataChannelHighWatermark = DEFAULT_DATA_CHANNEL_HIGH_WATERMARK;
+        private long dataChannelLowWatermark = DEFAULT_DATA_CHANNEL_LOW_WATERMARK;
+        private long batchingMaxDelayMs = 0;
+        private int batchingMaxBytes = 0;
+        private long messageAckTimeoutMs = DEFAULT_MESSAGE_ACK_TIMEOUT_MS;
+        private int maxReceivedMessageSize = DEFAULT_MAX_RECEIVED_MESSAGE_SIZE;
 
         Builder() {
+            sdpTransformers.add(SdpTransformers.codecPreference());
         }
 
         /**
@@ -92,13 +130,191 @@ public final class P2PClientConfiguration extends ClientConfiguration {
             return this;
         }
 
+        /**
+         * Set the video codecs in preferred order for the media section with mid |midOrTrackId|,
+         * or else the one sending the track with id |midOrTrackId|. They override the video
+         * codecs set for the whole PeerConnection, so that e.g. a camera track and a screen
+         * sharing track published together can use different codecs.
+         *
+         * @param midOrTrackId mid of a media section or id of a track.
+         * @param codecs video codecs in preferred order.
+         * @return Builder
+         */
+        public Builder setCodecPreference(String midOrTrackId, VideoCodec... codecs) {
+            RCHECK(midOrTrackId);
+            RCHECK(codecs.length != 0);
+            sectionCodecs.put(midOrTrackId, codecNames(codecs));
+            return this;
+        }
+
+        /**
+         * Set the audio codecs in preferred order for the media section with mid |midOrTrackId|,
+         * or else the one sending the track with id |midOrTrackId|. They override the audio
+         * codecs set for the whole PeerConnection.
+         *
+         * @param midOrTrackId mid of a media section or id of a track.
+         * @param codecs audio codecs in preferred order.
+         * @return Builder
+         */
+        public Builder setCodecPreference(String midOrTrackId, AudioCodec... codecs) {
+            RCHECK(midOrTrackId);
+            RCHECK(codecs.length != 0);
+            sectionCodecs.put(midOrTrackId, codecNames(codecs));
+            return this;
+        }
+
+        /**
+         * Set up the executor for processing signaling messages. Tasks of a client are still
+         * run one at a time, in order, if |signalingExecutor| runs tasks concurrently.
+         * Without it, a thread pool shared by all the clients is used.
+         *
+         * @param signalingExecutor Executor to be set.
+         * @return Builder
+         */
+        public Builder setSignalingExecutor(Executor signalingExecutor) {
+            this.signalingExecutor = signalingExecutor;
+            return this;
+        }
+
+        /**
+         * Set up the executor for operating on the underlying WebRTC PeerConnections. Tasks of a
+         * PeerConnection are still run one at a time, in order, if |peerConnectionExecutor| runs
+         * tasks concurrently. Without it, a thread pool shared by all the clients is used.
+         *
+         * @param peerConnectionExecutor Executor to be set.
+         * @return Builder
+         */
+        public Builder setPeerConnectionExecutor(Executor peerConnectionExecutor) {
+            this.peerConnectionExecutor = peerConnectionExecutor;
+            return this;
+        }
+
+        /**
+         * Set up the executor for triggering the callbacks and observers of the application.
+         * Callbacks are still triggered one at a time, in order, if |callbackExecutor| runs
+         * tasks concurrently. Without it, a thread pool shared by all the clients is used.
+         *
+         * @param callbackExecutor Executor to be set.
+         * @return Builder
+         */
+        public Builder setCallbackExecutor(Executor callbackExecutor) {
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
+        /**
+         * Trigger the callbacks and observers of the application on the thread of |looper|,
+         * e.g. Looper.getMainLooper().
+         *
+         * @param looper Looper to be set.
+         * @return Builder
+         */
+        public Builder setCallbackLooper(Looper looper) {
+            RCHECK(looper);
+            Handler handler = new Handler(looper);
+            this.callbackExecutor = handler::post;
+            return this;
+        }
+
+        /**
+         * Add a SdpTransformer to modify the local session descriptions. SdpTransformers run in
+         * the order they are added, after the built-in ones: SdpTransformers.codecPreference().
+         *
+         * @param sdpTransformer SdpTransformer to be added.
+         * @return Builder
+         */
+        public Builder addSdpTransformer(SdpTransformer sdpTransformer) {
+            RCHECK(sdpTransformer);
+            sdpTransformers.add(sdpTransformer);
+            return this;
+        }
+
+        /**
+         * Set up the flow control of the messages sent to a remote P2PClient. Messages are handed
+         * to the data channel while the bytes it buffers are below |highWatermark|, the others
+         * are queued. Once the bytes waiting to be sent, queued or buffered, reach
+         * |highWatermark|, P2PClientObserver.onDataChannelWritable is called with false, then
+         * with true once they drop to |lowWatermark|. Messages sent meanwhile are still queued,
+         * so senders streaming data should wait for it. The defaults are 1 MiB and 256 KiB.
+         *
+         * @param lowWatermark bytes at which sending may resume, must not be negative.
+         * @param highWatermark bytes at which sending should pause, must be greater than
+         * |lowWatermark|.
+         * @return Builder
+         */
+        public Builder setDataChannelWatermarks(long lowWatermark, long highWatermark) {
+            RCHECK(lowWatermark >= 0 && highWatermark > lowWatermark);
+            this.dataChannelLowWatermark = lowWatermark;
+            this.dataChannelHighWatermark = highWatermark;
+            return this;
+        }
+
+        /**
+         * Enable batching of the small messages sent to a remote P2PClient that supports it,
+         * e.g. positions sent at a high rate. Messages are packed into a single data channel
+         * message, which is sent once it holds |maxBytes| or |maxDelayMs| after its first
+         * message, and unpacked transparently by the remote P2PClient. Messages longer than
+         * |maxBytes| are not batched. Disabled by default.
+         *
+         * @param maxDelayMs maximum time in milliseconds a message waits for others.
+         * @param maxBytes maximum size of a batch, up to 64 KiB.
+         * @return Builder
+         */
+        public Builder setDataChannelBatching(long maxDelayMs, int maxBytes) {
+            RCHECK(maxDelayMs > 0);
+            RCHECK(maxBytes > MessageBatcher.HEADER_SIZE
+                    && maxBytes <= MessageFragmenter.FRAME_SIZE);
+            this.batchingMaxDelayMs = maxDelayMs;
+            this.batchingMaxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * Set the time a text message sent by P2PClient.send() waits for the ack of the remote
+         * P2PClient, its ActionCallback fails once it is over. The default is
+         * DEFAULT_MESSAGE_ACK_TIMEOUT_MS.
+         *
+         * @param timeoutMs timeout in milliseconds, counted from the time the message is handed
+         * to the data channel, so not while it waits in the data channel queue.
+         * @return Builder
+         */
+        public Builder setMessageAckTimeout(long timeoutMs) {
+            RCHECK(timeoutMs > 0);
+            this.messageAckTimeoutMs = timeoutMs;
+            return this;
+        }
+
+        /**
+         * Set the maximum size of a message received from a remote P2PClient. Longer messages
+         * are dropped before any memory is allocated for them, and so are the messages that
+         * would take those being received over it in total. The default is
+         * DEFAULT_MAX_RECEIVED_MESSAGE_SIZE.
+         *
+         * @param maxBytes maximum size in bytes.
+         * @return Builder
+         */
+        public Builder setMaxReceivedMessageSize(int maxBytes) {
+            RCHECK(maxBytes > 0);
+            this.maxReceivedMessageSize = maxBytes;
+            return this;
+        }
+
         /**
          * Build up the P2PClientConfiguration.
          *
          * @return P2PClientConfiguration.
          */
         public P2PClientConfiguration build() {
-            return new P2PClientConfiguration(rtcConfiguration, audioEncodings, videoEncodings);
+            P2PClientConfiguration configuration = new P2PClientConfiguration(rtcConfiguration,
+                    audioEncodings, videoEncodings, sdpTransformers, sectionCodecs,
+                    signalingExecutor, peerConnectionExecutor, callbackExecutor);
+            configuration.dataChannelHighWatermark = dataChannelHighWatermark;
+            configuration.dataChannelLowWatermark = dataChannelLowWatermark;
+            configuration.batchingMaxDelayMs = batchingMaxDelayMs;
+            configuration.batchingMaxBytes = batchingMaxBytes;
+            configuration.messageAckTimeoutMs = messageAckTimeoutMs;
+            configuration.maxReceivedMessageSize = maxReceivedMessageSize;
+            return configuration;
         }
     }
 
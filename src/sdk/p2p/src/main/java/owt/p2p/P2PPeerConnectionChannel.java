@@ -4,7 +4,6 @@
  */
 package owt.p2p;
 
-import static org.webrtc.DataChannel.State.OPEN;
 import static org.webrtc.PeerConnection.IceConnectionState.COMPLETED;
 import static org.webrtc.PeerConnection.IceConnectionState.CONNECTED;
 import static org.webrtc.PeerConnection.SignalingState.STABLE;
@@ -12,6 +11,7 @@ import static org.webrtc.PeerConnection.SignalingState.STABLE;
 import static owt.base.CheckCondition.DCHECK;
 import static owt.base.CheckCondition.RCHECK;
 import static owt.base.Const.LOG_TAG;
+import static owt.p2p.OwtP2PError.P2P_CLIENT_ILLEGAL_ARGUMENT;
 import static owt.p2p.OwtP2PError.P2P_CLIENT_INVALID_STATE;
 import static owt.p2p.OwtP2PError.P2P_WEBRTC_SDP;
 
@@ -28,22 +28,27 @@ import org.webrtc.PeerConnection;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 import owt.base.ActionCallback;
 import owt.base.AudioEncodingParameters;
+import owt.base.DataChannelConfiguration;
 import owt.base.LocalStream;
 import owt.base.OwtError;
 import owt.base.PeerConnectionChannel;
+import owt.base.PeerConnectionChannel.DataChannelMessageSource;
 import owt.base.VideoEncodingParameters;
+import owt.base.WorkerPool;
 
 final class P2PPeerConnectionChannel extends PeerConnectionChannel {
+    private static final int DATA_ACK_WINDOW = 32;
+    private static final long DATA_ACK_DELAY_MS = 20;
 
     // <MediaStreamId, CallbackInfo>
     ConcurrentHashMap<String, CallbackInfo> publishCallbacks;
-    private Long messageId = 0L;
-    // <MessageId, Callback>
-    private ConcurrentHashMap<Long, ActionCallback<Void>> sendMsgCallbacks;
+    // Callbacks of the text messages waiting for their ack, which also allocates their ids.
+    private final PendingAcks pendingAcks;
     // <LocalStream>
     ArrayList<LocalStream> publishedStreams;
     private String currentMediaStreamId;
@@ -58,12 +63,43 @@ final class P2PPeerConnectionChannel extends PeerConnectionChannel {
     private boolean negotiating = false;
 
     private boolean continualIceGathering = true;
+    // Whether the remote endpoint supports data channel fragmentation, set from its user info
+    // before the data channel opens. If it does, binary messages and the text ones longer than a
+    // frame are sent and received as frames.
+    private volatile boolean dataChannelFragmentation = false;
+    // Whether the capabilities above have been set from the user info of the remote endpoint.
+    private volatile boolean userInfoReceived = false;
+    private int frameMessageId = 0;
+    // Whether the remote endpoint acks text messages over the data channel rather than through
+    // the signaling server, set from its user info.
+    private volatile boolean dataChannelAck = false;
+    // Received messages are acked cumulatively with the id of the last one, once
+    // DATA_ACK_WINDOW of them are waiting or DATA_ACK_DELAY_MS after the first. Only accessed on
+    // callbackExecutor.
+    private long lastReceivedMsgId = 0;
+    private int unackedMessages = 0;
+    private boolean dataAckScheduled = false;
+    // Whether the remote endpoint unpacks batches of small messages, set from its user info.
+    private volatile boolean dataChannelBatching = false;
+    private final Object batchLock = new Object();
+    // Batches nothing unless batching is configured. Guarded by |batchLock|.
+    private final MessageBatcher batcher;
+    private final long batchMaxDelayMs;
+    // Incremented as each batch is sent, so that the timer of a batch sent before it is full
+    // does not send the next one early. Guarded by |batchLock|.
+    private int batchSeq = 0;
+    private final BufferPool bufferPool;
+    private final MessageReassembler reassembler;
 
     P2PPeerConnectionChannel(String peerId, P2PClientConfiguration configuration,
-            PeerConnectionChannelObserver observer) {
-        super(peerId, configuration.rtcConfiguration, true, true, observer);
+            BufferPool bufferPool, TimerWheel timerWheel, PeerConnectionChannelObserver observer) {
+        super(peerId, configuration, true, true, observer);
+        this.bufferPool = bufferPool;
+        reassembler = new MessageReassembler(bufferPool, configuration.maxReceivedMessageSize);
+        batcher = new MessageBatcher(configuration.batchingMaxBytes);
+        batchMaxDelayMs = configuration.batchingMaxDelayMs;
         publishCallbacks = new ConcurrentHashMap<>();
-        sendMsgCallbacks = new ConcurrentHashMap<>();
+        pendingAcks = new PendingAcks(timerWheel, configuration.messageAckTimeoutMs);
         publishedStreams = new ArrayList<>();
         remoteStreams = new ConcurrentHashMap<>();
         pendingAckRemoteStreams = new ArrayList<>();
@@ -125,7 +161,15 @@ final class P2PPeerConnectionChannel extends PeerConnectionChannel {
     }
 
     protected synchronized void dispose() {
+        // The batch being built is queued, so that it fails with the other queued messages.
+        synchronized (batchLock) {
+            flushBatch();
+        }
         super.dispose();
+        // The messages waiting for their ack fail right away, |callbackExecutor| being shut down.
+        for (ActionCallback<Void> callback : pendingAcks.removeAll()) {
+            callback.onFailure(new OwtError("Channel disposed."));
+        }
         for (RemoteStream remoteStream : remoteStreams.values()) {
             remoteStream.onEnded();
         }
@@ -151,10 +195,71 @@ final class P2PPeerConnectionChannel extends PeerConnectionChannel {
         }
     }
 
-    void processDataAck(Long msgId) {
-        if (sendMsgCallbacks.containsKey(msgId)) {
-            sendMsgCallbacks.get(msgId).onSuccess(null);
-            sendMsgCallbacks.remove(msgId);
+    void processDataAck(long msgId) {
+        ActionCallback<Void> callback = pendingAcks.remove(msgId);
+        if (callback != null) {
+            callback.onSuccess(null);
+        }
+    }
+
+    /**
+     * Process an ack received over the data channel, which acks |lastMsgId| and the messages sent
+     * before it.
+     *
+     * @return callbacks of the messages acked, in the order of their ids, to be called by the
+     * P2PClient.
+     */
+    List<ActionCallback<Void>> processCumulativeDataAck(long lastMsgId) {
+        return pendingAcks.removeUpTo(lastMsgId);
+    }
+
+    /**
+     * Ack the message |msgId| over the data channel, batched with the messages received around
+     * it, if the remote endpoint supports it. Called on callbackExecutor.
+     *
+     * @return false if the message is to be acked through the signaling server instead.
+     */
+    boolean ackDataInBand(long msgId) {
+        if (!dataChannelAck) {
+            return false;
+        }
+        lastReceivedMsgId = Math.max(lastReceivedMsgId, msgId);
+        if (++unackedMessages >= DATA_ACK_WINDOW) {
+            flushDataAck();
+        } else {
+            scheduleDataAck();
+        }
+        return true;
+    }
+
+    private void scheduleDataAck() {
+        if (dataAckScheduled) {
+            return;
+        }
+        dataAckScheduled = true;
+        WorkerPool.schedule(callbackExecutor, () -> {
+            dataAckScheduled = false;
+            flushDataAck();
+        }, DATA_ACK_DELAY_MS);
+    }
+
+    // Sent on the data channel right away rather than queued behind the messages to be sent,
+    // acks being idempotent. Retried DATA_ACK_DELAY_MS later if the data channel is not open or
+    // its buffer is full, so that the messages received do not time out on the remote endpoint.
+    private void flushDataAck() {
+        if (unackedMessages == 0 || disposed()) {
+            return;
+        }
+        try {
+            JSONObject ack = new JSONObject().put("ack", lastReceivedMsgId);
+            if (sendDataChannelControlMessage(new DataChannel.Buffer(
+                    ByteBuffer.wrap(ack.toString().getBytes(Charset.forName("UTF-8"))), false))) {
+                unackedMessages = 0;
+            } else {
+                scheduleDataAck();
+            }
+        } catch (JSONException e) {
+            DCHECK(e);
         }
     }
 
@@ -167,10 +272,9 @@ final class P2PPeerConnectionChannel extends PeerConnectionChannel {
         }
         publishCallbacks.clear();
 
-        for (ActionCallback<Void> callback : sendMsgCallbacks.values()) {
+        for (ActionCallback<Void> callback : pendingAcks.removeAll()) {
             callback.onFailure(error);
         }
-        sendMsgCallbacks.clear();
     }
 
     // TODO: currently (v4.1) Android is compatible with all other platforms.
@@ -178,13 +282,25 @@ final class P2PPeerConnectionChannel extends PeerConnectionChannel {
         try {
             boolean hasCap = userInfo.has("capabilities");
             JSONObject cap = hasCap ? userInfo.getJSONObject("capabilities") : null;
+            dataChannelFragmentation = cap != null && cap.optBoolean("dataChannelFragmentation");
+            dataChannelAck = cap != null && cap.optBoolean("dataChannelAck");
+            dataChannelBatching = cap != null && cap.optBoolean("dataChannelBatching");
             continualIceGathering = cap != null && cap.getBoolean("continualIceGathering");
         } catch (JSONException e) {
             DCHECK(e);
         }
+        userInfoReceived = true;
         return true;
     }
 
+    /**
+     * @return whether the remote endpoint is known not to support fragmentation, so that text
+     * messages longer than 0xFFFF characters cannot be sent to it.
+     */
+    boolean rejectsLongText() {
+        return userInfoReceived && !dataChannelFragmentation;
+    }
+
     void processUserInfo(JSONObject userInfo) {
         // check capabilities.
         if (!checkCompatibility(userInfo)) {
@@ -220,8 +336,14 @@ final class P2PPeerConnectionChannel extends PeerConnectionChannel {
         pendingAckRemoteStreams.clear();
     }
 
-    void sendData(final String message, ActionCallback<Void> callback) {
-        Long msgId = ++messageId;
+    /**
+     * Send |message| in a JSON envelope, which succeeds upon the ack of the remote endpoint. It
+     * fails if |message| is longer than 0xFFFF characters and the remote endpoint does not
+     * support fragmentation, or if it is not acked within the message ack timeout of being
+     * handed to the data channel.
+     */
+    OutgoingMessage sendData(final String message, ActionCallback<Void> callback) {
+        final long msgId = pendingAcks.add(callback);
         final JSONObject messageObj = new JSONObject();
         try {
             messageObj.put("id", msgId);
@@ -229,22 +351,187 @@ final class P2PPeerConnectionChannel extends PeerConnectionChannel {
         } catch (JSONException e) {
             DCHECK(e);
         }
-        if (callback != null) {
-            sendMsgCallbacks.put(msgId, callback);
-        }
 
-        if (localDataChannel == null || localDataChannel.state() != OPEN) {
-            queuedMessage.add(messageObj.toString());
-            if (localDataChannel == null) {
-                createDataChannel();
+        ByteBuffer byteBuffer =
+                ByteBuffer.wrap(messageObj.toString().getBytes(Charset.forName("UTF-8")));
+        final DataMessage source =
+                new DataMessage(byteBuffer, true, message.length() > 0xFFFF);
+        // |callback| succeeds upon the ack of the remote endpoint, and fails here if the message
+        // could not be sent, e.g. if it turned out too long once the user info was received.
+        enqueue(source, new ActionCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                pendingAcks.start(msgId);
+            }
+
+            @Override
+            public void onFailure(OwtError error) {
+                ActionCallback<Void> callback = pendingAcks.remove(msgId);
+                if (callback == null) {
+                    return;
+                }
+                if (source.tooLong && !dataChannelFragmentation) {
+                    error = new OwtError(P2P_CLIENT_ILLEGAL_ARGUMENT.value, "Message too long.");
+                }
+                callback.onFailure(error);
             }
+        });
+        return new OutgoingMessage(key, this, source);
+    }
+
+    /**
+     * Send the remaining bytes of |message| as a binary message, without copying them up front:
+     * they are read as the data channel drains, and the position of |message| is left unchanged.
+     */
+    OutgoingMessage sendData(ByteBuffer message, ActionCallback<Void> callback) {
+        DataMessage source = new DataMessage(message.slice(), false, false);
+        enqueue(source, callback);
+        return new OutgoingMessage(key, this, source);
+    }
+
+    // Adds |source| to the batch being built if it is small enough and the remote endpoint
+    // supports batching, otherwise sends it after that batch.
+    private void enqueue(DataMessage source, ActionCallback<Void> callback) {
+        synchronized (batchLock) {
+            int length = source.payload.remaining();
+            if (!dataChannelBatching || !batcher.accepts(length)) {
+                flushBatch();
+                sendDataChannelMessage(source, callback);
+                return;
+            }
+            if (!batcher.fits(length)) {
+                flushBatch();
+            }
+            if (batcher.add(source, source.payload, !source.text, callback)) {
+                final int seq = batchSeq;
+                WorkerPool.schedule(callbackExecutor, () -> {
+                    synchronized (batchLock) {
+                        if (seq == batchSeq) {
+                            flushBatch();
+                        }
+                    }
+                }, batchMaxDelayMs);
+            }
+        }
+    }
+
+    // Sends the batch being built as a single binary message, the callbacks of its messages are
+    // called with its own. Called with |batchLock| held.
+    private void flushBatch() {
+        final MessageBatcher.Batch batch = batcher.poll();
+        if (batch == null) {
+            return;
+        }
+        batchSeq++;
+        sendDataChannelMessage(new DataChannel.Buffer(batch.data, true),
+                new ActionCallback<Void>() {
+                    @Override
+                    public void onSuccess(Void result) {
+                        for (ActionCallback<Void> callback : batch.callbacks) {
+                            if (callback != null) {
+                                callback.onSuccess(null);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(OwtError error) {
+                        for (ActionCallback<Void> callback : batch.callbacks) {
+                            if (callback != null) {
+                                callback.onFailure(error);
+                            }
+                        }
+                    }
+                });
+    }
+
+    MessageAckMetrics getMessageAckMetrics() {
+        return pendingAcks.metrics();
+    }
+
+    DataChannelBatchMetrics getDataChannelBatchMetrics() {
+        synchronized (batchLock) {
+            return batcher.metrics();
+        }
+    }
+
+    boolean openDataChannel(DataChannelConfiguration configuration) {
+        return createDataChannel(configuration);
+    }
+
+    /**
+     * Send the remaining bytes of |message| on the data channel labeled |label|, as a single
+     * binary message without fragmentation.
+     */
+    OutgoingMessage sendData(String label, ByteBuffer message, ActionCallback<Void> callback) {
+        DataChannelMessageSource source =
+                new SingleBufferSource(new DataChannel.Buffer(message.slice(), true));
+        sendDataChannelMessage(label, source, callback);
+        return new OutgoingMessage(key, this, source);
+    }
+
+    boolean cancelData(DataChannelMessageSource source) {
+        final MessageBatcher.Entry entry;
+        synchronized (batchLock) {
+            entry = batcher.remove(source);
+        }
+        if (entry == null) {
+            return cancelDataChannelMessage(source);
+        }
+        if (entry.callback != null) {
+            callbackExecutor.execute(
+                    () -> entry.callback.onFailure(new OwtError("Cancelled.")));
+        }
+        return true;
+    }
+
+    @Override
+    public void onMessage(final DataChannel.Buffer buffer) {
+        if (!buffer.binary || !dataChannelFragmentation) {
+            super.onMessage(buffer);
+            return;
+        }
+        if (disposed()) {
             return;
         }
+        // Frames and batches are read here, |buffer| being only valid during this call.
+        if (buffer.data.hasRemaining()
+                && (buffer.data.get(buffer.data.position()) & MessageFragmenter.BATCH) != 0) {
+            onBatch(buffer.data);
+            return;
+        }
+        final MessageReassembler.Message message = reassembler.onFrame(buffer.data);
+        if (message == null) {
+            return;
+        }
+        if (message.text) {
+            final String text = Charset.forName("UTF-8").decode(message.data).toString();
+            bufferPool.release(message.data);
+            callbackExecutor.execute(() -> observer.onDataChannelMessage(key, text));
+        } else {
+            callbackExecutor.execute(() -> observer.onDataChannelMessage(key, message.data));
+        }
+    }
 
-        ByteBuffer byteBuffer =
-                ByteBuffer.wrap(messageObj.toString().getBytes(Charset.forName("UTF-8")));
-        DataChannel.Buffer buffer = new DataChannel.Buffer(byteBuffer, false);
-        localDataChannel.send(buffer);
+    private void onBatch(ByteBuffer batch) {
+        int messages = MessageBatcher.read(batch, (message, binary) -> {
+            if (binary) {
+                final ByteBuffer data = bufferPool.acquire(message.remaining());
+                data.put(message);
+                data.flip();
+                callbackExecutor.execute(() -> observer.onDataChannelMessage(key, data));
+            } else {
+                final String text = Charset.forName("UTF-8").decode(message).toString();
+                callbackExecutor.execute(() -> observer.onDataChannelMessage(key, text));
+            }
+        });
+        if (messages < 0) {
+            Log.w(LOG_TAG, "Invalid data channel batch.");
+            return;
+        }
+        synchronized (batchLock) {
+            batcher.onBatchReceived(messages);
+        }
     }
 
     //All PeerConnection.Observer publishCallbacks should be pooled onto callbackExecutor.
@@ -389,4 +676,48 @@ final class P2PPeerConnectionChannel extends PeerConnectionChannel {
             trackNum = mediaStream.audioTracks.size() + mediaStream.videoTracks.size();
         }
     }
+
+    // Framed by a MessageFragmenter if the remote endpoint supports fragmentation, which is known
+    // by the time the data channel opens and next() is first called, or sent as a single buffer.
+    private final class DataMessage implements DataChannelMessageSource {
+        private final ByteBuffer payload;
+        private final boolean text;
+        // Whether the message is too long to be sent as a single buffer.
+        private final boolean tooLong;
+        private MessageFragmenter fragmenter;
+
+        DataMessage(ByteBuffer payload, boolean text, boolean tooLong) {
+            this.payload = payload;
+            this.text = text;
+            this.tooLong = tooLong;
+        }
+
+        @Override
+        public long remaining() {
+            return fragmenter == null ? payload.remaining() : fragmenter.remaining();
+        }
+
+        @Override
+        public DataChannel.Buffer next() {
+            if (fragmenter == null && dataChannelFragmentation
+                    && (!text || payload.remaining() > MessageFragmenter.FRAME_SIZE)) {
+                fragmenter = new MessageFragmenter(++frameMessageId, payload, text);
+            }
+            if (fragmenter != null) {
+                return fragmenter.next();
+            }
+            if (tooLong && !dataChannelFragmentation) {
+                Log.e(LOG_TAG, "Message too long for a remote endpoint without fragmentation.");
+                return null;
+            }
+            DataChannel.Buffer buffer = new DataChannel.Buffer(payload.duplicate(), !text);
+            payload.position(payload.limit());
+            return buffer;
+        }
+
+        @Override
+        public DataChannel.Buffer cancel() {
+            return fragmenter == null ? null : fragmenter.cancel();
+        }
+    }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.p2p;
+
+import static owt.p2p.OwtP2PError.P2P_MESSAGING_TARGET_UNREACHABLE;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import owt.base.ActionCallback;
+import owt.base.OwtError;
+
+/**
+ * Callbacks of the messages sent to a remote endpoint and not acked yet, keyed by message id.
+ * Ids are allocated here in increasing order, so the table is a ring indexed by the low bits of
+ * the id, which doubles when a new id would wrap onto an outstanding one. Each message fails
+ * once it has not been acked within |timeoutMs| of start(), as checked by |timerWheel|, so that
+ * the time it waits in the data channel queue does not count. Thread-safe.
+ */
+final class PendingAcks implements TimerWheel.Timeout {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final TimerWheel timerWheel;
+    private final long timeoutNs;
+    // Id of the message in each slot, 0 for a free slot, ids starting at 1.
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] deadlinesNs = new long[INITIAL_CAPACITY];
+    // Whether the deadline of the message in each slot is set.
+    private boolean[] started = new boolean[INITIAL_CAPACITY];
+    private ActionCallback<Void>[] callbacks = newCallbacks(INITIAL_CAPACITY);
+    private long nextId = 1;
+    // Lowest outstanding id, |nextId| if there is none.
+    private long oldestId = 1;
+    private int size = 0;
+    private int maxSize = 0;
+    private long timedOut = 0;
+    // Last tick of |timerWheel| this table is scheduled for. Messages are started in the order of
+    // their ids, as they are handed to the data channel in order, so deadlines increase with ids
+    // and a single timeout per tick covers all the messages due on it.
+    private long scheduledTick = -1;
+
+    PendingAcks(TimerWheel timerWheel, long timeoutMs) {
+        this.timerWheel = timerWheel;
+        this.timeoutNs = timeoutMs * 1000000;
+    }
+
+    /**
+     * Allocate the id of a message, whose |callback| is kept until it is acked or times out once
+     * started.
+     *
+     * @param callback may be null, nothing is kept then.
+     * @return id of the message.
+     */
+    synchronized long add(ActionCallback<Void> callback) {
+        long id = nextId++;
+        if (callback == null) {
+            if (size == 0) {
+                oldestId = nextId;
+            }
+            return id;
+        }
+        if (id - oldestId >= ids.length) {
+            grow(id - oldestId + 1);
+        }
+        int slot = slot(id);
+        ids[slot] = id;
+        started[slot] = false;
+        callbacks[slot] = callback;
+        maxSize = Math.max(maxSize, ++size);
+        return id;
+    }
+
+    /**
+     * Start the timeout of the message |id|, once it has been handed to the data channel. Does
+     * nothing if it is not outstanding.
+     */
+    synchronized void start(long id) {
+        int slot = slot(id);
+        if (id < oldestId || id >= nextId || ids[slot] != id || started[slot]) {
+            return;
+        }
+        long deadlineNs = System.nanoTime() + timeoutNs;
+        deadlinesNs[slot] = deadlineNs;
+        started[slot] = true;
+        long tick = timerWheel.tickOf(deadlineNs);
+        if (tick > scheduledTick) {
+            scheduledTick = tick;
+            timerWheel.schedule(this, tick);
+        }
+    }
+
+    /**
+     * @return callback of the message |id|, null if it is not outstanding.
+     */
+    synchronized ActionCallback<Void> remove(long id) {
+        if (id < oldestId || id >= nextId) {
+            return null;
+        }
+        return removeSlot(slot(id), id);
+    }
+
+    /**
+     * @return callbacks of the outstanding messages up to |lastId|, in the order of their ids.
+     */
+    synchronized List<ActionCallback<Void>> removeUpTo(long lastId) {
+        ArrayList<ActionCallback<Void>> removed = new ArrayList<>();
+        while (size > 0 && oldestId <= lastId) {
+            removed.add(removeSlot(slot(oldestId), oldestId));
+        }
+        return removed;
+    }
+
+    synchronized List<ActionCallback<Void>> removeAll() {
+        return removeUpTo(nextId);
+    }
+
+    synchronized MessageAckMetrics metrics() {
+        long oldestAgeNs = size == 0 || !started[slot(oldestId)] ? 0
+                : System.nanoTime() - (deadlinesNs[slot(oldestId)] - timeoutNs);
+        return new MessageAckMetrics(size, maxSize, timedOut, oldestAgeNs / 1e6);
+    }
+
+    @Override
+    public void onTimeout() {
+        List<ActionCallback<Void>> expired = new ArrayList<>();
+        synchronized (this) {
+            long nowNs = System.nanoTime();
+            while (size > 0 && started[slot(oldestId)]
+                    && deadlinesNs[slot(oldestId)] - nowNs <= 0) {
+                expired.add(removeSlot(slot(oldestId), oldestId));
+            }
+            timedOut += expired.size();
+        }
+        for (ActionCallback<Void> callback : expired) {
+            callback.onFailure(new OwtError(P2P_MESSAGING_TARGET_UNREACHABLE.value,
+                    "Message not acked in time."));
+        }
+    }
+
+    private ActionCallback<Void> removeSlot(int slot, long id) {
+        if (ids[slot] != id) {
+            return null;
+        }
+        ActionCallback<Void> callback = callbacks[slot];
+        ids[slot] = 0;
+        callbacks[slot] = null;
+        size--;
+        if (size == 0) {
+            oldestId = nextId;
+        }
+        // Skip the ids acked or sent without callback.
+        while (oldestId < nextId && ids[slot(oldestId)] != oldestId) {
+            oldestId++;
+        }
+        return callback;
+    }
+
+    private void grow(long span) {
+        int capacity = ids.length;
+        while (capacity < span) {
+            capacity <<= 1;
+        }
+        long[] oldIds = ids;
+        long[] oldDeadlinesNs = deadlinesNs;
+        boolean[] oldStarted = started;
+        ActionCallback<Void>[] oldCallbacks = callbacks;
+        ids = new long[capacity];
+        deadlinesNs = new long[capacity];
+        started = new boolean[capacity];
+        callbacks = newCallbacks(capacity);
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != 0) {
+                int slot = slot(oldIds[i]);
+                ids[slot] = oldIds[i];
+                deadlinesNs[slot] = oldDeadlinesNs[i];
+                started[slot] = oldStarted[i];
+                callbacks[slot] = oldCallbacks[i];
+            }
+        }
+    }
+
+    private int slot(long id) {
+        return (int) (id & (ids.length - 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ActionCallback<Void>[] newCallbacks(int capacity) {
+        return new ActionCallback[capacity];
+    }
+}
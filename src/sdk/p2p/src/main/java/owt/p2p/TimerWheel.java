@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.p2p;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+import owt.base.WorkerPool;
+
+/**
+ * Hashed timer wheel shared by the P2PPeerConnectionChannels of a P2PClient, with a resolution
+ * of TICK_MS. A timeout is put in the slot of the tick it is due on, and slots are visited one
+ * per tick, the timeouts due on a later turn staying for their round. It only ticks while
+ * timeouts are pending.
+ */
+final class TimerWheel {
+    interface Timeout {
+        // Called on the executor of the TimerWheel, once the tick passed to schedule() is due.
+        void onTimeout();
+    }
+
+    private static final class Entry {
+        final Timeout timeout;
+        final long tick;
+
+        Entry(Timeout timeout, long tick) {
+            this.timeout = timeout;
+            this.tick = tick;
+        }
+    }
+
+    static final long TICK_MS = 100;
+    private static final long TICK_NS = TICK_MS * 1000000;
+    // A turn of the wheel lasts SLOTS * TICK_MS, i.e. about 51 seconds.
+    private static final int SLOTS = 512;
+
+    private final Executor executor;
+    private final long startNs = System.nanoTime();
+    private final ArrayList<ArrayList<Entry>> slots = new ArrayList<>(SLOTS);
+    // Last tick whose slot has been visited.
+    private long currentTick = 0;
+    private int pendingTimeouts = 0;
+    private boolean ticking = false;
+
+    /**
+     * @param executor the executor timeouts are called on.
+     */
+    TimerWheel(Executor executor) {
+        this.executor = executor;
+        for (int i = 0; i < SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * @return the first tick at or after |timeNs|, a System.nanoTime() value.
+     */
+    long tickOf(long timeNs) {
+        return (timeNs - startNs + TICK_NS - 1) / TICK_NS;
+    }
+
+    /**
+     * Call |timeout| once |tick| is due, or on the next tick if it already is.
+     */
+    synchronized void schedule(Timeout timeout, long tick) {
+        if (!ticking) {
+            // The slots of the ticks passed while idle are empty.
+            currentTick = Math.max(currentTick, (System.nanoTime() - startNs) / TICK_NS);
+        }
+        tick = Math.max(tick, currentTick + 1);
+        slots.get((int) (tick % SLOTS)).add(new Entry(timeout, tick));
+        pendingTimeouts++;
+        if (!ticking) {
+            ticking = true;
+            WorkerPool.schedule(executor, this::tick, TICK_MS);
+        }
+    }
+
+    // Visits the slots of the ticks due since the last one, which may be several if the
+    // executor has been busy.
+    private void tick() {
+        ArrayList<Timeout> due = new ArrayList<>();
+        synchronized (this) {
+            long nowTick = (System.nanoTime() - startNs) / TICK_NS;
+            for (; currentTick < nowTick && pendingTimeouts > 0; currentTick++) {
+                ArrayList<Entry> slot = slots.get((int) ((currentTick + 1) % SLOTS));
+                for (int i = slot.size() - 1; i >= 0; i--) {
+                    if (slot.get(i).tick <= currentTick + 1) {
+                        due.add(slot.remove(i).timeout);
+                        pendingTimeouts--;
+                    }
+                }
+            }
+            currentTick = Math.max(currentTick, nowTick);
+            ticking = pendingTimeouts > 0;
+            if (ticking) {
+                WorkerPool.schedule(executor, this::tick, TICK_MS);
+            }
+        }
+        for (Timeout timeout : due) {
+            timeout.onTimeout();
+        }
+    }
+}
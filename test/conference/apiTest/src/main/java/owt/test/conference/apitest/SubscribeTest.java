@@ -46,6 +46,7 @@ import owt.conference.PublishOptions;
 import owt.conference.RemoteStream;
 import owt.conference.SubscribeOptions;
 import owt.conference.Subscription;
+import owt.conference.SubscriptionCapabilities.Resolution;
 import owt.test.conference.util.ConferenceClientObserver;
 import owt.test.util.Config;
 import owt.test.util.FakeRenderer;
@@ -144,9 +145,9 @@ public class SubscribeTest extends TestBase {
         localStream1 = createLocalStream(true, capturer1);
         publish(client1, localStream1, null, observer1, true);
         RemoteStream mixSteam = getRemoteMixStream(client1);
-        List<Double> bitrateMultipliers =
-                mixSteam.extraSubscriptionCapability.videoSubscriptionCapabilities.bitrateMultipliers;
-        for (Double bitrateMultiplier : bitrateMultipliers) {
+        double[] bitrateMultipliers = mixSteam.extraSubscriptionCapability()
+                .videoSubscriptionCapabilities.bitrateMultipliers();
+        for (double bitrateMultiplier : bitrateMultipliers) {
             HashMap<String, String> videoParams = new HashMap<>();
             videoParams.put("bitrateMultiplier", String.valueOf(bitrateMultiplier));
             SubscribeOptions subOption = createSubscribeOptions(new AudioCodec[]{},
@@ -249,12 +250,12 @@ public class SubscribeTest extends TestBase {
         localStream1 = createLocalStream(true, capturer1);
         publish(client1, localStream1, null, observer1, true);
         RemoteStream mixSteam = getRemoteMixStream(client1);
-        List<HashMap<String, Integer>> resolutions =
-                mixSteam.extraSubscriptionCapability.videoSubscriptionCapabilities.resolutions;
-        for (HashMap<String, Integer> resolution : resolutions) {
+        List<Resolution> resolutions =
+                mixSteam.extraSubscriptionCapability().videoSubscriptionCapabilities.resolutions;
+        for (Resolution resolution : resolutions) {
             HashMap<String, String> videoParams = new HashMap<>();
-            videoParams.put("width", String.valueOf(resolution.get("width")));
-            videoParams.put("height", String.valueOf(resolution.get("height")));
+            videoParams.put("width", String.valueOf(resolution.width));
+            videoParams.put("height", String.valueOf(resolution.height));
             SubscribeOptions subOption = createSubscribeOptions(new AudioCodec[]{},
                     new VideoCodec[]{}, videoParams);
             Subscription subscription = subscribe(client1, mixSteam, subOption, true, true);
@@ -380,9 +381,8 @@ public class SubscribeTest extends TestBase {
         publish(client1, localStream1, null, observer1, true);
         int streamsN = client1.info().getRemoteStreams().size() - MIXED_STREAM_SIZE;
         RemoteStream forwardStream = getRemoteForwardStream(client1, streamsN - 1);
-        List<Integer> keyFrameIntervals =
-                forwardStream.extraSubscriptionCapability.videoSubscriptionCapabilities
-                        .keyFrameIntervals;
+        int[] keyFrameIntervals = forwardStream.extraSubscriptionCapability()
+                .videoSubscriptionCapabilities.keyFrameIntervals();
         for (int keyFrameInterval : keyFrameIntervals) {
             HashMap<String, String> videoParams = new HashMap<>();
             videoParams.put("keyFrameInterval", String.valueOf(keyFrameInterval));
@@ -402,8 +402,8 @@ public class SubscribeTest extends TestBase {
         publish(client1, localStream1, null, observer1, true);
         int streamsN = client1.info().getRemoteStreams().size() - MIXED_STREAM_SIZE;
         RemoteStream forwardStream = getRemoteForwardStream(client1, streamsN - 1);
-        List<Integer> frameRates =
-                forwardStream.extraSubscriptionCapability.videoSubscriptionCapabilities.frameRates;
+        int[] frameRates = forwardStream.extraSubscriptionCapability()
+                .videoSubscriptionCapabilities.frameRates();
         for (int frameRate : frameRates) {
             HashMap<String, String> videoParams = new HashMap<>();
             videoParams.put("frameRate", String.valueOf(frameRate));
@@ -491,10 +491,10 @@ public class SubscribeTest extends TestBase {
         RemoteStream mixSteam = getRemoteMixStream(client1);
         Subscription subscription = subscribe(client1, mixSteam, null, true, true);
         HashMap<String, String> videoParams = new HashMap<>();
-        HashMap<String, Integer> resolution =
-                mixSteam.extraSubscriptionCapability.videoSubscriptionCapabilities.resolutions.get(0);
-        videoParams.put("width", String.valueOf(resolution.get("width")));
-        videoParams.put("height", String.valueOf(resolution.get("height")));
+        Resolution resolution =
+                mixSteam.extraSubscriptionCapability().videoSubscriptionCapabilities.resolutions.get(0);
+        videoParams.put("width", String.valueOf(resolution.width));
+        videoParams.put("height", String.valueOf(resolution.height));
         applyOption(subscription, videoParams, true);
         FakeRenderer renderer = new FakeRenderer();
         mixSteam.attach(renderer);
@@ -0,0 +1,430 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.test.conference.loadtest;
+
+import android.util.Base64;
+
+import owt.conference.LoopbackSignalingTransport;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.socket.client.Ack;
+
+/**
+ * In-process stand-in for the conference server, speaking the signaling protocol of
+ * SignalingChannel over LoopbackSignalingTransports: login, relogin, logout, publish,
+ * unpublish, subscribe, unsubscribe, soac, stream-control, subscription-control, text and
+ * refreshReconnectionTicket requests, and participant, stream and text events.
+ *
+ * Media is not simulated: soac messages are acknowledged without an answer, so publications and
+ * subscriptions never become ready. Server-side bot participants join, publish, unpublish and
+ * leave on demand or by churn(), broadcasting the events a real room would.
+ */
+public final class FakeMcu implements LoopbackSignalingTransport.Server {
+    private static final String ROOM_ID = "fake-room";
+    private final Object lock = new Object();
+    private final AtomicInteger nextId = new AtomicInteger();
+    // key: participant id.
+    private final LinkedHashMap<String, JSONObject> participants = new LinkedHashMap<>();
+    // key: stream id.
+    private final LinkedHashMap<String, JSONObject> streams = new LinkedHashMap<>();
+    // Transports logged in, value: participant id.
+    private final HashMap<LoopbackSignalingTransport, String> clients = new HashMap<>();
+    // Participants without a transport, driven by the server.
+    private final List<String> bots = new ArrayList<>();
+    // key: "participant/<id>" or "stream/<id>", value: System.nanoTime() of the broadcast.
+    private final ConcurrentHashMap<String, Long> broadcastTimes = new ConcurrentHashMap<>();
+    // key: request name.
+    private final ConcurrentHashMap<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+
+    /**
+     * Create a transport connected to this server, for a ConferenceClient or a bot.
+     */
+    public LoopbackSignalingTransport newTransport() {
+        return new LoopbackSignalingTransport(this);
+    }
+
+    /**
+     * Token to join the room of this server with.
+     */
+    public static String token() {
+        return Base64.encodeToString("{\"host\":\"fake-mcu\",\"secure\":false}".getBytes(),
+                Base64.NO_WRAP);
+    }
+
+    /**
+     * System.nanoTime() when the join of |participantId| has been broadcast, null if it has not.
+     */
+    public Long participantBroadcastTime(String participantId) {
+        return broadcastTimes.get("participant/" + participantId);
+    }
+
+    /**
+     * System.nanoTime() when the addition of |streamId| has been broadcast, null if it has not.
+     */
+    public Long streamBroadcastTime(String streamId) {
+        return broadcastTimes.get("stream/" + streamId);
+    }
+
+    public int participantCount() {
+        synchronized (lock) {
+            return participants.size();
+        }
+    }
+
+    public int streamCount() {
+        synchronized (lock) {
+            return streams.size();
+        }
+    }
+
+    /**
+     * Number of requests received, per request name.
+     */
+    public Map<String, Long> requestCounts() {
+        HashMap<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, AtomicLong> entry : requestCounts.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+
+    @Override
+    public void onConnected(LoopbackSignalingTransport transport) {
+    }
+
+    @Override
+    public void onDisconnected(LoopbackSignalingTransport transport) {
+        String participantId;
+        synchronized (lock) {
+            participantId = clients.remove(transport);
+        }
+        if (participantId != null) {
+            removeParticipant(participantId);
+        }
+    }
+
+    @Override
+    public void onEvent(LoopbackSignalingTransport transport, String event, Object message,
+            Ack ack) {
+        AtomicLong count = requestCounts.get(event);
+        if (count == null) {
+            requestCounts.putIfAbsent(event, new AtomicLong());
+            count = requestCounts.get(event);
+        }
+        count.incrementAndGet();
+        try {
+            switch (event) {
+                case "login":
+                    login(transport, (JSONObject) message, ack);
+                    break;
+                case "relogin":
+                case "refreshReconnectionTicket":
+                    ack.call("ok", ticket());
+                    break;
+                case "logout":
+                    String participantId;
+                    synchronized (lock) {
+                        participantId = clients.remove(transport);
+                    }
+                    if (participantId != null) {
+                        removeParticipant(participantId);
+                    }
+                    ack.call("ok");
+                    break;
+                case "publish":
+                    String owner;
+                    synchronized (lock) {
+                        owner = clients.get(transport);
+                    }
+                    String streamId = publish(owner,
+                            ((JSONObject) message).optJSONObject("attributes"));
+                    ack.call("ok", new JSONObject().put("id", streamId));
+                    break;
+                case "unpublish":
+                    unpublish(((JSONObject) message).getString("id"));
+                    ack.call("ok");
+                    break;
+                case "subscribe":
+                    ack.call("ok", new JSONObject().put("id", newId("subscription")));
+                    break;
+                case "text":
+                    text(transport, (JSONObject) message);
+                    ack.call("ok");
+                    break;
+                default:
+                    // unsubscribe, soac, stream-control and subscription-control.
+                    if (ack != null) {
+                        ack.call("ok");
+                    }
+                    break;
+            }
+        } catch (JSONException e) {
+            if (ack != null) {
+                ack.call("error", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Add a participant without a transport and broadcast its join.
+     *
+     * @return id of the participant.
+     */
+    public String addBot() throws JSONException {
+        String participantId = newId("bot");
+        synchronized (lock) {
+            bots.add(participantId);
+        }
+        addParticipant(participantId, participantId);
+        return participantId;
+    }
+
+    /**
+     * Publish a stream owned by |participantId| and broadcast its addition.
+     *
+     * @return id of the stream.
+     */
+    public String publish(String participantId, JSONObject attributes) throws JSONException {
+        String streamId = newId("stream");
+        JSONObject streamInfo = streamInfo(streamId, participantId, attributes);
+        synchronized (lock) {
+            streams.put(streamId, streamInfo);
+        }
+        broadcastTimes.put("stream/" + streamId, System.nanoTime());
+        broadcast(null, "stream",
+                new JSONObject().put("status", "add").put("id", streamId).put("data",
+                        streamInfo));
+        return streamId;
+    }
+
+    /**
+     * Remove the stream |streamId| and broadcast its removal.
+     */
+    public void unpublish(String streamId) throws JSONException {
+        synchronized (lock) {
+            if (streams.remove(streamId) == null) {
+                return;
+            }
+        }
+        broadcast(null, "stream", new JSONObject().put("status", "remove").put("id", streamId));
+    }
+
+    /**
+     * Remove |participantId| with its streams, and broadcast its leave.
+     */
+    public void removeParticipant(String participantId) {
+        List<String> ownedStreams = new ArrayList<>();
+        synchronized (lock) {
+            if (participants.remove(participantId) == null) {
+                return;
+            }
+            bots.remove(participantId);
+            for (Map.Entry<String, JSONObject> entry : streams.entrySet()) {
+                if (participantId.equals(
+                        entry.getValue().optJSONObject("info").optString("owner"))) {
+                    ownedStreams.add(entry.getKey());
+                }
+            }
+        }
+        try {
+            for (String streamId : ownedStreams) {
+                unpublish(streamId);
+            }
+            broadcast(null, "participant",
+                    new JSONObject().put("action", "leave").put("data", participantId));
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Run |operations| random bot operations: join, leave, publish or unpublish.
+     */
+    public void churn(int operations, Random random) throws JSONException {
+        for (int i = 0; i < operations; i++) {
+            String bot = null;
+            String stream = null;
+            synchronized (lock) {
+                if (!bots.isEmpty()) {
+                    bot = bots.get(random.nextInt(bots.size()));
+                }
+                if (!streams.isEmpty()) {
+                    Iterator<String> it = streams.keySet().iterator();
+                    for (int skip = random.nextInt(streams.size()); skip > 0; skip--) {
+                        it.next();
+                    }
+                    stream = it.next();
+                }
+            }
+            switch (random.nextInt(4)) {
+                case 0:
+                    addBot();
+                    break;
+                case 1:
+                    if (bot != null) {
+                        removeParticipant(bot);
+                    }
+                    break;
+                case 2:
+                    if (bot != null) {
+                        publish(bot, null);
+                    }
+                    break;
+                default:
+                    if (stream != null) {
+                        unpublish(stream);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void login(LoopbackSignalingTransport transport, JSONObject loginInfo, Ack ack)
+            throws JSONException {
+        String participantId = newId("participant");
+        synchronized (lock) {
+            clients.put(transport, participantId);
+        }
+        JSONObject self = addParticipant(participantId, "user-" + participantId);
+
+        JSONObject room = new JSONObject();
+        room.put("id", ROOM_ID);
+        room.put("views", new JSONArray());
+        synchronized (lock) {
+            room.put("participants", new JSONArray(participants.values()));
+            room.put("streams", new JSONArray(streams.values()));
+        }
+        JSONObject result = new JSONObject();
+        result.put("id", participantId);
+        result.put("user", self.getString("user"));
+        result.put("role", self.getString("role"));
+        result.put("permission", new JSONObject());
+        result.put("room", room);
+        result.put("reconnectionTicket", ticket());
+        ack.call("ok", result);
+    }
+
+    private JSONObject addParticipant(String participantId, String user) throws JSONException {
+        JSONObject participant = new JSONObject();
+        participant.put("id", participantId);
+        participant.put("role", "presenter");
+        participant.put("user", user);
+        synchronized (lock) {
+            participants.put(participantId, participant);
+        }
+        broadcastTimes.put("participant/" + participantId, System.nanoTime());
+        broadcast(participantId, "participant",
+                new JSONObject().put("action", "join").put("data", participant));
+        return participant;
+    }
+
+    private void text(LoopbackSignalingTransport from, JSONObject message)
+            throws JSONException {
+        String sender;
+        synchronized (lock) {
+            sender = clients.get(from);
+        }
+        String to = message.optString("to", "all");
+        JSONObject text = new JSONObject();
+        text.put("from", sender);
+        text.put("to", to.equals("all") ? "all" : "me");
+        text.put("message", message.get("message"));
+        List<LoopbackSignalingTransport> receivers = new ArrayList<>();
+        synchronized (lock) {
+            for (Map.Entry<LoopbackSignalingTransport, String> client : clients.entrySet()) {
+                if (to.equals("all") ? !client.getValue().equals(sender)
+                        : client.getValue().equals(to)) {
+                    receivers.add(client.getKey());
+                }
+            }
+        }
+        for (LoopbackSignalingTransport receiver : receivers) {
+            receiver.push("text", text);
+        }
+    }
+
+    // Push |message| to all the clients but |exceptParticipantId|.
+    private void broadcast(String exceptParticipantId, String event, JSONObject message) {
+        List<LoopbackSignalingTransport> receivers = new ArrayList<>();
+        synchronized (lock) {
+            for (Map.Entry<LoopbackSignalingTransport, String> client : clients.entrySet()) {
+                if (!client.getValue().equals(exceptParticipantId)) {
+                    receivers.add(client.getKey());
+                }
+            }
+        }
+        for (LoopbackSignalingTransport receiver : receivers) {
+            receiver.push(event, message);
+        }
+    }
+
+    private String newId(String prefix) {
+        return prefix + "-" + nextId.incrementAndGet();
+    }
+
+    private static String ticket() {
+        // Refreshed an hour later.
+        String ticket = "{\"notAfter\":\"" + (System.currentTimeMillis() + 3600 * 1000) + "\"}";
+        return Base64.encodeToString(ticket.getBytes(), Base64.NO_WRAP);
+    }
+
+    private static JSONObject streamInfo(String streamId, String owner, JSONObject attributes)
+            throws JSONException {
+        JSONObject audio = new JSONObject();
+        audio.put("status", "active");
+        audio.put("source", "mic");
+        audio.put("format", new JSONObject().put("codec", "opus").put("sampleRate", 48000)
+                .put("channelNum", 2));
+        audio.put("optional", new JSONObject().put("format", new JSONArray()
+                .put(new JSONObject().put("codec", "pcmu"))));
+
+        JSONObject parameters = new JSONObject();
+        parameters.put("resolution", new JSONObject().put("width", 640).put("height", 480));
+        parameters.put("framerate", 30);
+        parameters.put("bitrate", 500);
+        parameters.put("keyFrameInterval", 100);
+        JSONObject optionalParameters = new JSONObject();
+        optionalParameters.put("resolution", new JSONArray()
+                .put(new JSONObject().put("width", 320).put("height", 240)));
+        optionalParameters.put("framerate", new JSONArray().put(15).put(24));
+        optionalParameters.put("bitrate", new JSONArray().put("x0.8").put("x0.6"));
+        optionalParameters.put("keyFrameInterval", new JSONArray().put(30).put(60));
+        JSONObject video = new JSONObject();
+        video.put("status", "active");
+        video.put("source", "camera");
+        video.put("original", new JSONArray().put(new JSONObject()
+                .put("format", new JSONObject().put("codec", "h264").put("profile", "CB"))
+                .put("parameters", parameters)));
+        video.put("optional", new JSONObject()
+                .put("format", new JSONArray().put(new JSONObject().put("codec", "vp8")))
+                .put("parameters", optionalParameters));
+
+        JSONObject info = new JSONObject();
+        info.put("owner", owner);
+        info.put("type", "webrtc");
+        info.put("attributes", attributes == null ? new JSONObject() : attributes);
+
+        JSONObject stream = new JSONObject();
+        stream.put("id", streamId);
+        stream.put("type", "forward");
+        stream.put("media", new JSONObject().put("audio", audio).put("video", video));
+        stream.put("info", info);
+        return stream;
+    }
+}
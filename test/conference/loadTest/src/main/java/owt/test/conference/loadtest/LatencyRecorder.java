@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.test.conference.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records latency samples and reports their percentiles.
+ */
+public final class LatencyRecorder {
+    public final String name;
+    private long[] samples = new long[1024];
+    private int count = 0;
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @param percentile in [0, 100].
+     * @return the sample at |percentile| in milliseconds, 0 if there is no sample.
+     */
+    public synchronized double percentileMs(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return toMs(sorted[Math.max(0, Math.min(count - 1, index))]);
+    }
+
+    private static double toMs(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%-18s count=%-7d p50=%8.2fms p99=%8.2fms max=%8.2fms",
+                name, count(), percentileMs(50), percentileMs(99), percentileMs(100));
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.test.conference.loadtest;
+
+import owt.base.ActionCallback;
+import owt.base.OwtError;
+import owt.conference.ConferenceClient;
+import owt.conference.ConferenceClientConfiguration;
+import owt.conference.ConferenceInfo;
+import owt.conference.ConferenceSignalingTransport;
+import owt.conference.LoopbackSignalingTransport;
+import owt.conference.Participant;
+import owt.conference.RemoteStream;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives ConferenceClients against a FakeMcu and measures the latencies of the signaling path:
+ * 1. |participants| ConferenceClients join concurrently;
+ * 2. |streams| participants without a ConferenceClient publish one stream each, by signaling
+ * only, since publishing from a ConferenceClient needs a native LocalStream;
+ * 3. the server churns |churn| random joins, leaves, publications and unpublications;
+ * 4. all the ConferenceClients leave.
+ */
+public final class LoadDriver {
+    private static final String BARRIER = "owt-load-test-barrier";
+    private final int participants;
+    private final int streams;
+    private final int churn;
+    private final long timeoutMs;
+    private final FakeMcu mcu = new FakeMcu();
+    private final List<ConferenceClient> clients = new ArrayList<>();
+    private final List<Observer> observers = new ArrayList<>();
+    private final List<LoopbackSignalingTransport> transports = new ArrayList<>();
+    private final List<LoopbackSignalingTransport> publishers = new ArrayList<>();
+    private final Report report = new Report();
+    private final AtomicInteger streamEvents = new AtomicInteger();
+    private volatile CountDownLatch barrier;
+    private volatile CountDownLatch disconnected;
+
+    /**
+     * Results of a run.
+     */
+    public static final class Report {
+        public final LatencyRecorder join = new LatencyRecorder("join");
+        public final LatencyRecorder publishAck = new LatencyRecorder("publish ack");
+        public final LatencyRecorder participantEvent = new LatencyRecorder("participant event");
+        public final LatencyRecorder streamEvent = new LatencyRecorder("stream event");
+        public final LatencyRecorder leave = new LatencyRecorder("leave");
+        /**
+         * Signaling messages sent by all the ConferenceClients, per message type.
+         */
+        public final Map<String, Long> signalingMessages = new TreeMap<>();
+        /**
+         * Requests received by the FakeMcu, per request name.
+         */
+        public final Map<String, Long> serverRequests = new TreeMap<>();
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (LatencyRecorder recorder : new LatencyRecorder[]{join, publishAck,
+                    participantEvent, streamEvent, leave}) {
+                builder.append(recorder).append('\n');
+            }
+            builder.append("signaling messages ").append(signalingMessages).append('\n');
+            builder.append("server requests    ").append(serverRequests);
+            return builder.toString();
+        }
+    }
+
+    public LoadDriver(int participants, int streams, int churn, long timeoutMs) {
+        this.participants = participants;
+        this.streams = streams;
+        this.churn = churn;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public FakeMcu mcu() {
+        return mcu;
+    }
+
+    /**
+     * Run all the phases.
+     *
+     * @return Report of the run.
+     * @throws IllegalStateException if a phase has failed or timed out.
+     */
+    public Report run() throws InterruptedException, JSONException {
+        join();
+        publish();
+        churn(new Random(participants * 31 + streams));
+        leave();
+        return report;
+    }
+
+    private void join() throws InterruptedException {
+        CountDownLatch joined = new CountDownLatch(participants);
+        AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < participants; i++) {
+            LoopbackSignalingTransport transport = mcu.newTransport();
+            ConferenceClient client = new ConferenceClient(ConferenceClientConfiguration.builder()
+                    .setSignalingTransportFactory(configuration -> transport)
+                    .build());
+            Observer observer = new Observer();
+            client.addObserver(observer);
+            observers.add(observer);
+            transports.add(transport);
+            clients.add(client);
+        }
+        String token = FakeMcu.token();
+        for (ConferenceClient client : clients) {
+            final long start = System.nanoTime();
+            client.join(token, new ActionCallback<ConferenceInfo>() {
+                @Override
+                public void onSuccess(ConferenceInfo result) {
+                    report.join.record(System.nanoTime() - start);
+                    joined.countDown();
+                }
+
+                @Override
+                public void onFailure(OwtError error) {
+                    failures.incrementAndGet();
+                    joined.countDown();
+                }
+            });
+        }
+        await(joined, "join");
+        check(failures.get() == 0, failures.get() + " joins failed");
+    }
+
+    private void publish() throws InterruptedException, JSONException {
+        CountDownLatch published = new CountDownLatch(streams);
+        AtomicInteger failures = new AtomicInteger();
+        for (int i = 0; i < streams; i++) {
+            LoopbackSignalingTransport publisher = mcu.newTransport();
+            publisher.connect(null, 0, new IgnoringObserver());
+            publishers.add(publisher);
+            publisher.emit("login", new JSONObject().put("token", new JSONObject()),
+                    args -> {
+                        long start = System.nanoTime();
+                        publisher.emit("publish", publishRequest(), ackArgs -> {
+                            report.publishAck.record(System.nanoTime() - start);
+                            if (!ackArgs[0].equals("ok")) {
+                                failures.incrementAndGet();
+                            }
+                            published.countDown();
+                        });
+                    });
+        }
+        await(published, "publish");
+        check(failures.get() == 0, failures.get() + " publications failed");
+        // Every ConferenceClient is notified of every stream.
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (streamEvents.get() < participants * streams) {
+            check(System.currentTimeMillis() < deadline, "stream events timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    private void churn(Random random) throws InterruptedException, JSONException {
+        if (churn == 0) {
+            return;
+        }
+        mcu.churn(churn, random);
+        // Wait until all the events of the churn have been delivered: the transport and the
+        // callbacks of a ConferenceClient run in order, so the barrier arrives last.
+        barrier = new CountDownLatch(participants);
+        for (LoopbackSignalingTransport transport : transports) {
+            transport.push("text", new JSONObject().put("message", BARRIER)
+                    .put("from", "server").put("to", "me"));
+        }
+        await(barrier, "churn");
+    }
+
+    private void leave() throws InterruptedException {
+        disconnected = new CountDownLatch(participants);
+        for (int i = 0; i < participants; i++) {
+            observers.get(i).leaveStart = System.nanoTime();
+            clients.get(i).leave();
+        }
+        await(disconnected, "leave");
+        for (LoopbackSignalingTransport publisher : publishers) {
+            publisher.disconnect();
+        }
+        for (ConferenceClient client : clients) {
+            for (Map.Entry<String, Long> entry : client.getSignalingMessageCounts().entrySet()) {
+                Long count = report.signalingMessages.get(entry.getKey());
+                report.signalingMessages.put(entry.getKey(),
+                        (count == null ? 0 : count) + entry.getValue());
+            }
+        }
+        report.serverRequests.putAll(mcu.requestCounts());
+    }
+
+    private void await(CountDownLatch latch, String phase) throws InterruptedException {
+        check(latch.await(timeoutMs, TimeUnit.MILLISECONDS),
+                phase + " timed out, " + latch.getCount() + " pending");
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalStateException(message);
+        }
+    }
+
+    private static JSONObject publishRequest() {
+        try {
+            JSONObject video = new JSONObject();
+            video.put("source", "camera");
+            video.put("parameters", new JSONObject()
+                    .put("resolution", new JSONObject().put("width", 640).put("height", 480))
+                    .put("framerate", 30));
+            JSONObject media = new JSONObject();
+            media.put("audio", new JSONObject().put("source", "mic"));
+            media.put("video", video);
+            return new JSONObject().put("media", media).put("attributes", new JSONObject());
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private class Observer implements ConferenceClient.ConferenceClientObserver {
+        volatile long leaveStart;
+
+        @Override
+        public void onStreamAdded(RemoteStream remoteStream) {
+            Long broadcast = mcu.streamBroadcastTime(remoteStream.id());
+            if (broadcast != null) {
+                report.streamEvent.record(System.nanoTime() - broadcast);
+            }
+            streamEvents.incrementAndGet();
+        }
+
+        @Override
+        public void onParticipantJoined(Participant participant) {
+            Long broadcast = mcu.participantBroadcastTime(participant.id);
+            if (broadcast != null) {
+                report.participantEvent.record(System.nanoTime() - broadcast);
+            }
+        }
+
+        @Override
+        public void onMessageReceived(String message, String from, String to) {
+            if (BARRIER.equals(message)) {
+                barrier.countDown();
+            }
+        }
+
+        @Override
+        public void onServerDisconnected() {
+            report.leave.record(System.nanoTime() - leaveStart);
+            disconnected.countDown();
+        }
+    }
+
+    // Observer of the publishers, which ignore the events of the room.
+    private static class IgnoringObserver
+            implements ConferenceSignalingTransport.TransportObserver {
+        @Override
+        public void onConnected() {
+        }
+
+        @Override
+        public void onConnectError(String reason) {
+        }
+
+        @Override
+        public void onReconnecting() {
+        }
+
+        @Override
+        public void onDisconnected() {
+        }
+
+        @Override
+        public void onEvent(String event, Object message) {
+        }
+    }
+}
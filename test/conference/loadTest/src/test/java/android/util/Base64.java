@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package android.util;
+
+/**
+ * android.util.Base64 for the JVM, where android.jar only has a stub returning null. Supports
+ * the flags used by the SDK.
+ */
+public final class Base64 {
+    public static final int DEFAULT = 0;
+    public static final int NO_PADDING = 1;
+    public static final int NO_WRAP = 2;
+
+    private Base64() {
+    }
+
+    public static byte[] decode(String str, int flags) {
+        return java.util.Base64.getMimeDecoder().decode(str);
+    }
+
+    public static byte[] decode(byte[] input, int flags) {
+        return java.util.Base64.getMimeDecoder().decode(input);
+    }
+
+    public static String encodeToString(byte[] input, int flags) {
+        return new String(encode(input, flags));
+    }
+
+    public static byte[] encode(byte[] input, int flags) {
+        java.util.Base64.Encoder encoder = (flags & NO_WRAP) != 0
+                ? java.util.Base64.getEncoder() : java.util.Base64.getMimeEncoder();
+        if ((flags & NO_PADDING) != 0) {
+            encoder = encoder.withoutPadding();
+        }
+        return encoder.encode(input);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.test.conference.loadtest;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Runs the LoadDriver against a FakeMcu on the JVM and prints the report. By default, a small
+ * load checks the signaling path along with the other unit tests. The full-scale load runs once
+ * any of the system properties owt.loadtest.participants, owt.loadtest.streams and
+ * owt.loadtest.churn is set, the others defaulting to the full scale.
+ */
+public class LoadTest {
+    private static final String[] PROPERTIES = {"owt.loadtest.participants",
+            "owt.loadtest.streams", "owt.loadtest.churn"};
+    private static final int[] SMALL_LOAD = {20, 10, 50};
+    private static final int[] FULL_LOAD = {500, 200, 1000};
+    private static final long SMALL_LOAD_TIMEOUT_MS = 30 * 1000;
+    private static final long FULL_LOAD_TIMEOUT_MS = 120 * 1000;
+
+    @Test
+    public void testSignalingLoad() throws Exception {
+        boolean fullLoad = false;
+        for (String property : PROPERTIES) {
+            fullLoad |= System.getProperty(property) != null;
+        }
+        int[] load = fullLoad ? FULL_LOAD : SMALL_LOAD;
+        int participants = Integer.getInteger(PROPERTIES[0], load[0]);
+        int streams = Integer.getInteger(PROPERTIES[1], load[1]);
+        int churn = Integer.getInteger(PROPERTIES[2], load[2]);
+        LoadDriver driver = new LoadDriver(participants, streams, churn,
+                fullLoad ? FULL_LOAD_TIMEOUT_MS : SMALL_LOAD_TIMEOUT_MS);
+        LoadDriver.Report report = driver.run();
+        System.out.println("Conference signaling load: " + participants + " participants, "
+                + streams + " streams, " + churn + " churn operations\n" + report);
+
+        assertEquals(participants, report.join.count());
+        assertEquals(streams, report.publishAck.count());
+        assertEquals(participants, report.leave.count());
+        assertTrue(report.streamEvent.count() >= participants * streams);
+    }
+}
@@ -16,19 +16,31 @@ import static owt.test.util.Config.MESSAGE;
 import static owt.test.util.Config.P2P_SERVER;
 import static owt.test.util.Config.SPECIAL_CHARACTER;
 import static owt.test.util.Config.TIMEOUT;
+import static owt.test.util.Config.TIMEOUT_LONG;
 import static owt.test.util.Config.USER1_NAME;
 import static owt.test.util.Config.USER2_NAME;
 
+import android.util.Log;
+
+import owt.base.ClientConfiguration;
+import owt.base.DataChannelConfiguration;
+import owt.base.DataChannelQueueMetrics;
 import owt.base.MediaCodecs;
+import owt.p2p.DataChannelBatchMetrics;
+import owt.p2p.MessageAckMetrics;
+import owt.p2p.OutgoingMessage;
+import owt.p2p.P2PClientConfiguration;
 import owt.p2p.Publication;
 import owt.test.p2p.util.P2PClientObserver;
 import owt.test.util.Config;
 import owt.test.util.TestCallback;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 
 public class SendTest extends TestBase {
+    private final static String TAG = "owt_p2p_test";
 
     public void testSend_beforeConnect_shouldFail() {
         user1 = createPeerClient(null);
@@ -52,6 +64,197 @@ public class SendTest extends TestBase {
         send(user1, MESSAGE, USER2_NAME, observer2, true);
     }
 
+    public void testSend_binaryToAllowedAndConnectedPeer_shouldSucceed() {
+        observer1 = new P2PClientObserver(USER1_NAME);
+        user1 = createPeerClient(observer1);
+        observer2 = new P2PClientObserver(USER2_NAME);
+        user2 = createPeerClient(observer2);
+        user1.addAllowedRemotePeer(USER2_NAME);
+        user2.addAllowedRemotePeer(USER1_NAME);
+        connect(user1, USER1_NAME, P2P_SERVER, true);
+        connect(user2, USER2_NAME, P2P_SERVER, true);
+        ByteBuffer message = ByteBuffer.allocateDirect(4096);
+        for (int i = 0; i < message.capacity(); i++) {
+            message.put((byte) i);
+        }
+        message.flip();
+        send(user1, message, USER2_NAME, observer2, true);
+        assertEquals(0, message.position());
+        send(user2, message, USER1_NAME, observer1, true);
+        // Text and binary messages share the data channel.
+        send(user1, MESSAGE, USER2_NAME, observer2, true);
+        send(user1, message, USER2_NAME, observer2, true);
+    }
+
+    public void testSend_binaryStream_shouldBeFlowControlled() {
+        observer1 = new P2PClientObserver(USER1_NAME);
+        user1 = createPeerClient(observer1);
+        observer2 = new P2PClientObserver(USER2_NAME);
+        user2 = createPeerClient(observer2);
+        user1.addAllowedRemotePeer(USER2_NAME);
+        user2.addAllowedRemotePeer(USER1_NAME);
+        connect(user1, USER1_NAME, P2P_SERVER, true);
+        connect(user2, USER2_NAME, P2P_SERVER, true);
+        send(user1, MESSAGE, USER2_NAME, observer2, true);
+        // 16 MiB sent at once, well over the default high watermark.
+        int chunks = 256;
+        ByteBuffer chunk = ByteBuffer.allocateDirect(64 * 1024);
+        observer2.clearStatus(chunks);
+        for (int i = 0; i < chunks; i++) {
+            user1.send(USER2_NAME, chunk, null);
+        }
+        DataChannelQueueMetrics metrics = user1.getDataChannelQueueMetrics(USER2_NAME);
+        assertTrue(metrics.maxPendingBytes
+                >= ClientConfiguration.DEFAULT_DATA_CHANNEL_HIGH_WATERMARK);
+        assertTrue(observer2.getResultForDataReceived(TIMEOUT_LONG));
+        assertEquals(chunks, observer2.binaryDataReceived.size());
+        metrics = user1.getDataChannelQueueMetrics(USER2_NAME);
+        assertEquals(0, metrics.pendingMessages);
+        assertTrue(metrics.writable);
+        assertEquals(Arrays.asList(false, true), observer1.writableChanges);
+    }
+
+    public void testSend_largeBinary_shouldBeReassembled() {
+        observer1 = new P2PClientObserver(USER1_NAME);
+        user1 = createPeerClient(observer1);
+        observer2 = new P2PClientObserver(USER2_NAME);
+        user2 = createPeerClient(P2PClientConfiguration.builder()
+                .setMaxReceivedMessageSize(128 << 20).build(), observer2);
+        user1.addAllowedRemotePeer(USER2_NAME);
+        user2.addAllowedRemotePeer(USER1_NAME);
+        connect(user1, USER1_NAME, P2P_SERVER, true);
+        connect(user2, USER2_NAME, P2P_SERVER, true);
+        send(user1, MESSAGE, USER2_NAME, observer2, true);
+        // Throughput of 1 MB, 10 MB and 100 MB messages, sent in 64 KiB fragments.
+        for (int size : new int[]{1 << 20, 10 << 20, 100 << 20}) {
+            ByteBuffer message = ByteBuffer.allocateDirect(size);
+            while (message.hasRemaining()) {
+                message.put((byte) message.position());
+            }
+            message.flip();
+            int received = observer2.binaryDataReceived.size();
+            observer2.clearStatus(1);
+            long start = System.nanoTime();
+            user1.send(USER2_NAME, message, null);
+            assertTrue(observer2.getResultForDataReceived(TIMEOUT_LONG * 4));
+            long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1000000);
+            ByteBuffer result = observer2.binaryDataReceived.get(received);
+            assertEquals(message, result);
+            Log.i(TAG, (size >> 20) + " MB: " + elapsedMs + " ms, "
+                    + (size >> 10) * 1000L / 1024 / elapsedMs + " MB/s");
+            user2.recycle(result);
+        }
+    }
+
+    public void testSend_cancelLargeBinary_shouldFail() {
+        observer1 = new P2PClientObserver(USER1_NAME);
+        user1 = createPeerClient(observer1);
+        observer2 = new P2PClientObserver(USER2_NAME);
+        user2 = createPeerClient(observer2);
+        user1.addAllowedRemotePeer(USER2_NAME);
+        user2.addAllowedRemotePeer(USER1_NAME);
+        connect(user1, USER1_NAME, P2P_SERVER, true);
+        connect(user2, USER2_NAME, P2P_SERVER, true);
+        send(user1, MESSAGE, USER2_NAME, observer2, true);
+        TestCallback<Void> callback = new TestCallback<>();
+        OutgoingMessage outgoing = user1.send(USER2_NAME, ByteBuffer.allocateDirect(100 << 20),
+                callback);
+        assertTrue(outgoing.cancel());
+        assertTrue(callback.getResult(false, TIMEOUT));
+        assertFalse(outgoing.cancel());
+        // The fragments received are dropped, later messages are not affected.
+        send(user1, MESSAGE, USER2_NAME, observer2, true);
+        assertEquals(0, observer2.binaryDataReceived.size());
+    }
+
+    public void testSend_stopWithQueuedMessages_shouldFail() {
+        observer1 = new P2PClientObserver(USER1_NAME);
+        user1 = createPeerClient(observer1);
+        observer2 = new P2PClientObserver(USER2_NAME);
+        user2 = createPeerClient(observer2);
+        user1.addAllowedRemotePeer(USER2_NAME);
+        user2.addAllowedRemotePeer(USER1_NAME);
+        connect(user1, USER1_NAME, P2P_SERVER, true);
+        connect(user2, USER2_NAME, P2P_SERVER, true);
+        send(user1, MESSAGE, USER2_NAME, observer2, true);
+        // 16 MiB, mostly queued above the high watermark when the peer connection is stopped.
+        ByteBuffer chunk = ByteBuffer.allocateDirect(64 * 1024);
+        ArrayList<TestCallback<Void>> callbacks = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            TestCallback<Void> callback = new TestCallback<>();
+            callbacks.add(callback);
+            user1.send(USER2_NAME, chunk, callback);
+        }
+        user1.stop(USER2_NAME);
+        // Every callback is called, the messages not handed to the data channel fail.
+        int failed = 0;
+        for (TestCallback<Void> callback : callbacks) {
+            if (!callback.getResult(true, TIMEOUT)) {
+                assertTrue(callback.getResult(false, TIMEOUT));
+                failed++;
+            }
+        }
+        assertTrue(failed > 0);
+    }
+
+    public void testSend_textLongerThanFrame_shouldSucceed() {
+        observer1 = new P2PClientObserver(USER1_NAME);
+        user1 = createPeerClient(observer1);
+        observer2 = new P2PClientObserver(USER2_NAME);
+        user2 = createPeerClient(observer2);
+        user1.addAllowedRemotePeer(USER2_NAME);
+        user2.addAllowedRemotePeer(USER1_NAME);
+        connect(user1, USER1_NAME, P2P_SERVER, true);
+        connect(user2, USER2_NAME, P2P_SERVER, true);
+        char[] message = new char[4 * 0xFFFF];
+        Arrays.fill(message, '\u00e9');
+        send(user1, new String(message), USER2_NAME, observer2, true);
+    }
+
+    public void testSend_onNamedDataChannels_shouldBeRoutedByLabel() {
+        observer1 = new P2PClientObserver(USER1_NAME);
+        user1 = createPeerClient(observer1);
+        observer2 = new P2PClientObserver(USER2_NAME);
+        user2 = createPeerClient(observer2);
+        user1.addAllowedRemotePeer(USER2_NAME);
+        user2.addAllowedRemotePeer(USER1_NAME);
+        connect(user1, USER1_NAME, P2P_SERVER, true);
+        connect(user2, USER2_NAME, P2P_SERVER, true);
+        send(user1, MESSAGE, USER2_NAME, observer2, true);
+        TestCallback<Void> callback = new TestCallback<>();
+        user1.createDataChannel(USER2_NAME, DataChannelConfiguration.builder("telemetry")
+                .setOrdered(false)
+                .setMaxRetransmits(0)
+                .setPriority(DataChannelConfiguration.Priority.HIGH)
+                .build(), callback);
+        assertTrue(callback.getResult(true, TIMEOUT));
+        callback = new TestCallback<>();
+        user1.createDataChannel(USER2_NAME,
+                DataChannelConfiguration.builder("telemetry").build(), callback);
+        assertTrue(callback.getResult(false, TIMEOUT));
+        callback = new TestCallback<>();
+        user1.send(USER2_NAME, "unknown", ByteBuffer.allocateDirect(16), callback);
+        assertTrue(callback.getResult(false, TIMEOUT));
+
+        int messages = 20;
+        observer2.clearStatus(messages);
+        int initDataReceive = observer2.dataLabels.size();
+        for (int i = 0; i < messages; i++) {
+            ByteBuffer message = ByteBuffer.allocateDirect(1024);
+            message.putInt(0, i);
+            user1.send(USER2_NAME, "telemetry", message, null);
+        }
+        assertTrue(observer2.getResultForDataReceived(TIMEOUT));
+        assertEquals("telemetry", observer2.dataLabels.get(initDataReceive));
+        DataChannelQueueMetrics metrics =
+                user1.getDataChannelQueueMetrics(USER2_NAME, "telemetry");
+        assertEquals("telemetry", metrics.label);
+        assertTrue(metrics.latencyP99Ms >= metrics.latencyP50Ms);
+        Log.i(TAG, metrics.toString());
+        // The default data channel is not affected.
+        send(user1, MESSAGE, USER2_NAME, observer2, true);
+    }
+
     public void testSend_toUnallowedAndConnectedPeer_shouldFail() {
         user1 = createPeerClient(null);
         user2 = createPeerClient(null);
@@ -105,7 +308,7 @@ public class SendTest extends TestBase {
         connect(user1, USER1_NAME, P2P_SERVER, true);
         connect(user2, USER2_NAME, P2P_SERVER, true);
         try {
-            send(user1, null, USER2_NAME, null, false);
+            send(user1, (String) null, USER2_NAME, null, false);
             fail("RuntimeException expected.");
         } catch (RuntimeException ignored) {
         }
@@ -220,6 +423,79 @@ public class SendTest extends TestBase {
         assertEquals(user1.id(), observer2.dataSenders.get(initDataReceive + 1));
     }
 
+    public void testSend_manyMessagesAckedInBand_shouldSucceed() {
+        user1 = createPeerClient(null);
+        int messages = 100;
+        observer2 = new P2PClientObserver(USER2_NAME, messages);
+        user2 = createPeerClient(observer2);
+        user1.addAllowedRemotePeer(USER2_NAME);
+        user2.addAllowedRemotePeer(USER1_NAME);
+        connect(user1, USER1_NAME, P2P_SERVER, true);
+        connect(user2, USER2_NAME, P2P_SERVER, true);
+        // Acked in batches over the data channel, every callback still succeeds once.
+        ArrayList<TestCallback<Void>> callbacks = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            TestCallback<Void> callback = new TestCallback<>();
+            callbacks.add(callback);
+            user1.send(USER2_NAME, MESSAGE + i, callback);
+        }
+        for (TestCallback<Void> callback : callbacks) {
+            assertTrue(callback.getResult(true, TIMEOUT));
+        }
+        assertTrue(observer2.getResultForDataReceived(Config.TIMEOUT));
+        for (int i = 0; i < messages; i++) {
+            assertEquals(MESSAGE + i, observer2.dataReceived.get(i));
+        }
+        MessageAckMetrics metrics = user1.getMessageAckMetrics(USER2_NAME);
+        assertEquals(0, metrics.outstandingAcks);
+        assertTrue(metrics.maxOutstandingAcks > 0);
+        assertEquals(0, metrics.timedOutAcks);
+    }
+
+    public void testSend_smallMessagesBatched_shouldKeepOrder() {
+        user1 = createPeerClient(P2PClientConfiguration.builder()
+                .setDataChannelBatching(20, 16 * 1024)
+                .build(), null);
+        observer2 = new P2PClientObserver(USER2_NAME);
+        user2 = createPeerClient(observer2);
+        user1.addAllowedRemotePeer(USER2_NAME);
+        user2.addAllowedRemotePeer(USER1_NAME);
+        connect(user1, USER1_NAME, P2P_SERVER, true);
+        connect(user2, USER2_NAME, P2P_SERVER, true);
+        send(user1, MESSAGE, USER2_NAME, observer2, true);
+        // Text and binary messages are unpacked in the order they are sent.
+        int messages = 100;
+        int initDataReceived = observer2.dataReceived.size();
+        observer2.clearStatus(messages);
+        ArrayList<TestCallback<Void>> callbacks = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            TestCallback<Void> callback = new TestCallback<>();
+            callbacks.add(callback);
+            if (i % 10 == 0) {
+                user1.send(USER2_NAME, ByteBuffer.wrap(new byte[]{(byte) i}), callback);
+            } else {
+                user1.send(USER2_NAME, MESSAGE + i, callback);
+            }
+        }
+        for (TestCallback<Void> callback : callbacks) {
+            assertTrue(callback.getResult(true, TIMEOUT));
+        }
+        assertTrue(observer2.getResultForDataReceived(Config.TIMEOUT));
+        for (int i = 0, text = initDataReceived; i < messages; i++) {
+            if (i % 10 == 0) {
+                assertEquals(i, observer2.binaryDataReceived.get(i / 10).get(0));
+            } else {
+                assertEquals(MESSAGE + i, observer2.dataReceived.get(text++));
+            }
+        }
+        DataChannelBatchMetrics metrics = user1.getDataChannelBatchMetrics(USER2_NAME);
+        Log.i(TAG, "Batching: " + metrics);
+        assertTrue(metrics.sentBatches > 0);
+        assertTrue(metrics.maxBatchMessages > 1);
+        assertEquals(metrics.batchedMessages,
+                user2.getDataChannelBatchMetrics(USER1_NAME).receivedBatchedMessages);
+    }
+
     public void testSend_simultaneouslyTwoClientSend_shouldSucceed() {
         observer1 = new P2PClientObserver(USER1_NAME);
         user1 = createPeerClient(observer1);
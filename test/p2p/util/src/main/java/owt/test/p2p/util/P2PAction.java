@@ -30,6 +30,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.webrtc.RTCStatsReport;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 public class P2PAction {
@@ -66,6 +67,19 @@ public class P2PAction {
         return client;
     }
 
+    /**
+     * @param configuration P2PClientConfiguration of the P2PClient to be created.
+     * @param pcObserver observer for the P2PClient to be created.
+     */
+    public static P2PClient createPeerClient(P2PClientConfiguration configuration,
+            P2PClientObserver pcObserver) {
+        P2PClient client = new P2PClient(configuration, new SocketSignalingChannel());
+        if (pcObserver != null) {
+            client.addObserver(pcObserver);
+        }
+        return client;
+    }
+
     public static void connect(P2PClient client, String userName, String serverIp,
             boolean expectation) {
         JSONObject loginObject = new JSONObject();
@@ -132,6 +146,22 @@ public class P2PAction {
         }
     }
 
+    public static void send(P2PClient client, ByteBuffer msg, String receiver,
+            P2PClientObserver peerObserver, boolean expectation) {
+        int initDataNumber = 0;
+        if (peerObserver != null) {
+            peerObserver.clearStatus(1);
+            initDataNumber = peerObserver.binaryDataReceived.size();
+        }
+        TestCallback<Void> callback = new TestCallback<>();
+        client.send(receiver, msg, callback);
+        assertTrue(callback.getResult(expectation, TIMEOUT));
+        if (expectation && peerObserver != null) {
+            assertTrue(peerObserver.getResultForDataReceived(TIMEOUT));
+            assertEquals(msg, peerObserver.binaryDataReceived.get(initDataNumber));
+        }
+    }
+
     /**
      * @param peerObserver observer of another P2PClient rather than |client|.
      */
@@ -11,6 +11,7 @@ import owt.p2p.RemoteStream;
 import owt.test.util.Resultable;
 import owt.test.util.TestObserver;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -19,7 +20,11 @@ public class P2PClientObserver extends Resultable implements P2PClient.P2PClient
     private final static String TAG = "owt_test_p2p";
     public final String name;
     public final List<String> dataReceived = new ArrayList<>();
+    public final List<ByteBuffer> binaryDataReceived = new ArrayList<>();
     public final List<String> dataSenders = new ArrayList<>();
+    // Labels of the messages received on data channels created with a DataChannelConfiguration.
+    public final List<String> dataLabels = new ArrayList<>();
+    public final List<Boolean> writableChanges = new ArrayList<>();
     public final List<RemoteStream> remoteStreams = new ArrayList<>();
     // key: RemoteStream
     public final HashMap<RemoteStream, TestObserver> remoteStreamObservers = new HashMap<>();
@@ -55,6 +60,31 @@ public class P2PClientObserver extends Resultable implements P2PClient.P2PClient
         onResult();
     }
 
+    @Override
+    public void onDataReceived(String peerId, ByteBuffer msg) {
+        Log.d(TAG, "onDataReceived binary from " + peerId);
+        dataRecvTriggered = true;
+        binaryDataReceived.add(msg);
+        dataSenders.add(peerId);
+        onResult();
+    }
+
+    @Override
+    public void onDataReceived(String peerId, String label, ByteBuffer msg) {
+        Log.d(TAG, "onDataReceived on " + label + " from " + peerId);
+        dataRecvTriggered = true;
+        binaryDataReceived.add(msg);
+        dataLabels.add(label);
+        dataSenders.add(peerId);
+        onResult();
+    }
+
+    @Override
+    public void onDataChannelWritable(String peerId, boolean writable) {
+        Log.d(TAG, "onDataChannelWritable " + writable + " to " + peerId);
+        writableChanges.add(writable);
+    }
+
     @Override
     public void onServerDisconnected() {
         Log.d(TAG, "onServerDisconnected.");
@@ -14,7 +14,8 @@ TEST_PATH = os.path.join(HOME_PATH, 'test')
 DEPS_PATH = os.path.join(HOME_PATH, 'dependencies')
 
 TEST_MODULES = ["':test:util'", "':test:base'", "':test:p2p:util'", "':test:p2p:apiTest'",
-                "':test:conference:util'", "':test:conference:apiTest'"]
+                "':test:conference:util'", "':test:conference:apiTest'",
+                "':test:conference:loadTest'"]
 
 INST_TESTS = {'base': {'path': os.path.join(TEST_PATH, 'base'), 'target': 'owt.test.base'},
               'conference': {'path': os.path.join(TEST_PATH, 'conference/apiTest'),
@@ -25,7 +26,11 @@ INST_TESTS = {'base': {'path': os.path.join(TEST_PATH, 'base'), 'target': 'owt.t
 UNIT_TESTS = {'base': {'path': os.path.join(HOME_PATH, 'src/sdk/base'), 'target': 'owt.base'},
               'conference': {'path': os.path.join(HOME_PATH, 'src/sdk/conference'),
                              'target': 'owt.conference'},
-              'p2p': {'path': os.path.join(HOME_PATH, 'src/sdk/p2p'), 'target': 'owt.p2p'}}
+              'p2p': {'path': os.path.join(HOME_PATH, 'src/sdk/p2p'), 'target': 'owt.p2p'},
+              # Runs on the JVM, with the small load of LoadTest.
+              'conference-load': {'path': os.path.join(TEST_PATH, 'conference/loadTest'),
+                                  'target': 'owt.test.conference.loadtest',
+                                  'task': ':test:conference:loadTest:testDebugUnitTest'}}
 
 TIMESTAMP =  str(int(time.time()))
 LOGCAT_SUFFIX = TIMESTAMP + '.log'
@@ -159,11 +164,38 @@ def run_instrumentation_test(case_list, log_dir, device):
     return result
 
 
+def run_jvm_cases(module, unit_test, log_dir):
+    print('\n> running jvm cases of', module)
+    result_file = os.path.join(log_dir, module + '-' + TestMode.UNIT.value + '-result-' + LOGCAT_SUFFIX)
+    # JVM test modules are built against the sdk libraries in test/libs.
+    prepare_instrumentation_test()
+    change_config()
+    cmd = [HOME_PATH + '/gradlew', unit_test['task']]
+    exec_cmd(cmd, HOME_PATH, result_file)
+    recover_config()
+    report_dir = os.path.join(unit_test['path'], 'build/test-results/testDebugUnitTest')
+    reports = [] if not os.path.exists(report_dir) else \
+        [f for f in os.listdir(report_dir) if f.endswith('.xml')]
+    # Each module has a single test class.
+    if len(reports) == 1:
+        dst_xml_report_path = os.path.join(log_dir, module + '-' + TestMode.UNIT.value
+                                           + '-result-' + TIMESTAMP + '.xml')
+        shutil.copyfile(os.path.join(report_dir, reports[0]), dst_xml_report_path)
+        result_file = dst_xml_report_path
+    print('> done.')
+    print('  Result file: <LOG_DIR>/' + module + '-' + TestMode.UNIT.value + '-result-' + LOGCAT_SUFFIX)
+    return result_file
+
+
 def run_unit_test(log_dir, device):
     result = True
     for module, unit_test in UNIT_TESTS.items():
-        prepare_unit_test(unit_test['path'])
-        result_file = run_cases(TestMode.UNIT, module, unit_test['target'], log_dir, device, unit_test['path'])
+        if 'task' in unit_test:
+            result_file = run_jvm_cases(module, unit_test, log_dir)
+        else:
+            prepare_unit_test(unit_test['path'])
+            result_file = run_cases(TestMode.UNIT, module, unit_test['target'], log_dir, device,
+                                    unit_test['path'])
         total, succeed = analyse_unit_test_result(result_file)
         result = result and total != 0 and (succeed == total)
         print('\n>', module + ' result: All:', total, \
@@ -244,6 +276,8 @@ def recover_deps():
 
 def recover_unit_test_environment():
     for module, unit_test in UNIT_TESTS.items():
+        if 'task' in unit_test:
+            continue
         shutil.rmtree(os.path.join(unit_test['path'], 'src/androidTest/jniLibs'))
 
 